@@ -28,19 +28,19 @@ public class PrideChartFactory {
         PrideXYPlot plot;
         switch (type) {
             case DELTA_MASS:
-                plot = new DeltaMZPlot(PrideDatasetFactory.getXYDataset(dataSource), PrideDataType.IDENTIFIED_SPECTRA);
+                plot = new DeltaMZPlot(PrideDatasetFactory.createXYDataset(dataSource), PrideDataType.IDENTIFIED_SPECTRA);
                 break;
             case PEPTIDES_PROTEIN:
-                plot = new PeptidesProteinPlot(PrideDatasetFactory.getXYDataset(dataSource));
+                plot = new PeptidesProteinPlot(PrideDatasetFactory.createXYDataset(dataSource));
                 break;
             case PRECURSOR_CHARGE:
-                plot = new PrecursorChargePlot(PrideDatasetFactory.getXYDataset(dataSource));
+                plot = new PrecursorChargePlot(PrideDatasetFactory.createXYDataset(dataSource));
                 break;
             case PRECURSOR_MASSES:
-                plot = new PrecursorMassesPlot(PrideDatasetFactory.getXYDataset(dataSource), PrideDataType.ALL_SPECTRA);
+                plot = new PrecursorMassesPlot(PrideDatasetFactory.createXYDataset(dataSource), PrideDataType.ALL_SPECTRA);
                 break;
             case QUANTITATION_PEPTIDES:
-                plot = new QuantitationChart(PrideDatasetFactory.getQuantXYDataset(dataSource), QuantitationChart.getDefaultCategory(dataSource));
+                plot = new QuantitationChart(PrideDatasetFactory.createQuantXYDataset(dataSource), QuantitationChart.getDefaultCategory(dataSource));
                 break;
             default:
                 throw new IllegalArgumentException("Can not create XY style plot.");
@@ -12,7 +12,10 @@ public class CategorySetHistogramDataSource implements PrideDataSource {
 
     protected SortedSet<PrideHistogramBin> bins = new TreeSet<PrideHistogramBin>();
 
-    protected PrideData[] values;
+    protected PrideDataColumns columns;
+
+    // compatibility view of columns, created by the first call of getValues().
+    private PrideData[] values;
 
     private boolean calcAllSpectra = false;
 
@@ -22,10 +25,14 @@ public class CategorySetHistogramDataSource implements PrideDataSource {
     private boolean displayDataTypeList = false;
 
     public CategorySetHistogramDataSource(PrideData[] values) {
-        this.values = values;
+        this(new PrideDataColumns(values));
+    }
 
-        for (PrideData value : values) {
-            dataTypeList.add(value.getCategory());
+    public CategorySetHistogramDataSource(PrideDataColumns columns) {
+        this.columns = columns;
+
+        for (int i = 0; i < columns.size(); i++) {
+            dataTypeList.add(columns.getCategory(i));
         }
 
     }
@@ -105,24 +112,42 @@ public class CategorySetHistogramDataSource implements PrideDataSource {
 
         this.histMap = new TreeMap<String, SortedMap<PrideHistogramBin, Integer>>();
 
-        for (PrideData d : values) {
-            for (PrideHistogramBin bin : bins) {
-                if (d.getData() >= bin.getStartBoundary() && d.getData() < bin.getEndBoundary()) {
-                    SortedMap<PrideHistogramBin, Integer> idHistogram = histMap.get(d.getCategory());
-                    if (idHistogram == null) {
-                        idHistogram = createEmptyHistogram();
-                        histMap.put(d.getCategory(), idHistogram);
-                    }
-                    idHistogram.put(bin, idHistogram.get(bin) + 1);
-                    break;
+        PrideHistogramBin[] binArray = bins.toArray(new PrideHistogramBin[bins.size()]);
+        double[] binStarts = new double[binArray.length];
+        double[] binEnds = new double[binArray.length];
+        for (int i = 0; i < binArray.length; i++) {
+            binStarts[i] = binArray[i].getStartBoundary();
+            binEnds[i] = binArray[i].getEndBoundary();
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            int index = PrideHistogramDataSource.searchBin(binStarts, binEnds, columns.getValue(i));
+            if (index >= 0) {
+                PrideHistogramBin bin = binArray[index];
+                String category = columns.getCategory(i);
+                SortedMap<PrideHistogramBin, Integer> idHistogram = histMap.get(category);
+                if (idHistogram == null) {
+                    idHistogram = createEmptyHistogram();
+                    histMap.put(category, idHistogram);
                 }
+                idHistogram.put(bin, idHistogram.get(bin) + 1);
             }
         }
 
         return histMap;
     }
 
+    public PrideDataColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Compatibility view of {@link #getColumns()}, the PrideData array is created by the first call.
+     */
     public PrideData[] getValues() {
+        if (values == null) {
+            values = columns.toArray();
+        }
         return values;
     }
 
@@ -162,8 +187,8 @@ public class CategorySetHistogramDataSource implements PrideDataSource {
         }
 
         double end = Double.MIN_VALUE;
-        for (PrideData value : values) {
-            int v = value.getData().intValue();
+        for (int i = 0; i < columns.size(); i++) {
+            int v = (int) columns.getValue(i);
             if (v > end) {
                 end = v;
             }
@@ -182,8 +207,8 @@ public class CategorySetHistogramDataSource implements PrideDataSource {
         }
 
         double end = Double.MIN_VALUE;
-        for (PrideData value : values) {
-            int v = value.getData().intValue();
+        for (int i = 0; i < columns.size(); i++) {
+            int v = (int) columns.getValue(i);
             if (v > end) {
                 end = v;
             }
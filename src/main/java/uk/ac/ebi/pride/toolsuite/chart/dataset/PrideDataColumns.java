@@ -0,0 +1,200 @@
+package uk.ac.ebi.pride.toolsuite.chart.dataset;
+
+import java.util.*;
+
+/**
+ * Columnar storage of {@link PrideData} values. The data values are kept in a double array, the data
+ * types in a byte array of {@link PrideDataType#getMaskBit()} masks, and the categories in an int array
+ * of ids, which refer to the category strings interned by current columns. So a value costs 13 bytes,
+ * instead of a PrideData object with a boxed Double.
+ *
+ * A value which belongs to several series, e.g. identified spectra and target identification, is stored
+ * once with the bits of all its types, and the histograms count it into every series of the mask.
+ *
+ * A null data value is stored as Double.NaN, a null data type as an empty mask.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideDataColumns {
+    public static final int NO_CATEGORY = -1;
+
+    private static final PrideDataType[] TYPES = PrideDataType.values();
+    private static final int ALL_TYPES_MASK = (1 << TYPES.length) - 1;
+
+    private double[] values;
+    private byte[] typeMasks;
+    private int[] categories;
+    private int size = 0;
+
+    private List<String> categoryList = new ArrayList<String>();
+    private Map<String, Integer> categoryIdMap = new HashMap<String, Integer>();
+
+    public PrideDataColumns() {
+        this(16);
+    }
+
+    public PrideDataColumns(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity should not be less than 0");
+        }
+
+        this.values = new double[capacity];
+        this.typeMasks = new byte[capacity];
+        this.categories = new int[capacity];
+    }
+
+    public PrideDataColumns(PrideData[] data) {
+        this(data.length);
+        for (PrideData d : data) {
+            add(d);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= values.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(values.length * 2, capacity);
+        values = Arrays.copyOf(values, newCapacity);
+        typeMasks = Arrays.copyOf(typeMasks, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+    }
+
+    private int internCategory(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+
+        Integer id = categoryIdMap.get(category);
+        if (id == null) {
+            id = categoryList.size();
+            categoryList.add(category);
+            categoryIdMap.put(category, id);
+        }
+        return id;
+    }
+
+    public void add(double value, PrideDataType type) {
+        add(value, type, null);
+    }
+
+    public void add(double value, PrideDataType type, String category) {
+        add(value, PrideDataType.maskOf(type), category);
+    }
+
+    /**
+     * Add a value which belongs to all types of mask, see {@link PrideDataType#maskOf(PrideDataType...)}.
+     */
+    public void add(double value, int typeMask) {
+        add(value, typeMask, null);
+    }
+
+    public void add(double value, int typeMask, String category) {
+        if ((typeMask & ~ALL_TYPES_MASK) != 0) {
+            throw new IllegalArgumentException("Invalid data type mask " + typeMask);
+        }
+
+        ensureCapacity(size + 1);
+        values[size] = value;
+        typeMasks[size] = (byte) typeMask;
+        categories[size] = internCategory(category);
+        size++;
+    }
+
+    public void add(PrideData data) {
+        add(data.getData() == null ? Double.NaN : data.getData(), data.getType(), data.getCategory());
+    }
+
+    /**
+     * Append the values of other columns, the categories are interned again by current columns.
+     */
+    public void addAll(PrideDataColumns other) {
+        ensureCapacity(size + other.size);
+        for (int i = 0; i < other.size; i++) {
+            add(other.values[i], other.typeMasks[i], other.getCategory(i));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the type of value, or null if the value has not type.
+     * @throws IllegalStateException if the value belongs to several types, see {@link #getTypeMask(int)}.
+     */
+    public PrideDataType getType(int index) {
+        int mask = typeMasks[index];
+        if (mask == 0) {
+            return null;
+        }
+        if (Integer.bitCount(mask) > 1) {
+            throw new IllegalStateException("The value " + values[index] + " belongs to several data types " +
+                    PrideDataType.findByMask(mask));
+        }
+        return TYPES[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * @return the mask of types which value belongs to, 0 if the value has not type.
+     */
+    public int getTypeMask(int index) {
+        return typeMasks[index];
+    }
+
+    /**
+     * @return the category id of value, or {@link #NO_CATEGORY} if the value has not category.
+     */
+    public int getCategoryId(int index) {
+        return categories[index];
+    }
+
+    public String getCategory(int index) {
+        int id = categories[index];
+        return id == NO_CATEGORY ? null : categoryList.get(id);
+    }
+
+    /**
+     * @return the interned categories, the category id is the index of list.
+     */
+    public List<String> getCategoryList() {
+        return Collections.unmodifiableList(categoryList);
+    }
+
+    /**
+     * @return a new {@link PrideData} which has the same value, type and category of index.
+     */
+    public PrideData get(int index) {
+        PrideData data = new PrideData(values[index], getType(index));
+        data.setCategory(getCategory(index));
+        return data;
+    }
+
+    /**
+     * @return the values as {@link PrideData}, a value which belongs to several types is expanded into one
+     * PrideData per type.
+     */
+    public PrideData[] toArray() {
+        List<PrideData> data = new ArrayList<PrideData>(size);
+        PrideData d;
+        for (int i = 0; i < size; i++) {
+            if (Integer.bitCount(typeMasks[i]) <= 1) {
+                data.add(get(i));
+                continue;
+            }
+
+            for (PrideDataType type : PrideDataType.findByMask(typeMasks[i])) {
+                d = new PrideData(values[i], type);
+                d.setCategory(getCategory(i));
+                data.add(d);
+            }
+        }
+        return data.toArray(new PrideData[data.size()]);
+    }
+}
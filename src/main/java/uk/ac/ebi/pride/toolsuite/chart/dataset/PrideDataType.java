@@ -2,6 +2,7 @@ package uk.ac.ebi.pride.toolsuite.chart.dataset;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author qingwei
@@ -33,6 +34,43 @@ public enum PrideDataType {
         return title;
     }
 
+    /**
+     * @return the membership bit of current type. Different from the id, which reflects the type
+     * hierarchy, the bits of several types can be combined into a mask of the series which a value
+     * belongs to, see {@link PrideDataColumns}.
+     */
+    public int getMaskBit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return the mask of types, null type is ignored.
+     */
+    public static int maskOf(PrideDataType... types) {
+        int mask = 0;
+        for (PrideDataType type : types) {
+            if (type != null) {
+                mask |= type.getMaskBit();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return the types of mask, in declaration order.
+     */
+    public static List<PrideDataType> findByMask(int mask) {
+        List<PrideDataType> typeList = new ArrayList<PrideDataType>();
+
+        for (PrideDataType type : values()) {
+            if ((mask & type.getMaskBit()) != 0) {
+                typeList.add(type);
+            }
+        }
+
+        return typeList;
+    }
+
     public static PrideDataType findBy(int id) {
         PrideDataType type;
         switch (id) {
@@ -9,6 +9,7 @@ import uk.ac.ebi.pride.toolsuite.chart.io.PrideSpectrumHistogramDataSource;
 
 import java.text.DecimalFormat;
 import java.util.Collection;
+import java.util.Map;
 import java.util.SortedMap;
 
 /**
@@ -21,11 +22,9 @@ public class PrideDatasetFactory {
 
     private static XYSeries getSeries(PrideXYDataSource dataSource) {
         XYSeries series = new XYSeries(dataSource.getDataType().toString());
-        Double[] domainValues = dataSource.getDomainData();
-        PrideData[] rangeValues = dataSource.getRangeData();
 
-        for (int i = 0; i < domainValues.length; i++) {
-            series.add(domainValues[i], rangeValues[i].getData());
+        for (int i = 0; i < dataSource.getSize(); i++) {
+            series.add(dataSource.getDomainValue(i), dataSource.getRangeValue(i));
         }
 
         return series;
@@ -34,16 +33,29 @@ public class PrideDatasetFactory {
     private static XYSeries getQuantSeries(PrideXYDataSource dataSource) {
         String key = dataSource.getCategoryDataType().iterator().next();
         XYSeries series = new XYSeries(key);
-        Double[] domainValues = dataSource.getDomainData();
-        PrideData[] rangeValues = dataSource.getRangeData();
-        for (int i = 0; i < domainValues.length; i++) {
-            series.add(domainValues[i], rangeValues[i].getData());
+        for (int i = 0; i < dataSource.getSize(); i++) {
+            series.add(dataSource.getDomainValue(i), dataSource.getRangeValue(i));
         }
 
         return series;
     }
 
 
+    /**
+     * Read-only dataset backed by the data source arrays, one series for data source type
+     * and one series for every child type which has values.
+     */
+    public static PrideXYDataset createXYDataset(PrideXYDataSource dataSource) {
+        return new PrideXYDataset(dataSource);
+    }
+
+    /**
+     * Read-only dataset backed by the data source arrays, one series for every category.
+     */
+    public static PrideXYDataset createQuantXYDataset(PrideXYDataSource dataSource) {
+        return new PrideXYDataset(dataSource, dataSource.getCategoryDataType());
+    }
+
     public static XYSeriesCollection getXYDataset(PrideXYDataSource dataSource) {
 
         XYSeries series = getSeries(dataSource.filter(dataSource.getDataType()));
@@ -98,22 +110,29 @@ public class PrideDatasetFactory {
     }
 
     public static CategoryDataset getHistogramDataset(PrideHistogramDataSource dataSource, PrideChartType prideChartType) {
-        SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> histogramMap = dataSource.getHistogramMap();
+        Map<PrideDataType, int[]> countMap = dataSource.getCountMap();
 
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
 
-        String category;
+        // the categories are same for all series.
+        DecimalFormat format = new DecimalFormat("#");
+        String[] categories = new String[dataSource.getBinCount()];
+        PrideHistogramBin bin;
+        for (int i = 0; i < categories.length; i++) {
+            bin = dataSource.getBin(i);
+            if(prideChartType == PrideChartType.MISSED_CLEAVAGES)
+                categories[i] = bin.toString(true);
+             else
+                categories[i] = bin.getEndBoundary() == Integer.MAX_VALUE ? ">" + bin.getStartBoundary() : bin.toString(format);
+        }
+
         String seriesKey;
-        SortedMap<PrideHistogramBin, Integer> histogram;
-        for (PrideDataType dataType : histogramMap.keySet()) {
-            histogram = histogramMap.get(dataType);
-            seriesKey = dataType.getTitle();
-            for (PrideHistogramBin bin : histogram.keySet()) {
-                if(prideChartType == PrideChartType.MISSED_CLEAVAGES)
-                    category = bin.toString(true);
-                 else
-                    category = bin.getEndBoundary() == Integer.MAX_VALUE ? ">" + bin.getStartBoundary() : bin.toString(new DecimalFormat("#"));
-                dataset.addValue(histogram.get(bin), seriesKey, category);
+        int[] counts;
+        for (Map.Entry<PrideDataType, int[]> entry : countMap.entrySet()) {
+            counts = entry.getValue();
+            seriesKey = entry.getKey().getTitle();
+            for (int i = 0; i < counts.length; i++) {
+                dataset.addValue(Integer.valueOf(counts[i]), seriesKey, categories[i]);
             }
         }
 
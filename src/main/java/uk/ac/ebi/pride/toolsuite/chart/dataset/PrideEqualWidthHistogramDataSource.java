@@ -15,6 +15,14 @@ public class PrideEqualWidthHistogramDataSource extends PrideHistogramDataSource
         super(values, calcAllSpectra, categoryType);
     }
 
+    public PrideEqualWidthHistogramDataSource(PrideDataColumns columns, boolean calcAllSpectra, boolean categoryType) {
+        super(columns, calcAllSpectra, categoryType);
+    }
+
+    public PrideEqualWidthHistogramDataSource(PrideHistogramAccumulator accumulator) {
+        super(accumulator);
+    }
+
     /**
      * generate a couple of histogram bins, which size is binCount. Every bin's width are same
      * and first bin's lower bound is start.
@@ -50,13 +58,7 @@ public class PrideEqualWidthHistogramDataSource extends PrideHistogramDataSource
             throw new IllegalArgumentException("Bin count should be great than 0");
         }
 
-        double end = Double.MIN_VALUE;
-        for (PrideData value : values) {
-            int v = value.getData().intValue();
-            if (v > end) {
-                end = v;
-            }
-        }
+        double end = getMaxIntValue();
 
         int binWidth = (int) Math.ceil((end - start) / binCount);
         int remainder = binWidth % granularity == 0 ? 0 : granularity;
@@ -70,16 +72,95 @@ public class PrideEqualWidthHistogramDataSource extends PrideHistogramDataSource
             throw new IllegalArgumentException("Bin width should be great than 0");
         }
 
+        double end = getMaxIntValue();
+
+        int binCount = (int)Math.ceil((end - start) / binWidth);
+        return generateBins(start, binWidth, binCount);
+    }
+
+    /**
+     * Besides the counts, the max value of other equal width data source is kept for generating bins.
+     */
+    @Override
+    public void merge(PrideHistogramDataSource other) {
+        double maxIntValue = getMaxIntValue();
+        if (other instanceof PrideEqualWidthHistogramDataSource) {
+            maxIntValue = Math.max(maxIntValue, ((PrideEqualWidthHistogramDataSource) other).getMaxIntValue());
+        }
+
+        super.merge(other);
+        accumulator.updateMaxValue(maxIntValue, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * When both data sources have equal width bins but the layouts are different, the merged layout covers
+     * the bins of both, starts from the lower start and uses the wider bin width.
+     */
+    @Override
+    protected void mergeBins(PrideHistogramDataSource other) {
+        if (bins.isEmpty() || other.bins.isEmpty() || ! (other instanceof PrideEqualWidthHistogramDataSource)) {
+            super.mergeBins(other);
+            return;
+        }
+
+        double start = getStart();
+        double end = getEnd();
+        double binWidth = getBinWidth();
+        PrideEqualWidthHistogramDataSource otherDataSource = (PrideEqualWidthHistogramDataSource) other;
+        if (start == otherDataSource.getStart() && end == otherDataSource.getEnd() && getBinCount() == otherDataSource.getBinCount()) {
+            return;
+        }
+
+        start = Math.min(start, otherDataSource.getStart());
+        end = Math.max(end, otherDataSource.getEnd());
+        binWidth = Math.max(binWidth, otherDataSource.getBinWidth());
+
+        clearBins();
+        appendBins(generateBins(start, binWidth, (int) Math.ceil((end - start) / binWidth)));
+    }
+
+    /**
+     * The max integer part of values, which is the end of generated bins.
+     */
+    public double getMaxIntValue() {
+        if (accumulator != null) {
+            return accumulator.getMaxIntValue();
+        }
+
         double end = Double.MIN_VALUE;
-        for (PrideData value : values) {
-            int v = value.getData().intValue();
+        for (int i = 0; i < columns.size(); i++) {
+            int v = (int) columns.getValue(i);
             if (v > end) {
                 end = v;
             }
         }
+        return end;
+    }
 
-        int binCount = (int)Math.ceil((end - start) / binWidth);
-        return generateBins(start, binWidth, binCount);
+    /**
+     * The bin position is computed from the first bin start and the average bin width. The boundaries
+     * of generated bins are accumulated by addition, so the computed position is corrected by the real
+     * boundaries; binary search is the fallback, e.g. a value falls in a gap after some bins are removed.
+     */
+    @Override
+    protected int findBinIndex(double value) {
+        int last = binArray.length - 1;
+        double width = (binEnds[last] - binStarts[0]) / binArray.length;
+
+        int i = (int) ((value - binStarts[0]) / width);
+        if (i > last) {
+            i = last;
+        }
+        if (value < binStarts[i] && i > 0) {
+            i--;
+        } else if (value >= binEnds[i] && i < last) {
+            i++;
+        }
+
+        if (binStarts[i] <= value && value < binEnds[i]) {
+            return i;
+        }
+        return super.findBinIndex(value);
     }
 
     public double getBinWidth() {
@@ -90,9 +171,15 @@ public class PrideEqualWidthHistogramDataSource extends PrideHistogramDataSource
         return bins.first().getBinWidth();
     }
 
+    /**
+     * The bin widths are same if they are equal at two decimal places.
+     */
+    protected boolean isSameBinWidth(double binWidth, double otherBinWidth) {
+        return new BigDecimal(binWidth).setScale(2, RoundingMode.CEILING).equals(new BigDecimal(otherBinWidth).setScale(2, RoundingMode.CEILING));
+    }
+
     public void appendBin(PrideHistogramBin bin) {
-        if (! bins.isEmpty() &&
-            ! new BigDecimal(bin.getBinWidth()).setScale(2, RoundingMode.CEILING).equals(new BigDecimal(bins.first().getBinWidth()).setScale(2, RoundingMode.CEILING))) {
+        if (! bins.isEmpty() && ! isSameBinWidth(bin.getBinWidth(), bins.first().getBinWidth())) {
             throw new IllegalArgumentException("the bin width not be same with exists bin width.");
         }
 
@@ -0,0 +1,267 @@
+package uk.ac.ebi.pride.toolsuite.chart.dataset;
+
+import java.util.*;
+
+/**
+ * Streaming counterpart of {@link PrideHistogramDataSource}. The values are counted into primitive
+ * counters when they are read, and no {@link PrideData} object is kept, so the heap used is
+ * proportional to the number of counters instead of the number of values.
+ *
+ * Two counter layouts are supported:
+ * <ul>
+ *     <li>fixed bins, one counter for every bin, the bins are known up front.</li>
+ *     <li>equal width cells [start + i*cellWidth, start + (i+1)*cellWidth), the cells are grown on demand.
+ *     The histogram bins generated later by {@link PrideEqualWidthHistogramDataSource} should be aligned
+ *     on the cells, which means every bin boundary is a cell boundary.</li>
+ * </ul>
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideHistogramAccumulator {
+    private static final int INIT_CELL_COUNT = 16;
+    private static final PrideDataType[] TYPES = PrideDataType.values();
+
+    // fixed bins layout.
+    private double[] binStarts;
+    private double[] binEnds;
+
+    // equal width cells layout.
+    private double start;
+    private double cellWidth;
+
+    private boolean calcAllSpectra;
+
+    private Map<PrideDataType, int[]> counts = new EnumMap<PrideDataType, int[]>(PrideDataType.class);
+
+    private Set<PrideDataType> dataTypeList = new HashSet<PrideDataType>();
+
+    // the max integer part of values, same as the end used by PrideEqualWidthHistogramDataSource.generateBins.
+    private double maxIntValue = Double.MIN_VALUE;
+
+    private double maxValue = Double.NEGATIVE_INFINITY;
+
+    public PrideHistogramAccumulator(Collection<PrideHistogramBin> bins, boolean calcAllSpectra) {
+        if (bins == null || bins.isEmpty()) {
+            throw new IllegalArgumentException("Histogram bins is empty.");
+        }
+
+        // order the bins for binary search.
+        SortedSet<PrideHistogramBin> binSet = new TreeSet<PrideHistogramBin>(bins);
+        this.binStarts = new double[binSet.size()];
+        this.binEnds = new double[binSet.size()];
+        int i = 0;
+        for (PrideHistogramBin bin : binSet) {
+            binStarts[i] = bin.getStartBoundary();
+            binEnds[i] = bin.getEndBoundary();
+            i++;
+        }
+        init(calcAllSpectra);
+    }
+
+    public PrideHistogramAccumulator(double start, double cellWidth, boolean calcAllSpectra) {
+        if (cellWidth <= 0) {
+            throw new IllegalArgumentException("Cell width should be great than 0");
+        }
+
+        this.start = start;
+        this.cellWidth = cellWidth;
+        init(calcAllSpectra);
+    }
+
+    private void init(boolean calcAllSpectra) {
+        this.calcAllSpectra = calcAllSpectra;
+        if (calcAllSpectra) {
+            dataTypeList.add(PrideDataType.ALL_SPECTRA);
+        }
+    }
+
+    public Set<PrideDataType> getDataTypeList() {
+        return dataTypeList;
+    }
+
+    public boolean isCalcAllSpectra() {
+        return calcAllSpectra;
+    }
+
+    public double getMaxIntValue() {
+        return maxIntValue;
+    }
+
+    /**
+     * @return the max value which has been added, or Double.NEGATIVE_INFINITY if no value added.
+     */
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    private boolean isFixedBins() {
+        return binStarts != null;
+    }
+
+    /**
+     * @return the index of counter which value fall in, or -1 if value out of all counters.
+     */
+    private int getCellIndex(double value) {
+        if (isFixedBins()) {
+            return PrideHistogramDataSource.searchBin(binStarts, binEnds, value);
+        }
+
+        if (! (value >= start) || Double.isInfinite(value)) {
+            return -1;
+        }
+        double index = Math.floor((value - start) / cellWidth);
+        if (index >= Integer.MAX_VALUE) {
+            return -1;
+        }
+
+        // correct the rounding of division, the value should in [cell_start, cell_end).
+        int i = (int) index;
+        if (getCellStart(i) > value) {
+            i--;
+        } else if (getCellStart(i + 1) <= value) {
+            i++;
+        }
+        return i;
+    }
+
+    private double getCellStart(int index) {
+        return isFixedBins() ? binStarts[index] : start + index * cellWidth;
+    }
+
+    private int[] getCounts(PrideDataType type, int index) {
+        int[] typeCounts = counts.get(type);
+        if (typeCounts == null) {
+            typeCounts = new int[isFixedBins() ? binStarts.length : Math.max(INIT_CELL_COUNT, index + 1)];
+            counts.put(type, typeCounts);
+        } else if (index >= typeCounts.length) {
+            typeCounts = Arrays.copyOf(typeCounts, Math.max(typeCounts.length * 2, index + 1));
+            counts.put(type, typeCounts);
+        }
+        return typeCounts;
+    }
+
+    public void add(double value, PrideDataType type) {
+        add(value, type.getMaskBit());
+    }
+
+    /**
+     * Add a value which belongs to all types of mask, the counter is searched once and increased for
+     * every type, see {@link PrideDataType#maskOf(PrideDataType...)}.
+     */
+    public void add(double value, int typeMask) {
+        int v = (int) value;
+        if (v > maxIntValue) {
+            maxIntValue = v;
+        }
+        if (value > maxValue) {
+            maxValue = value;
+        }
+
+        int index = getCellIndex(value);
+        PrideDataType type;
+        for (int typeBits = typeMask; typeBits != 0; typeBits &= typeBits - 1) {
+            type = TYPES[Integer.numberOfTrailingZeros(typeBits)];
+            dataTypeList.add(type);
+            if (index >= 0) {
+                getCounts(type, index)[index]++;
+            }
+        }
+    }
+
+    /**
+     * Add the counts of a data type bin by bin, only for the fixed bins layout. The counts are added as they
+     * are, so the merged or stored histogram is kept by an accumulator which not calculates all spectra again.
+     */
+    public void addCounts(PrideDataType type, int[] binCounts) {
+        if (! isFixedBins() || binCounts.length != binStarts.length) {
+            throw new IllegalArgumentException("The counts not match the bins of accumulator.");
+        }
+
+        dataTypeList.add(type);
+        int[] typeCounts = getCounts(type, 0);
+        for (int i = 0; i < binCounts.length; i++) {
+            typeCounts[i] += binCounts[i];
+        }
+    }
+
+    /**
+     * Keep the max values of merged or stored data sources, which are used to generate the bins.
+     */
+    public void updateMaxValue(double maxIntValue, double maxValue) {
+        this.maxIntValue = Math.max(this.maxIntValue, maxIntValue);
+        this.maxValue = Math.max(this.maxValue, maxValue);
+    }
+
+    /**
+     * Add the counters of other accumulator, which should have the same layout with current one.
+     */
+    public void merge(PrideHistogramAccumulator other) {
+        if (isFixedBins() != other.isFixedBins() ||
+            (isFixedBins() && ! (Arrays.equals(binStarts, other.binStarts) && Arrays.equals(binEnds, other.binEnds))) ||
+            (! isFixedBins() && (start != other.start || cellWidth != other.cellWidth))) {
+            throw new IllegalArgumentException("The accumulators have different counter layout.");
+        }
+
+        dataTypeList.addAll(other.dataTypeList);
+        maxIntValue = Math.max(maxIntValue, other.maxIntValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+
+        for (Map.Entry<PrideDataType, int[]> entry : other.counts.entrySet()) {
+            int[] otherCounts = entry.getValue();
+            int[] typeCounts = getCounts(entry.getKey(), otherCounts.length - 1);
+            for (int i = 0; i < otherCounts.length; i++) {
+                typeCounts[i] += otherCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Translate the counters into counts over the bins of data source, the result is the same as
+     * {@link PrideHistogramDataSource#getCountMap()} over the added values. Every counter is
+     * counted in the bin which the counter start falls in, based on the data source range policy.
+     */
+    Map<PrideDataType, int[]> createCountMap(PrideHistogramDataSource dataSource) {
+        Map<PrideDataType, int[]> countMap = new EnumMap<PrideDataType, int[]>(PrideDataType.class);
+        int binCount = dataSource.getBinCount();
+
+        int[] allCounts = new int[binCount];
+        if (dataTypeList.contains(PrideDataType.ALL_SPECTRA) || calcAllSpectra) {
+            countMap.put(PrideDataType.ALL_SPECTRA, allCounts);
+        }
+
+        PrideDataType type;
+        int[] binCounts;
+        for (Map.Entry<PrideDataType, int[]> entry : counts.entrySet()) {
+            type = entry.getKey();
+            int[] typeCounts = entry.getValue();
+            for (int i = 0; i < typeCounts.length; i++) {
+                if (typeCounts[i] == 0) {
+                    continue;
+                }
+                int index = dataSource.getBinIndex(getCellStart(i));
+                if (index < 0) {
+                    continue;
+                }
+
+                if (type == PrideDataType.IDENTIFIED_SPECTRA || type == PrideDataType.UNIDENTIFIED_SPECTRA ||
+                    type == PrideDataType.IDENTIFIED_TARGET || type == PrideDataType.IDENTIFIED_DECOY) {
+                    binCounts = countMap.get(type);
+                    if (binCounts == null) {
+                        binCounts = new int[binCount];
+                        countMap.put(type, binCounts);
+                    }
+                    binCounts[index] += typeCounts[i];
+                } else if (type == PrideDataType.ALL_SPECTRA) {
+                    allCounts[index] += typeCounts[i];
+                }
+
+                if (calcAllSpectra) {
+                    allCounts[index] += typeCounts[i];
+                }
+            }
+        }
+
+        return countMap;
+    }
+}
@@ -1,9 +1,11 @@
 package uk.ac.ebi.pride.toolsuite.chart.dataset;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
-* Based on Histogram bins list {@link #bins}, system translate the {@link #values}
+* Based on Histogram bins list {@link #bins}, system translate the {@link #columns}
 * into a histogram. Every bin, the value should in [bin_lowBound, bin_highBound) range,
 * which means the low bound value is included and high bound value is excluded.
 *
@@ -14,13 +16,37 @@ import java.util.*;
 * Date: 14/06/13
 */
 public class PrideHistogramDataSource implements PrideDataSource {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    // the types which have their own histogram.
+    private static final int COUNTED_TYPE_MASK = PrideDataType.maskOf(
+            PrideDataType.IDENTIFIED_SPECTRA, PrideDataType.UNIDENTIFIED_SPECTRA,
+            PrideDataType.IDENTIFIED_TARGET, PrideDataType.IDENTIFIED_DECOY, PrideDataType.ALL_SPECTRA
+    );
 
     protected SortedSet<PrideHistogramBin> bins = new TreeSet<PrideHistogramBin>();
 
-    protected PrideData[] values;
+    protected PrideDataColumns columns;
+
+    // compatibility view of columns, created by the first call of getValues().
+    private PrideData[] values;
+
+    protected PrideHistogramAccumulator accumulator;
+
+    // bins in order and their boundaries, created by the first bin lookup after the bins changed.
+    protected PrideHistogramBin[] binArray;
+    protected double[] binStarts;
+    protected double[] binEnds;
+
+    private PrideHistogramRangePolicy rangePolicy = PrideHistogramRangePolicy.DROP;
+
+    private boolean parallel = false;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
     private boolean calcAllSpectra = false;
 
+    private Map<PrideDataType, int[]> countMap;
+
     private SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> histMap;
 
     private SortedMap<String, SortedMap<PrideHistogramBin,Integer>> categortyHistMap;
@@ -31,16 +57,26 @@ public class PrideHistogramDataSource implements PrideDataSource {
 
     public PrideHistogramDataSource(PrideData[] values, boolean calcAllSpectra, boolean categoryType) {
 
+        this(new PrideDataColumns(values), calcAllSpectra, categoryType);
+    }
+
+    public PrideHistogramDataSource(PrideDataColumns columns, boolean calcAllSpectra, boolean categoryType) {
+
         this.calcAllSpectra = calcAllSpectra;
-        this.values = values;
+        this.columns = columns;
 
-        for (PrideData value : values) {
-            dataTypeList.add(value.getType());
+        int typeMask = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.getTypeMask(i) == 0) {
+                dataTypeList.add(null);
+            }
+            typeMask |= columns.getTypeMask(i);
         }
+        dataTypeList.addAll(PrideDataType.findByMask(typeMask));
 
         if(categoryType){
-            for(PrideData value: values)
-                categoryTypes.add(value.getCategory());
+            for (int i = 0; i < columns.size(); i++)
+                categoryTypes.add(columns.getCategory(i));
         }
 
         if (calcAllSpectra) {
@@ -48,6 +84,18 @@ public class PrideHistogramDataSource implements PrideDataSource {
         }
     }
 
+    /**
+     * Create a histogram data source over the counters of a streaming accumulator,
+     * no {@link PrideData} is kept and {@link #getValues()} is empty.
+     */
+    public PrideHistogramDataSource(PrideHistogramAccumulator accumulator) {
+        this.accumulator = accumulator;
+        this.calcAllSpectra = accumulator.isCalcAllSpectra();
+        this.columns = new PrideDataColumns(0);
+
+        dataTypeList.addAll(accumulator.getDataTypeList());
+    }
+
     public Set<PrideDataType> getDataTypeList() {
         return dataTypeList;
     }
@@ -72,6 +120,7 @@ public class PrideHistogramDataSource implements PrideDataSource {
         }
 
         this.bins.add(bin);
+        resetHistogram();
     }
 
     public void appendBins(Collection<PrideHistogramBin> bins) {
@@ -94,10 +143,105 @@ public class PrideHistogramDataSource implements PrideDataSource {
         }
 
         this.bins = newBins;
+        resetHistogram();
     }
 
     public void clearBins() {
         bins.clear();
+        resetHistogram();
+    }
+
+    public PrideHistogramRangePolicy getRangePolicy() {
+        return rangePolicy;
+    }
+
+    /**
+     * Set how {@link #getHistogramMap()} counts the values out of the bins, default is
+     * {@link PrideHistogramRangePolicy#DROP}.
+     */
+    public void setRangePolicy(PrideHistogramRangePolicy rangePolicy) {
+        if (rangePolicy == null) {
+            throw new IllegalArgumentException("Range policy is null!");
+        }
+        this.rangePolicy = rangePolicy;
+        resetHistogram();
+    }
+
+    /**
+     * The bins changed, the bin positions and histogram should be created again.
+     */
+    private void resetHistogram() {
+        this.binArray = null;
+        this.countMap = null;
+        this.histMap = null;
+        this.categortyHistMap = null;
+    }
+
+    /**
+     * @return the bins in order, the array index is the bin position used by {@link #getBinIndex(double)}.
+     */
+    protected PrideHistogramBin[] getBinArray() {
+        if (binArray == null) {
+            PrideHistogramBin[] array = bins.toArray(new PrideHistogramBin[bins.size()]);
+            binStarts = new double[array.length];
+            binEnds = new double[array.length];
+            for (int i = 0; i < array.length; i++) {
+                binStarts[i] = array[i].getStartBoundary();
+                binEnds[i] = array[i].getEndBoundary();
+            }
+            binArray = array;
+        }
+        return binArray;
+    }
+
+    /**
+     * @return the position of bin which value fall in, or -1 if there is no such bin, based on
+     * current range policy.
+     */
+    public int getBinIndex(double value) {
+        return getBinIndex(value, rangePolicy);
+    }
+
+    public int getBinIndex(double value, PrideHistogramRangePolicy policy) {
+        int last = getBinArray().length - 1;
+        if (last < 0 || Double.isNaN(value)) {
+            return -1;
+        }
+
+        if (value < binStarts[0]) {
+            return policy == PrideHistogramRangePolicy.CLAMP ? 0 : -1;
+        }
+        if (value >= binEnds[last]) {
+            return policy == PrideHistogramRangePolicy.CLAMP ? last : -1;
+        }
+        return findBinIndex(value);
+    }
+
+    /**
+     * Find the bin of a value in [first bin start, last bin end) by binary search over the bin
+     * boundaries, return -1 if value fall in a gap between bins.
+     */
+    protected int findBinIndex(double value) {
+        return searchBin(binStarts, binEnds, value);
+    }
+
+    /**
+     * @return the index i which starts[i] <= value < ends[i], or -1. The starts should be in ascending order.
+     */
+    static int searchBin(double[] starts, double[] ends, double value) {
+        int low = 0;
+        int high = starts.length - 1;
+        int mid;
+        while (low <= high) {
+            mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return high >= 0 && value < ends[high] ? high : -1;
     }
 
     public int getBinCount() {
@@ -128,6 +272,163 @@ public class PrideHistogramDataSource implements PrideDataSource {
         return histogram;
     }
 
+    /**
+     * @return the bin of position, which is the index of count arrays.
+     */
+    public PrideHistogramBin getBin(int index) {
+        return getBinArray()[index];
+    }
+
+    /**
+     * @return the counts of data type indexed by bin position, or null if the histogram has not this data type.
+     */
+    public int[] getCounts(PrideDataType dataType) {
+        return getCountMap().get(dataType);
+    }
+
+    /**
+     * The histogram as one count array per data type, indexed by bin position. The map has the same data
+     * types with {@link #getHistogramMap()}, the arrays should be treated as read-only.
+     */
+    public Map<PrideDataType, int[]> getCountMap() {
+        if (countMap == null) {
+            countMap = accumulator != null ? accumulator.createCountMap(this) : createCountMap();
+        }
+        return countMap;
+    }
+
+    private Map<PrideDataType, int[]> createCountMap() {
+        getBinArray();
+
+        int[][] counts;
+        if (parallel && columns.size() >= parallelThreshold) {
+            counts = ForkJoinPool.commonPool().invoke(new CountTask(0, columns.size()));
+        } else {
+            counts = count(0, columns.size());
+        }
+
+        Map<PrideDataType, int[]> countMap = new EnumMap<PrideDataType, int[]>(PrideDataType.class);
+        for (PrideDataType type : PrideDataType.values()) {
+            int[] typeCounts = counts[type.ordinal()];
+            if (type == PrideDataType.ALL_SPECTRA) {
+                if(dataTypeList.contains(PrideDataType.ALL_SPECTRA) || calcAllSpectra)
+                    countMap.put(type, typeCounts == null ? new int[binArray.length] : typeCounts);
+            } else if (typeCounts != null) {
+                countMap.put(type, typeCounts);
+            }
+        }
+
+        return countMap;
+    }
+
+    /**
+     * Count the values in [from, to) into arrays indexed by data type ordinal, the array of a data
+     * type is created when the first value of this type falls in a bin.
+     */
+    private int[][] count(int from, int to) {
+        int binCount = binArray.length;
+        int[][] counts = new int[PrideDataType.values().length][];
+        int all = PrideDataType.ALL_SPECTRA.ordinal();
+
+        int typeMask;
+        int typeBits;
+        int ordinal;
+        int index;
+        for (int i = from; i < to; i++) {
+            index = getBinIndex(columns.getValue(i));
+            if (index < 0) {
+                continue;
+            }
+
+            // the bin is searched once, and the value is counted into every series of its mask.
+            typeMask = columns.getTypeMask(i);
+            typeBits = typeMask & COUNTED_TYPE_MASK;
+            while (typeBits != 0) {
+                ordinal = Integer.numberOfTrailingZeros(typeBits);
+                typeBits &= typeBits - 1;
+                if (counts[ordinal] == null) {
+                    counts[ordinal] = new int[binCount];
+                }
+                counts[ordinal][index]++;
+            }
+
+            if (calcAllSpectra) {
+                if (counts[all] == null) {
+                    counts[all] = new int[binCount];
+                }
+                // all spectra counts the value once per type, same as the expanded PrideData values.
+                counts[all][index] += Math.max(Integer.bitCount(typeMask), 1);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Split the values into halves until the range is small enough, every leaf counts into its own
+     * arrays and the arrays are added together, which gives exactly the counts of serial path.
+     */
+    private class CountTask extends RecursiveTask<int[][]> {
+        private int from;
+        private int to;
+
+        private CountTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (to - from <= Math.max(parallelThreshold / 4, 1)) {
+                return count(from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(from, middle);
+            CountTask right = new CountTask(middle, to);
+            left.fork();
+            int[][] rightCounts = right.compute();
+            int[][] counts = left.join();
+
+            for (int t = 0; t < counts.length; t++) {
+                if (counts[t] == null) {
+                    counts[t] = rightCounts[t];
+                } else if (rightCounts[t] != null) {
+                    for (int i = 0; i < counts[t].length; i++) {
+                        counts[t][i] += rightCounts[t][i];
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Count the values on the common fork-join pool, when the number of values is not less than
+     * the parallel threshold. The counts are identical to the serial counting.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold should be great than 0");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sorted map view of {@link #getCountMap()}, which is created by the first call.
+     */
     public SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> getHistogramMap() {
         if (histMap != null) {
             return histMap;
@@ -135,58 +436,15 @@ public class PrideHistogramDataSource implements PrideDataSource {
 
         this.histMap = new TreeMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>>();
 
-        SortedMap<PrideHistogramBin, Integer> idHistogram;
-        SortedMap<PrideHistogramBin, Integer> unHistogram;
-        SortedMap<PrideHistogramBin, Integer> targetHistogram;
-        SortedMap<PrideHistogramBin, Integer> decoyHistogram;
-
-        SortedMap<PrideHistogramBin, Integer> allHistogram = createEmptyHistogram();
-        if(dataTypeList.contains(PrideDataType.ALL_SPECTRA) || calcAllSpectra)
-            histMap.put(PrideDataType.ALL_SPECTRA, allHistogram);
-
-        for (PrideData d : values) {
-            for (PrideHistogramBin bin : bins) {
-                if (d.getData() >= bin.getStartBoundary() && d.getData() < bin.getEndBoundary()) {
-                    if (d.getType() == PrideDataType.IDENTIFIED_SPECTRA) {
-                        idHistogram = histMap.get(PrideDataType.IDENTIFIED_SPECTRA);
-                        if (idHistogram == null) {
-                            idHistogram = createEmptyHistogram();
-                            histMap.put(PrideDataType.IDENTIFIED_SPECTRA, idHistogram);
-                        }
-                        idHistogram.put(bin, idHistogram.get(bin) + 1);
-                    } else if (d.getType() == PrideDataType.UNIDENTIFIED_SPECTRA) {
-                        unHistogram = histMap.get(PrideDataType.UNIDENTIFIED_SPECTRA);
-                        if (unHistogram == null) {
-                            unHistogram = createEmptyHistogram();
-                            histMap.put(PrideDataType.UNIDENTIFIED_SPECTRA, unHistogram);
-                        }
-                        unHistogram.put(bin, unHistogram.get(bin) + 1);
-                    } else if (d.getType() == PrideDataType.IDENTIFIED_TARGET) {
-                        targetHistogram = histMap.get(PrideDataType.IDENTIFIED_TARGET);
-                        if (targetHistogram == null) {
-                            targetHistogram = createEmptyHistogram();
-                            histMap.put(PrideDataType.IDENTIFIED_TARGET, targetHistogram);
-                        }
-                        targetHistogram.put(bin, targetHistogram.get(bin) + 1);
-                    }else if (d.getType() == PrideDataType.IDENTIFIED_DECOY) {
-                        decoyHistogram = histMap.get(PrideDataType.IDENTIFIED_DECOY);
-                        if (decoyHistogram == null) {
-                            decoyHistogram = createEmptyHistogram();
-                            histMap.put(PrideDataType.IDENTIFIED_DECOY, decoyHistogram);
-                        }
-                        decoyHistogram.put(bin, decoyHistogram.get(bin) + 1);
-
-                    }else if (d.getType() == PrideDataType.ALL_SPECTRA) {
-                        allHistogram.put(bin, allHistogram.get(bin) + 1);
-                    }
-
-                    if (calcAllSpectra) {
-                        allHistogram.put(bin, allHistogram.get(bin) + 1);
-                    }
-
-                    break;
-                }
+        PrideHistogramBin[] binArray = getBinArray();
+        SortedMap<PrideHistogramBin, Integer> histogram;
+        for (Map.Entry<PrideDataType, int[]> entry : getCountMap().entrySet()) {
+            histogram = new TreeMap<PrideHistogramBin, Integer>();
+            int[] counts = entry.getValue();
+            for (int i = 0; i < binArray.length; i++) {
+                histogram.put(binArray[i], counts[i]);
             }
+            histMap.put(entry.getKey(), histogram);
         }
 
         return histMap;
@@ -217,34 +475,146 @@ public class PrideHistogramDataSource implements PrideDataSource {
 //            }
 //        }
 
-        for(String category: categoryTypes){
-            for (PrideData d : values) {
-                int i = 0;
-                for (PrideHistogramBin bin : bins) {
-                    if (d.getData() >= bin.getStartBoundary() && d.getData() < bin.getEndBoundary()
-                            || (i == 0 && d.getData() < bin.getStartBoundary())
-                            || (i == bins.size()-1 && d.getData() >= bin.getEndBoundary())
-                            ) {
-                        if (d.getCategory().equalsIgnoreCase(category)) {
-                            SortedMap<PrideHistogramBin, Integer> histogram = categortyHistMap.get(category);
-                            if (histogram == null) {
-                                histogram = createEmptyHistogram();
-                                categortyHistMap.put(category, histogram);
-                            }
-                            histogram.put(bin, histogram.get(bin) + 1);
-                        }
+        // category id --> counts of the categories which equal ignore case with it, mostly only one.
+        List<String> categoryList = columns.getCategoryList();
+        int[][][] idCounts = new int[categoryList.size()][][];
+        Map<String, int[]> categoryCounts = new HashMap<String, int[]>();
+        for (int id = 0; id < idCounts.length; id++) {
+            List<int[]> countsList = new ArrayList<int[]>();
+            for (String category : categoryTypes) {
+                if (category != null && categoryList.get(id).equalsIgnoreCase(category)) {
+                    int[] counts = categoryCounts.get(category);
+                    if (counts == null) {
+                        counts = new int[getBinCount()];
+                        categoryCounts.put(category, counts);
                     }
-                    i++;
+                    countsList.add(counts);
                 }
             }
+            idCounts[id] = countsList.toArray(new int[countsList.size()][]);
         }
 
+        // the values out of bins are counted in the first or last bin.
+        boolean[] hit = new boolean[idCounts.length];
+        for (int i = 0; i < columns.size(); i++) {
+            int id = columns.getCategoryId(i);
+            if (id == PrideDataColumns.NO_CATEGORY || idCounts[id].length == 0) {
+                continue;
+            }
+            int index = getBinIndex(columns.getValue(i), PrideHistogramRangePolicy.CLAMP);
+            if (index >= 0) {
+                for (int[] counts : idCounts[id]) {
+                    counts[index]++;
+                }
+                hit[id] = true;
+            }
+        }
 
+        // only the categories which have value in bins have histogram.
+        PrideHistogramBin[] binArray = getBinArray();
+        for (int id = 0; id < idCounts.length; id++) {
+            if (! hit[id]) {
+                continue;
+            }
+            for (String category : categoryTypes) {
+                if (category != null && ! categortyHistMap.containsKey(category) && categoryList.get(id).equalsIgnoreCase(category)) {
+                    int[] counts = categoryCounts.get(category);
+                    SortedMap<PrideHistogramBin, Integer> histogram = new TreeMap<PrideHistogramBin, Integer>();
+                    for (int k = 0; k < binArray.length; k++) {
+                        histogram.put(binArray[k], counts[k]);
+                    }
+                    categortyHistMap.put(category, histogram);
+                }
+            }
+        }
 
             return categortyHistMap;
     }
 
+    /**
+     * Add the counts of other data source into current one, e.g. to reduce the histograms of several
+     * files into one without reading the files again. When the bin layouts are same, the counts are added
+     * bin by bin; otherwise the count of every bin of other data source is re-binned into the bin of current
+     * layout which its start boundary falls in, based on current range policy.
+     *
+     * After merging, current data source keeps the merged counts only: {@link #getValues()} is empty, the
+     * category histogram is not merged, and the counts follow the bin changes by the bin start boundaries.
+     */
+    public void merge(PrideHistogramDataSource other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Can not merge data source with itself.");
+        }
+
+        PrideHistogramBin[] currentBins = getBinArray();
+        Map<PrideDataType, int[]> currentCounts = getCountMap();
+        PrideHistogramBin[] otherBins = other.getBinArray();
+        Map<PrideDataType, int[]> otherCounts = other.getCountMap();
+
+        mergeBins(other);
+        if (bins.isEmpty()) {
+            throw new IllegalArgumentException("Histogram bins is empty.");
+        }
+
+        PrideHistogramAccumulator merged = new PrideHistogramAccumulator(bins, false);
+        addCounts(merged, currentBins, currentCounts);
+        addCounts(merged, otherBins, otherCounts);
+
+        this.accumulator = merged;
+        this.columns = new PrideDataColumns(0);
+        this.values = null;
+        dataTypeList.addAll(other.dataTypeList);
+        resetHistogram();
+    }
+
+    /**
+     * Decide the bin layout of merged data source. Current layout is kept, or the layout of other
+     * data source is used if current data source has no bin.
+     */
+    protected void mergeBins(PrideHistogramDataSource other) {
+        if (bins.isEmpty()) {
+            for (PrideHistogramBin bin : other.bins) {
+                appendBin(new PrideHistogramBin(bin.getStartBoundary(), bin.getEndBoundary()));
+            }
+        }
+    }
+
+    private void addCounts(PrideHistogramAccumulator merged, PrideHistogramBin[] fromBins, Map<PrideDataType, int[]> counts) {
+        PrideHistogramBin[] toBins = getBinArray();
+
+        boolean sameLayout = fromBins.length == toBins.length;
+        for (int i = 0; sameLayout && i < toBins.length; i++) {
+            sameLayout = fromBins[i].getStartBoundary() == toBins[i].getStartBoundary() &&
+                         fromBins[i].getEndBoundary() == toBins[i].getEndBoundary();
+        }
+
+        for (Map.Entry<PrideDataType, int[]> entry : counts.entrySet()) {
+            int[] fromCounts = entry.getValue();
+            int[] toCounts = fromCounts;
+            if (! sameLayout) {
+                toCounts = new int[toBins.length];
+                int index;
+                for (int i = 0; i < fromCounts.length; i++) {
+                    index = getBinIndex(fromBins[i].getStartBoundary());
+                    if (index >= 0) {
+                        toCounts[index] += fromCounts[i];
+                    }
+                }
+            }
+            merged.addCounts(entry.getKey(), toCounts);
+        }
+    }
+
+    public PrideDataColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Compatibility view of {@link #getColumns()}, the PrideData array is created by the first call.
+     */
     public PrideData[] getValues() {
+        if (values == null) {
+            values = columns.toArray();
+        }
         return values;
     }
 
@@ -0,0 +1,13 @@
+package uk.ac.ebi.pride.toolsuite.chart.dataset;
+
+/**
+ * How a histogram treats the values which are lower than the first bin (underflow), or not lower
+ * than the end of last bin (overflow). The values which fall in a gap between two bins are always dropped.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public enum PrideHistogramRangePolicy {
+    DROP,       // underflow and overflow values are not counted.
+    CLAMP       // underflow values are counted in the first bin, and overflow values in the last bin.
+}
@@ -8,27 +8,43 @@ import java.util.*;
  */
 public class PrideXYDataSource implements PrideDataSource {
 
+    private double[] domainValues;
+    private PrideDataColumns rangeColumns;
+    private PrideDataType dataType;   // data source data type.
+
+    // compatibility views of domainValues and rangeColumns, created by the first call of getter.
     private Double[] domainData;
     private PrideData[] rangeData;
-    private PrideDataType dataType;   // data source data type.
 
     private Set<PrideDataType> dataTypeList = new HashSet<PrideDataType>();   // list all data type which stored in current data source.
 
     public PrideXYDataSource(Double[] domainData, PrideData[] rangeData, PrideDataType dataType) {
-        if (domainData.length != rangeData.length) {
+        this(toPrimitive(domainData), new PrideDataColumns(rangeData), dataType);
+    }
+
+    public PrideXYDataSource(double[] domainValues, PrideDataColumns rangeColumns, PrideDataType dataType) {
+        if (domainValues.length != rangeColumns.size()) {
             throw new IllegalArgumentException("Input data not correct!");
         }
 
-        for (PrideData value : rangeData) {
-            if (! value.getType().compatible(dataType)) {
-                throw new IllegalArgumentException("There exists incompatible value " + value + " in range array!");
+        for (int i = 0; i < rangeColumns.size(); i++) {
+            if (! rangeColumns.getType(i).compatible(dataType)) {
+                throw new IllegalArgumentException("There exists incompatible value " + rangeColumns.get(i) + " in range array!");
             }
         }
 
         this.dataType = dataType;
         dataTypeList.add(dataType);
-        this.domainData = domainData;
-        this.rangeData = rangeData;
+        this.domainValues = domainValues;
+        this.rangeColumns = rangeColumns;
+    }
+
+    private static double[] toPrimitive(Double[] data) {
+        double[] values = new double[data.length];
+        for (int i = 0; i < data.length; i++) {
+            values[i] = data[i] == null ? Double.NaN : data[i];
+        }
+        return values;
     }
 
     /**
@@ -38,11 +54,45 @@ public class PrideXYDataSource implements PrideDataSource {
         return dataTypeList;
     }
 
+    /**
+     * @return the number of (x, y) items.
+     */
+    public int getSize() {
+        return domainValues.length;
+    }
+
+    public double getDomainValue(int index) {
+        return domainValues[index];
+    }
+
+    public double getRangeValue(int index) {
+        return rangeColumns.getValue(index);
+    }
+
+    public PrideDataColumns getRangeColumns() {
+        return rangeColumns;
+    }
+
+    /**
+     * Compatibility view of domain values, the array is created by the first call.
+     */
     public Double[] getDomainData() {
+        if (domainData == null) {
+            domainData = new Double[domainValues.length];
+            for (int i = 0; i < domainValues.length; i++) {
+                domainData[i] = domainValues[i];
+            }
+        }
         return domainData;
     }
 
+    /**
+     * Compatibility view of {@link #getRangeColumns()}, the array is created by the first call.
+     */
     public PrideData[] getRangeData() {
+        if (rangeData == null) {
+            rangeData = rangeColumns.toArray();
+        }
         return rangeData;
     }
 
@@ -50,71 +100,287 @@ public class PrideXYDataSource implements PrideDataSource {
         return dataType;
     }
 
+    /**
+     * Merge two data sources into a new one. The items which have the same x value, data type and category
+     * are combined into one item, whose y value is weight * y + otherWeight * other y; the item which only
+     * exists in one data source is weighted alone. If a data source has several such items, they are
+     * combined by their occurrence order. The items of current data source keep their order, and
+     * the items only in other data source are appended.
+     *
+     * Using weight 1 for both data sources sums the counts; using the weights which sum to 1 gives the
+     * weighted average of the frequencies.
+     */
+    public PrideXYDataSource merge(PrideXYDataSource other, double weight, double otherWeight) {
+        // x value + data type + category + occurrence --> the position of merged item.
+        Map<String, Integer> itemMap = new HashMap<String, Integer>();
+        Map<String, Integer> occurrenceMap = new HashMap<String, Integer>();
+        double[] mergeDomainValues = new double[getSize() + other.getSize()];
+        PrideDataColumns mergeRangeColumns = new PrideDataColumns(mergeDomainValues.length);
+        double[] mergeRangeValues = new double[mergeDomainValues.length];
+
+        PrideXYDataSource[] dataSources = new PrideXYDataSource[] {this, other};
+        double[] weights = new double[] {weight, otherWeight};
+        PrideDataColumns columns;
+        String key;
+        Integer position;
+        Integer occurrence;
+        for (int k = 0; k < dataSources.length; k++) {
+            columns = dataSources[k].rangeColumns;
+            occurrenceMap.clear();
+            for (int i = 0; i < dataSources[k].getSize(); i++) {
+                key = dataSources[k].domainValues[i] + "|" + columns.getType(i) + "|" + columns.getCategory(i);
+                occurrence = occurrenceMap.get(key);
+                occurrence = occurrence == null ? 0 : occurrence + 1;
+                occurrenceMap.put(key, occurrence);
+                key = key + "|" + occurrence;
+
+                position = itemMap.get(key);
+                if (position == null) {
+                    position = itemMap.size();
+                    itemMap.put(key, position);
+                    mergeDomainValues[position] = dataSources[k].domainValues[i];
+                    mergeRangeColumns.add(0, columns.getType(i), columns.getCategory(i));
+                }
+                mergeRangeValues[position] += weights[k] * columns.getValue(i);
+            }
+        }
+
+        int size = itemMap.size();
+        PrideDataColumns rangeColumns = new PrideDataColumns(size);
+        for (int i = 0; i < size; i++) {
+            rangeColumns.add(mergeRangeValues[i], mergeRangeColumns.getType(i), mergeRangeColumns.getCategory(i));
+        }
+
+        PrideXYDataSource dataSource = new PrideXYDataSource(Arrays.copyOf(mergeDomainValues, size), rangeColumns, dataType);
+        dataSource.dataTypeList.addAll(dataTypeList);
+        dataSource.dataTypeList.addAll(other.dataTypeList);
+        return dataSource;
+    }
+
+    /**
+     * Merge two data sources whose x values are the start boundaries of equal width bins, e.g. DELTA_MASS
+     * and PRECURSOR_MASSES, whose bins are decided by the data range of every file. Both data sources are
+     * re-binned onto a common layout: the bin width is the wider one, and the bins are aligned to the data
+     * source which has the wider bins. The y value of a bin is split into the common bins by the overlapped
+     * width, so the sum of y values is kept. Every data type and category is a series, which covers the
+     * common bins from its first to its last one; if a data source has several such series, e.g. a
+     * data type normalized in two ways, they are combined by their occurrence order. The series keep
+     * their order, and the series only in other data source are appended.
+     *
+     * If both data sources have the same layout, the result is the same as {@link #merge}. If a data source
+     * has only one bin, it is assumed to have the bin width of other one.
+     */
+    public PrideXYDataSource mergeBins(PrideXYDataSource other, double weight, double otherWeight) {
+        if (getSize() == 0 || other.getSize() == 0) {
+            return merge(other, weight, otherWeight);
+        }
+
+        double binWidth = getBinWidth();
+        double otherBinWidth = other.getBinWidth();
+        if (Double.isNaN(binWidth)) {
+            binWidth = otherBinWidth;
+        } else if (Double.isNaN(otherBinWidth)) {
+            otherBinWidth = binWidth;
+        }
+        if (Double.isNaN(binWidth)) {
+            // both data sources have only one bin.
+            return merge(other, weight, otherWeight);
+        }
+
+        PrideXYDataSource[] dataSources = new PrideXYDataSource[] {this, other};
+        double[] weights = new double[] {weight, otherWeight};
+        double[] binWidths = new double[] {binWidth, otherBinWidth};
+        double width = Math.max(binWidth, otherBinWidth);
+
+        // the first bin of common layout is aligned to the data source which has the wider bins.
+        double wideStart = binWidth >= otherBinWidth ? getMinDomainValue() : other.getMinDomainValue();
+        double start = Math.min(getMinDomainValue(), other.getMinDomainValue());
+        start = wideStart - Math.ceil(snap((wideStart - start) / width)) * width;
+
+        // data type + category + occurrence --> series.
+        Map<String, BinSeries> seriesMap = new LinkedHashMap<String, BinSeries>();
+        // data type + category --> occurrence and last x value, a series restarts if x is not increased.
+        Map<String, Integer> occurrenceMap = new HashMap<String, Integer>();
+        Map<String, Double> lastDomainMap = new HashMap<String, Double>();
+        // common bin --> x value of the data source bin which is the same as it, the original x value is kept.
+        Map<Integer, Double> domainMap = new HashMap<Integer, Double>();
+        PrideDataColumns columns;
+        String key;
+        Integer occurrence;
+        Double lastDomainValue;
+        BinSeries series;
+        double x;
+        double from;
+        double to;
+        double overlap;
+        for (int k = 0; k < dataSources.length; k++) {
+            columns = dataSources[k].rangeColumns;
+            occurrenceMap.clear();
+            lastDomainMap.clear();
+            for (int i = 0; i < dataSources[k].getSize(); i++) {
+                x = dataSources[k].domainValues[i];
+                if (Double.isNaN(x)) {
+                    continue;
+                }
+
+                key = columns.getType(i) + "|" + columns.getCategory(i);
+                occurrence = occurrenceMap.get(key);
+                lastDomainValue = lastDomainMap.put(key, x);
+                if (occurrence == null) {
+                    occurrence = 0;
+                } else if (x <= lastDomainValue) {
+                    occurrence++;
+                }
+                occurrenceMap.put(key, occurrence);
+                key = key + "|" + occurrence;
+
+                series = seriesMap.get(key);
+                if (series == null) {
+                    series = new BinSeries(columns.getType(i), columns.getCategory(i));
+                    seriesMap.put(key, series);
+                }
+
+                // the bin in units of common bin width.
+                from = snap((x - start) / width);
+                to = snap((x + binWidths[k] - start) / width);
+                if (from == Math.rint(from) && to - from == 1 && ! domainMap.containsKey((int) from)) {
+                    domainMap.put((int) from, x);
+                }
+                for (int j = (int) Math.floor(from); j < to; j++) {
+                    overlap = (Math.min(to, j + 1) - Math.max(from, j)) / (to - from);
+                    series.add(j, weights[k] * columns.getValue(i) * overlap);
+                }
+            }
+        }
+
+        int size = 0;
+        for (BinSeries s : seriesMap.values()) {
+            size += s.rangeMap.lastKey() - s.rangeMap.firstKey() + 1;
+        }
+
+        double[] mergeDomainValues = new double[size];
+        PrideDataColumns mergeRangeColumns = new PrideDataColumns(size);
+        int n = 0;
+        Double value;
+        for (BinSeries s : seriesMap.values()) {
+            for (int j = s.rangeMap.firstKey(); j <= s.rangeMap.lastKey(); j++) {
+                value = domainMap.get(j);
+                mergeDomainValues[n++] = value == null ? start + j * width : value;
+                value = s.rangeMap.get(j);
+                mergeRangeColumns.add(value == null ? 0 : value, s.type, s.category);
+            }
+        }
+
+        PrideXYDataSource dataSource = new PrideXYDataSource(mergeDomainValues, mergeRangeColumns, dataType);
+        dataSource.dataTypeList.addAll(dataTypeList);
+        dataSource.dataTypeList.addAll(other.dataTypeList);
+        return dataSource;
+    }
+
+    /**
+     * The items of one data type and category, which are re-binned by {@link #mergeBins}.
+     */
+    private static class BinSeries {
+        PrideDataType type;
+        String category;
+        // common bin --> y value.
+        SortedMap<Integer, Double> rangeMap = new TreeMap<Integer, Double>();
+
+        private BinSeries(PrideDataType type, String category) {
+            this.type = type;
+            this.category = category;
+        }
+
+        private void add(int bin, double value) {
+            Double sum = rangeMap.get(bin);
+            rangeMap.put(bin, sum == null ? value : sum + value);
+        }
+    }
+
+    /**
+     * Round the position in units of bin width to the nearest bin boundary, if the difference is only
+     * caused by the accumulated rounding of bin boundaries.
+     */
+    private static double snap(double position) {
+        double boundary = Math.rint(position);
+        return Math.abs(position - boundary) < 1e-6 ? boundary : position;
+    }
+
+    /**
+     * @return the smallest distance between two x values, or NaN if there are less than two x values.
+     */
+    private double getBinWidth() {
+        double[] values = domainValues.clone();
+        Arrays.sort(values);
+
+        double binWidth = Double.NaN;
+        double distance;
+        for (int i = 1; i < values.length; i++) {
+            distance = values[i] - values[i - 1];
+            if (distance > 0 && (Double.isNaN(binWidth) || distance < binWidth)) {
+                binWidth = distance;
+            }
+        }
+        return binWidth;
+    }
+
+    private double getMinDomainValue() {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : domainValues) {
+            if (value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
     public PrideXYDataSource filter(PrideDataType type) {
         if (! this.dataType.compatible(type)) {
             // current data source type not compatible with filter type. return empty.
             return null;
         }
 
-        List<Double> filterDomainData = new ArrayList<Double>();
-        List<PrideData> filterRangeData = new ArrayList<PrideData>();
+        return filter(type, PrideDataColumns.NO_CATEGORY, type);
+    }
 
-        PrideData data;
-        for (int i = 0; i < rangeData.length; i++) {
-            data = rangeData[i];
-            if (data.getType().equals(type)) {
-                filterDomainData.add(domainData[i]);
-                filterRangeData.add(rangeData[i]);
+    /**
+     * Copy the items which have the type, or the category id if type is null.
+     */
+    private PrideXYDataSource filter(PrideDataType type, int categoryId, PrideDataType filterType) {
+        int size = 0;
+        for (int i = 0; i < domainValues.length; i++) {
+            if (type != null ? rangeColumns.getType(i) == type : rangeColumns.getCategoryId(i) == categoryId) {
+                size++;
             }
         }
 
-        int size = filterDomainData.size();
         if (size == 0) {
             return null;
-        } else {
-            return new PrideXYDataSource(
-                    filterDomainData.toArray(new Double[size]),
-                    filterRangeData.toArray(new PrideData[size]),
-                    type
-            );
         }
-    }
-
-    public PrideXYDataSource filterCategory(String type) {
 
-        List<Double> filterDomainData = new ArrayList<Double>();
-        List<PrideData> filterRangeData = new ArrayList<PrideData>();
-
-        PrideData data;
-        for (int i = 0; i < rangeData.length; i++) {
-            data = rangeData[i];
-            if (data.getCategory().equals(type)) {
-                filterDomainData.add(domainData[i]);
-                filterRangeData.add(rangeData[i]);
+        double[] filterDomainValues = new double[size];
+        PrideDataColumns filterRangeColumns = new PrideDataColumns(size);
+        int j = 0;
+        for (int i = 0; i < domainValues.length; i++) {
+            if (type != null ? rangeColumns.getType(i) == type : rangeColumns.getCategoryId(i) == categoryId) {
+                filterDomainValues[j++] = domainValues[i];
+                filterRangeColumns.add(rangeColumns.getValue(i), rangeColumns.getType(i), rangeColumns.getCategory(i));
             }
         }
 
-        int size = filterDomainData.size();
-        if (size == 0) {
+        return new PrideXYDataSource(filterDomainValues, filterRangeColumns, filterType);
+    }
+
+    public PrideXYDataSource filterCategory(String type) {
+        int categoryId = rangeColumns.getCategoryList().indexOf(type);
+        if (categoryId == -1) {
             return null;
-        } else {
-            return new PrideXYDataSource(
-                    filterDomainData.toArray(new Double[size]),
-                    filterRangeData.toArray(new PrideData[size]),
-                    PrideDataType.IDENTIFIED_SPECTRA
-            );
         }
+
+        return filter(null, categoryId, PrideDataType.IDENTIFIED_SPECTRA);
     }
 
     public Collection<String> getCategoryDataType() {
-        Set<String> categories = new HashSet<String>();
-        for(PrideData data: rangeData){
-            String category = data.getCategory();
-            if(category!=null && !categories.contains(category)){
-                categories.add(data.getCategory());
-
-            }
-        }
-        return categories;
+        return new HashSet<String>(rangeColumns.getCategoryList());
     }
 }
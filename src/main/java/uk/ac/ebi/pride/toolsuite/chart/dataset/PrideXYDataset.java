@@ -0,0 +1,199 @@
+package uk.ac.ebi.pride.toolsuite.chart.dataset;
+
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.jfree.data.xy.IntervalXYDelegate;
+
+import java.util.*;
+
+/**
+ * Read-only {@link org.jfree.data.xy.IntervalXYDataset} over the arrays of a {@link PrideXYDataSource},
+ * no point is copied. Every series is a range of the data source indexes which have the same data type,
+ * or the same category. The items of series are ordered by x value, as {@link org.jfree.data.xy.XYSeries}
+ * does; only when the data source is not ordered, an index array is created for the series.
+ *
+ * The interval of items are the same as {@link org.jfree.data.xy.XYSeriesCollection}, which is a fixed
+ * width 1.0 around the x value.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideXYDataset extends AbstractIntervalXYDataset {
+
+    private PrideXYDataSource dataSource;
+    private PrideDataColumns rangeColumns;
+
+    private List<Series> seriesList = new ArrayList<Series>();
+
+    private IntervalXYDelegate intervalDelegate = new IntervalXYDelegate(this, false);
+
+    /**
+     * Item i of series is the data source index from + i, or index[i] if index exists.
+     */
+    private static class Series {
+        Comparable key;
+        int from;
+        int to;
+        int[] index;
+
+        private Series(Comparable key, int from, int to, int[] index) {
+            this.key = key;
+            this.from = from;
+            this.to = to;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Create a series for the data source type, and a series for every child type which has values.
+     */
+    public PrideXYDataset(PrideXYDataSource dataSource) {
+        this(dataSource.getRangeColumns(), dataSource);
+
+        PrideDataType dataType = dataSource.getDataType();
+        addSeries(dataType.getTitle(), dataType, null, true);
+        for (PrideDataType subType : dataType.getChildren()) {
+            addSeries(subType.getTitle(), subType, null, false);
+        }
+    }
+
+    /**
+     * Create a series for every category which has values.
+     */
+    public PrideXYDataset(PrideXYDataSource dataSource, Collection<String> categories) {
+        this(dataSource.getRangeColumns(), dataSource);
+
+        for (String category : categories) {
+            addSeries(category, null, category, false);
+        }
+    }
+
+    private PrideXYDataset(PrideDataColumns rangeColumns, PrideXYDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.rangeColumns = rangeColumns;
+    }
+
+    private boolean match(int i, PrideDataType type, int categoryId) {
+        return type != null ? rangeColumns.getType(i) == type : rangeColumns.getCategoryId(i) == categoryId;
+    }
+
+    private void addSeries(Comparable key, PrideDataType type, String category, boolean keepEmpty) {
+        int categoryId = category == null ? PrideDataColumns.NO_CATEGORY : rangeColumns.getCategoryList().indexOf(category);
+        if (type == null && categoryId == -1) {
+            return;
+        }
+
+        int count = 0;
+        int first = -1;
+        int last = -1;
+        boolean sorted = true;
+        double x = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < rangeColumns.size(); i++) {
+            if (match(i, type, categoryId)) {
+                if (first == -1) {
+                    first = i;
+                }
+                last = i;
+                count++;
+                if (dataSource.getDomainValue(i) < x) {
+                    sorted = false;
+                }
+                x = dataSource.getDomainValue(i);
+            }
+        }
+
+        if (count == 0 && ! keepEmpty) {
+            return;
+        }
+
+        int[] index = null;
+        if (count > 0 && (count != last - first + 1 || ! sorted)) {
+            index = new int[count];
+            int j = 0;
+            for (int i = first; i <= last; i++) {
+                if (match(i, type, categoryId)) {
+                    index[j++] = i;
+                }
+            }
+            if (! sorted) {
+                index = sortByDomain(index);
+            }
+        }
+
+        seriesList.add(new Series(key, count == 0 ? 0 : first, count == 0 ? 0 : last + 1, index));
+    }
+
+    /**
+     * Stable sort by x value, equal x values keep the insert order like XYSeries.
+     */
+    private int[] sortByDomain(int[] index) {
+        Integer[] sortIndex = new Integer[index.length];
+        for (int i = 0; i < index.length; i++) {
+            sortIndex[i] = index[i];
+        }
+        Arrays.sort(sortIndex, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                double x1 = dataSource.getDomainValue(o1);
+                double x2 = dataSource.getDomainValue(o2);
+                return x1 < x2 ? -1 : (x1 > x2 ? 1 : 0);
+            }
+        });
+
+        int[] result = new int[index.length];
+        for (int i = 0; i < index.length; i++) {
+            result[i] = sortIndex[i];
+        }
+        return result;
+    }
+
+    private int getDataIndex(int series, int item) {
+        Series s = seriesList.get(series);
+        return s.index == null ? s.from + item : s.index[item];
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return seriesList.size();
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return seriesList.get(series).key;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        Series s = seriesList.get(series);
+        return s.index == null ? s.to - s.from : s.index.length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return dataSource.getDomainValue(getDataIndex(series, item));
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return rangeColumns.getValue(getDataIndex(series, item));
+    }
+
+    @Override
+    public Number getStartX(int series, int item) {
+        return intervalDelegate.getStartX(series, item);
+    }
+
+    @Override
+    public Number getEndX(int series, int item) {
+        return intervalDelegate.getEndX(series, item);
+    }
+
+    @Override
+    public Number getStartY(int series, int item) {
+        return getY(series, item);
+    }
+
+    @Override
+    public Number getEndY(int series, int item) {
+        return getY(series, item);
+    }
+}
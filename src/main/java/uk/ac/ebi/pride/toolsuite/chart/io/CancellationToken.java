@@ -0,0 +1,23 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+/**
+ * Cancel a running {@link PrideDataReader#readData()} from another thread, e.g. when the user switches
+ * to another file. The reader checks the token between the batches of proteins and spectra, so the
+ * reading stops at the end of current batch.
+ *
+ * A token can be shared by several readers, and can not be reset after cancellation.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
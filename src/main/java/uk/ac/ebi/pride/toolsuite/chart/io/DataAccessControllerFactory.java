@@ -0,0 +1,15 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.utilities.data.controller.DataAccessController;
+
+/**
+ * Create a new controller over the same input on every call, e.g. open the same file again. The
+ * controllers are used by different threads, every controller by one thread only.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public interface DataAccessControllerFactory {
+
+    DataAccessController createController();
+}
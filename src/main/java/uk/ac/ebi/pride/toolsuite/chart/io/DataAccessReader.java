@@ -10,10 +10,11 @@ import uk.ac.ebi.pride.utilities.data.controller.DataAccessController;
 import uk.ac.ebi.pride.utilities.data.controller.DataAccessUtilities;
 import uk.ac.ebi.pride.utilities.data.core.*;
 import uk.ac.ebi.pride.utilities.data.filter.AccessionFilter;
-import uk.ac.ebi.pride.utilities.mol.MoleculeUtilities;
-import uk.ac.ebi.pride.utilities.util.Tuple;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 
 /**
@@ -31,15 +32,42 @@ public class DataAccessReader extends PrideDataReader {
     private static final double DELTA_MIN_BIN_WIDTH = 0.0005;
     private static final double PRE_MIN_BIN_WIDTH = 100;
     private static final double QUANT_MIN_BIN_WITH = 0.1;
+    // number of proteins projected under one lock of the controller.
+    private static final int PROTEIN_BATCH_SIZE = 32;
 
     private String source = "DataAccessController";
     private DataAccessController controller;
     private AccessionFilter<String> filter;
+    private DataAccessReaderOptions options;
+    private PsmProjection psmProjection;
+    // spectrum ids and their identification status, null without spectrum charts.
+    private SpectrumStatusIndex spectrumStatusIndex;
+
+    // progress of the traversals, updated by the traversal threads.
+    private final AtomicInteger processedProteins = new AtomicInteger();
+    private final AtomicInteger processedSpectra = new AtomicInteger();
+
+    // missed cleavages and theoretical mass caches of peptides, null before the protein traversal.
+    private PeptideCache peptideCache;
 
     private boolean noPeptide = true;
     private boolean noSpectra = true;
     private boolean noTandemSpectra = true;
 
+    // protein traversal switches, decided by the selected charts before the traversal.
+    private boolean hasDecoyInformation;
+    private boolean calcDelta;
+    private boolean calcMissed;
+    private boolean calcSpectrumStatus;
+    private boolean calcQuantitation;
+
+    // spectrum traversal switches.
+    private boolean calcPreMasses;
+    private boolean calcAvg;
+    private boolean calcPeaksMS;
+    private boolean calcPeakIntensity;
+    private boolean tandemCharts;
+
     private List<Double> deltaDomain = new ArrayList<Double>();
     private List<PrideData> deltaRange = new ArrayList<PrideData>();
 
@@ -66,13 +94,107 @@ public class DataAccessReader extends PrideDataReader {
     }
 
     public DataAccessReader(DataAccessController controller, AccessionFilter<String> filter) throws PrideDataException {
+        this(controller, filter, new DataAccessReaderOptions());
+    }
+
+    public DataAccessReader(DataAccessController controller, AccessionFilter<String> filter, DataAccessReaderOptions options) throws PrideDataException {
+        this(controller, filter, options, null);
+    }
+
+    private DataAccessReader(DataAccessController controller, AccessionFilter<String> filter, DataAccessReaderOptions options,
+                             PrideChartListener chartListener) throws PrideDataException {
         if (controller == null) {
             throw new NullPointerException(source + " is null!");
         }
+        if (options == null) {
+            throw new NullPointerException("Reader options is null!");
+        }
         this.controller = controller;
         this.filter = filter;
+        this.options = options;
+        setListener(options.getListener());
+        setCancellationToken(options.getCancellationToken());
+        setChartListener(chartListener);
+
+        try {
+            readData();
+        } catch (CancellationException e) {
+            throw new PrideDataException(PrideDataException.READING_CANCELLED, e);
+        }
+    }
+
+    /**
+     * Read the experiment on the executor, the calling thread is not blocked. The future completes
+     * exceptionally with {@link PrideDataException} if the reading fails or is cancelled.
+     */
+    public static CompletableFuture<DataAccessReader> readAsync(DataAccessController controller, AccessionFilter<String> filter,
+                                                                DataAccessReaderOptions options, Executor executor) {
+        return supplyAsync(controller, filter, options, null, executor);
+    }
+
+    /**
+     * Read the experiment on the executor, and complete the future of every selected chart as soon as it is
+     * finished. The charts of protein pass (PEPTIDES_PROTEIN, DELTA_MASS, MISSED_CLEAVAGES and
+     * QUANTITATION_PEPTIDES) complete before the spectrum pass starts. The futures are completed on the
+     * reading thread.
+     */
+    public static PrideChartFutures readChartsAsync(DataAccessController controller, AccessionFilter<String> filter,
+                                                    DataAccessReaderOptions options, Executor executor) {
+        if (options == null) {
+            throw new NullPointerException("Reader options is null!");
+        }
+
+        PrideChartFutures futures = new PrideChartFutures(options.getChartTypes());
+        futures.setReader(supplyAsync(controller, filter, options, futures, executor));
+        return futures;
+    }
+
+    private static CompletableFuture<DataAccessReader> supplyAsync(final DataAccessController controller,
+                                                                   final AccessionFilter<String> filter,
+                                                                   final DataAccessReaderOptions options,
+                                                                   final PrideChartListener chartListener,
+                                                                   Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("Executor is null!");
+        }
+
+        return CompletableFuture.supplyAsync(new Supplier<DataAccessReader>() {
+            @Override
+            public DataAccessReader get() {
+                try {
+                    return new DataAccessReader(controller, filter, options, chartListener);
+                } catch (PrideDataException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * @return hits of the missed cleavages cache, 0 if the cache is disabled or the proteins are not read.
+     */
+    public long getMissedCleavagesCacheHitCount() {
+        return peptideCache == null ? 0 : peptideCache.getMissedCleavagesHitCount();
+    }
+
+    public long getMissedCleavagesCacheMissCount() {
+        return peptideCache == null ? 0 : peptideCache.getMissedCleavagesMissCount();
+    }
+
+    /**
+     * @return hits of the theoretical mass cache used by delta m/z, 0 if the cache is disabled or the
+     * proteins are not read.
+     */
+    public long getTheoreticalMassCacheHitCount() {
+        return peptideCache == null ? 0 : peptideCache.getMassHitCount();
+    }
+
+    public long getTheoreticalMassCacheMissCount() {
+        return peptideCache == null ? 0 : peptideCache.getMassMissCount();
+    }
 
-        readData();
+    private boolean isSelected(PrideChartType type) {
+        return options.isChartSelected(type);
     }
 
     @Override
@@ -82,17 +204,33 @@ public class DataAccessReader extends PrideDataReader {
 
     @Override
     protected void reading() {
-        boolean hasDecoyInformation = controller.hasDecoyInformation();
+        hasDecoyInformation = controller.hasDecoyInformation();
+
+        // the traversals and accumulators which needed by the selected charts.
+        calcPreMasses = isSelected(PrideChartType.PRECURSOR_MASSES);
+        calcAvg = isSelected(PrideChartType.AVERAGE_MS);
+        calcPeaksMS = isSelected(PrideChartType.PEAKS_MS);
+        calcPeakIntensity = isSelected(PrideChartType.PEAK_INTENSITY);
+        tandemCharts = calcAvg || calcPeaksMS || calcPeakIntensity;
+        boolean spectrumCharts = tandemCharts || calcPreMasses || isSelected(PrideChartType.PRECURSOR_CHARGE);
+
+        calcDelta = isSelected(PrideChartType.DELTA_MASS);
+        calcMissed = isSelected(PrideChartType.MISSED_CLEAVAGES);
+        calcQuantitation = isSelected(PrideChartType.QUANTITATION_PEPTIDES) &&
+                controller.getType().equals(DataAccessController.Type.MZTAB) && controller.hasQuantData();
+        // identified spectra are decided by the peptides, only when decoy information exists. Every spectrum
+        // pass needs them, because the identified and unidentified spectra sizes are counted there.
+        calcSpectrumStatus = spectrumCharts && hasDecoyInformation && controller.hasSpectrum();
+        boolean proteinCharts = isSelected(PrideChartType.PEPTIDES_PROTEIN) || calcDelta || calcMissed || calcQuantitation;
 
         for (int i = 0; i < 6; i++) {
             peptidesDomain[i] = i + 1.0;
         }
 
         //If mzTab and contains Quantitation data
-        if(controller.getType().equals(DataAccessController.Type.MZTAB) && controller.hasQuantData()){
+        if(calcQuantitation){
             for(Comparable idStudyVariable: controller.getStudyVariables().keySet()){
                 variables.put(idStudyVariable, controller.getStudyVariables().get(idStudyVariable).getDescription());
-                variablesStudy.put(idStudyVariable, new ArrayList<Double>());
             }
         }
 
@@ -104,239 +242,461 @@ public class DataAccessReader extends PrideDataReader {
             preChargeDomain[i] = i + 1.0;
         }
 
-        int[] peptideBars = new int[6];
-        List<PrideData> missedBars = new ArrayList<PrideData>();
-        int[] preChargeBars = new int[8];
+        if (spectrumCharts) {
+            spectrumStatusIndex = new SpectrumStatusIndex(controller.getSpectrumIds(), calcSpectrumStatus);
+        }
 
-        List<PrideData> deltaMZList = new ArrayList<PrideData>();
-        List<PrideData> preMassedList = new ArrayList<PrideData>();
+        ProteinStatistics proteinStatistics;
+        if (proteinCharts || calcSpectrumStatus) {
+            proteinStatistics = readProteins();
+        } else {
+            proteinStatistics = new ProteinStatistics(variables.keySet(), options.isStreamingHistograms());
+        }
+        noPeptide = proteinStatistics.noPeptide;
+        peptideSize += proteinStatistics.peptideSize;
+        variablesStudy = proteinStatistics.variablesStudy;
+        // delta m/z chart only need to know whether exists spectra.
+        noSpectra = spectrumCharts ? spectrumStatusIndex.size() == 0 : controller.getSpectrumIds().isEmpty();
+
+        // the charts of protein pass are finished before the spectrum pass.
+        checkCancelled();
+        readProteinCharts(proteinStatistics);
+        fireChartsRead(PrideChartType.PEPTIDES_PROTEIN, PrideChartType.DELTA_MASS,
+                PrideChartType.MISSED_CLEAVAGES, PrideChartType.QUANTITATION_PEPTIDES);
+
+        SpectrumStatistics spectrumStatistics;
+        if (spectrumCharts) {
+            proteinStatistics.applySpectrumMarks(spectrumStatusIndex);
+            spectrumStatistics = readSpectra();
+            noSpectra = spectrumStatistics.noSpectra;
+        } else {
+            spectrumStatistics = createSpectrumStatistics();
+        }
+        noTandemSpectra = spectrumStatistics.noTandemSpectra;
+        identifiedSpectraSize += spectrumStatistics.identifiedSpectraSize;
+        unidentifiedSpectraSize += spectrumStatistics.unidentifiedSpectraSize;
 
-        Protein protein;
-        List<Peptide> peptideList;
+        PrideDataColumns preMassedList = spectrumStatistics.preMassedList;
+        PrideDataColumns peaksMSList = spectrumStatistics.peaksMSList;
+        PrideHistogramAccumulator preMassesCounter = spectrumStatistics.preMassesCounter;
+        PrideHistogramAccumulator peaksMSCounter = spectrumStatistics.peaksMSCounter;
+        PrideHistogramAccumulator peaksIntensityCounter = spectrumStatistics.peaksIntensityCounter;
 
-        Map<Comparable, Tuple<Boolean, Boolean>> spectrumDecoy = new HashMap<Comparable, Tuple<Boolean, Boolean>>();
+        // release memory.
+        controller = null;
+        spectrumStatusIndex = null;
 
-        for (Comparable proteinId : controller.getProteinIds()) {
+        checkCancelled();
+        fireProgress(PrideDataReaderPhase.CHARTS, 0, -1);
 
-            String proteinAccession = controller.getProteinAccession(proteinId);
-            if (filter == null || filter.apply(proteinAccession)) {
-                protein = controller.getProteinById(proteinId);
-                peptideList = protein.getPeptides();
-                // fill peptides per protein
-                int size = peptideList.size();
-                if (size < 6) {
-                    peptideBars[size - 1]++;
-                } else {
-                    peptideBars[5]++;
-                }
+        if (isSelected(PrideChartType.PRECURSOR_CHARGE)) {
+            readPreCharge(spectrumStatistics.preChargeBars);
+        }
+        if (calcPreMasses) {
+            if (preMassesCounter == null) {
+                readPreMasses(createEqualWidthDataSource(preMassedList, true), hasPositiveValue(preMassedList));
+            } else {
+                readPreMasses(new PrideEqualWidthHistogramDataSource(preMassesCounter), preMassesCounter.getMaxValue() > 0.0);
+            }
+        }
 
-                int missedCleavages;
-                Double deltaMZ;
-                for (Peptide peptide : peptideList) {
-
-                    noPeptide = false;
-                    peptideSize++;
-
-                    // fill delta m/z histogram.
-                    deltaMZ = calcDeltaMZ(peptide);
-                    if (deltaMZ != null) {
-                        deltaMZList.add(new PrideData(deltaMZ, PrideDataType.IDENTIFIED_SPECTRA));
-                        if (hasDecoyInformation) {
-                            if (peptide.getPeptideEvidence().isDecoy()) {
-                                deltaMZList.add(new PrideData(deltaMZ, PrideDataType.IDENTIFIED_DECOY));
-                            } else {
-                                deltaMZList.add(new PrideData(deltaMZ, PrideDataType.IDENTIFIED_TARGET));
-                            }
-                        }
+        if (calcAvg) {
+            readAvg(spectrumStatistics.avgDataSource);
+        }
+        if (calcPeaksMS) {
+            if (peaksMSCounter == null) {
+                readPeakMS(createEqualWidthDataSource(peaksMSList, false));
+            } else {
+                readPeakMS(new PrideEqualWidthHistogramDataSource(peaksMSCounter));
+            }
+        }
+        if (calcPeakIntensity) {
+            if (peaksIntensityCounter == null) {
+                PrideHistogramDataSource dataSource = new PrideHistogramDataSource(spectrumStatistics.peaksIntensityList, true, false);
+                dataSource.setParallel(options.isParallelHistograms());
+                readPeakIntensity(dataSource);
+            } else {
+                readPeakIntensity(new PrideHistogramDataSource(peaksIntensityCounter));
+            }
+        }
+    }
 
-                    }
-                    // fill missed cleavages
-                    missedCleavages = MoleculeUtilities.calcMissedCleavages(peptide.getSequence());
-                    if (missedCleavages < 4) {
-                        missedBars.add(new PrideData(missedCleavages + 0.0d, PrideDataType.IDENTIFIED_SPECTRA));
-                        if (hasDecoyInformation)
-                            if (peptide.getPeptideEvidence().isDecoy())
-                                missedBars.add(new PrideData(missedCleavages + 0.0d, PrideDataType.IDENTIFIED_DECOY));
-                            else
-                                missedBars.add(new PrideData(missedCleavages + 0.0d, PrideDataType.IDENTIFIED_TARGET));
-
-                    } else {
-                        missedBars.add(new PrideData(4 + 0.0d, PrideDataType.IDENTIFIED_SPECTRA));
-                        if (hasDecoyInformation)
-                            if (peptide.getPeptideEvidence().isDecoy())
-                                missedBars.add(new PrideData(4 + 0.0d, PrideDataType.IDENTIFIED_DECOY));
-                            else
-                                missedBars.add(new PrideData(4 + 0.0d, PrideDataType.IDENTIFIED_TARGET));
-                    }
+    /**
+     * Create the charts which only depend on the protein pass.
+     */
+    private void readProteinCharts(ProteinStatistics proteinStatistics) {
+        if (isSelected(PrideChartType.PEPTIDES_PROTEIN)) {
+            readPeptide(proteinStatistics.peptideBars);
+        }
+        if (calcDelta) {
+            readDelta(proteinStatistics.deltaMZList);
+        }
+        if (calcMissed) {
+            if (proteinStatistics.missedCounter == null) {
+                readMissed(createEqualWidthDataSource(proteinStatistics.missedBars, false));
+            } else {
+                readMissed(new PrideEqualWidthHistogramDataSource(proteinStatistics.missedCounter));
+            }
+        }
+        if (isSelected(PrideChartType.QUANTITATION_PEPTIDES)) {
+            readQuantitation(variables, variablesStudy);
+        }
+    }
 
-                    if (hasDecoyInformation && controller.hasSpectrum()) {
-                        Comparable id = controller.getSpectrumIdForPeptide(peptide.getSpectrumIdentification().getId());
-                        if (id != null) {
-                            Tuple<Boolean, Boolean> status = new Tuple<Boolean, Boolean>(false, false);
-                            if (spectrumDecoy.containsKey(id))
-                                status = spectrumDecoy.get(id);
-                            if (peptide.getPeptideEvidence().isDecoy()) {
-                                status.setValue(true);
-                            } else {
-                                status.setKey(true);
-                            }
-                            spectrumDecoy.put(id, status);
-                        }
-                    }
-                }
+    /**
+     * Streaming mode count the histogram values directly, otherwise collect them into lists.
+     */
+    private SpectrumStatistics createSpectrumStatistics() {
+        boolean streaming = options.isStreamingHistograms();
+        return new SpectrumStatistics(
+                new PrideSpectrumHistogramDataSource(true,
+                        PrideSpectrumHistogramDataSource.DEFAULT_MZ_START, options.getAverageSpectrumBinWidth()),
+                streaming ? new PrideHistogramAccumulator(0, PRE_MIN_BIN_WIDTH, true) : null,
+                streaming ? new PrideHistogramAccumulator(0, 1, false) : null,
+                streaming ? new PrideHistogramAccumulator(createPeakIntensityBins(), true) : null
+        );
+    }
 
-                //If mzTab and contains Quantitation data
-                if (controller.getType().equals(DataAccessController.Type.MZTAB) && controller.hasQuantData()) {
-                    List<QuantPeptide> quantPeptides = controller.getProteinById(proteinId).getQuantPeptides();
-                    for (QuantPeptide peptide : quantPeptides) {
-                        QuantScore quantScore = peptide.getQuantScore();
-                        for (Comparable studyValueKey : quantScore.getStudyVariableScores().keySet()) {
-                            if (quantScore.getStudyVariableScores().get(studyValueKey) != null) {
-                                variablesStudy.get(studyValueKey).add(quantScore.getStudyVariableScores().get(studyValueKey));
-                            }
-                        }
-                    }
-                }
+    /**
+     * Traverse all spectra with the reader controller. If the options have a controller factory, the spectrum
+     * ids are split into contiguous ranges instead, every range is read by its own controller on its own
+     * thread, and the range statistics are merged in spectrum order.
+     */
+    private SpectrumStatistics readSpectra() {
+        int size = spectrumStatusIndex.size();
+        fireProgress(PrideDataReaderPhase.SPECTRA, 0, size);
+        if (! options.isParallelSpectra()) {
+            return readSpectra(controller, 0, size);
+        }
+
+        int parallelism = Math.max(Math.min(options.getSpectrumParallelism(), size), 1);
+        int rangeSize = (size + parallelism - 1) / parallelism;
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<SpectrumStatistics>> futures = new ArrayList<Future<SpectrumStatistics>>();
+            for (int from = 0; from < size; from += rangeSize) {
+                futures.add(executor.submit(new SpectrumRangeTask(from, Math.min(from + rangeSize, size))));
+            }
+
+            SpectrumStatistics statistics = createSpectrumStatistics();
+            for (Future<SpectrumStatistics> future : futures) {
+                statistics.merge(future.get());
+            }
+            return statistics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading spectra.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Read a range of spectra with a new controller of the factory, which is closed after reading.
+     */
+    private class SpectrumRangeTask implements Callable<SpectrumStatistics> {
+        private int from;
+        private int to;
+
+        private SpectrumRangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public SpectrumStatistics call() {
+            DataAccessController rangeController = options.getSpectrumControllerFactory().createController();
+            try {
+                return readSpectra(rangeController, from, to);
+            } finally {
+                rangeController.close();
+            }
+        }
+    }
 
+    /**
+     * Read the spectra [from, to) of the spectrum status index.
+     */
+    private SpectrumStatistics readSpectra(DataAccessController spectrumController, int from, int to) {
+        SpectrumStatistics statistics = createSpectrumStatistics();
+        SpectrumPrefetcher prefetcher = new SpectrumPrefetcher(
+                spectrumController, spectrumStatusIndex.getSpectrumIds(), from, to,
+                options.getSpectrumBatchSize(), options.getSpectrumPrefetchDepth(), tandemCharts
+        );
+        List<SpectrumPrefetcher.FetchedSpectrum> batch;
+        try {
+            while ((batch = prefetcher.nextBatch()) != null) {
+                checkCancelled();
+                for (SpectrumPrefetcher.FetchedSpectrum fetchedSpectrum : batch) {
+                    readSpectrum(fetchedSpectrum, statistics);
+                }
+                fireProgress(PrideDataReaderPhase.SPECTRA, processedSpectra.addAndGet(batch.size()), spectrumStatusIndex.size());
             }
+        } finally {
+            prefetcher.close();
         }
+        return statistics;
+    }
+
+    /**
+     * Fill the spectrum level statistics of one spectrum.
+     */
+    private void readSpectrum(SpectrumPrefetcher.FetchedSpectrum fetchedSpectrum, SpectrumStatistics statistics) {
+        Spectrum spectrum = fetchedSpectrum.spectrum;
+        statistics.noSpectra = false;
 
-        // spectrum level statistics.
         Integer preCharge;
         Double preMZ;
-        Peptide peptide;
-        Spectrum spectrum;
-        List<PrideData> peaksMSList = new ArrayList<PrideData>();
-        List<PrideData> peaksIntensityList = new ArrayList<PrideData>();
-        PrideSpectrumHistogramDataSource avgDataSource = new PrideSpectrumHistogramDataSource(true);
-
         PrideDataType dataType;
-        Iterator<Comparable> itIds = controller.getSpectrumIds().iterator();
-        while(itIds != null && itIds.hasNext()) {
-            Comparable spectrumId = itIds.next();
-            noSpectra = false;
-            spectrum = controller.getSpectrumById(spectrumId);
-            List<Peptide> peptides = spectrum.getPeptide();
-            boolean isIdentified = spectrumDecoy.containsKey(spectrumId);
-
-            // precursor charge and mass.
-            if (peptides == null) {
-                preCharge = DataAccessUtilities.getPrecursorCharge(spectrum.getPrecursors());
-                preMZ = DataAccessUtilities.getPrecursorMz(spectrum);
-            } else {
-                preCharge = peptides.get(0).getPrecursorCharge();
-                preMZ = peptides.get(0).getPrecursorMz();
-            }
-            // Charge State must be less than 8, but some files can have the annotation wrong
-            if (preCharge != null && preCharge < 8 && preCharge > 0) {
-                // Identified spectrum.
-                preChargeBars[preCharge - 1]++;
+        List<Peptide> peptides = spectrum.getPeptide();
+        boolean isIdentified = spectrumStatusIndex.isIdentified(fetchedSpectrum.index);
+        // target and decoy identification types, only exist with decoy information.
+        int statusMask = hasDecoyInformation ? getStatusMask(spectrumStatusIndex.getStatus(fetchedSpectrum.index)) : 0;
+        if (isIdentified) {
+            statistics.identifiedSpectraSize++;
+            dataType = PrideDataType.IDENTIFIED_SPECTRA;
+        } else {
+            statistics.unidentifiedSpectraSize++;
+            dataType = PrideDataType.UNIDENTIFIED_SPECTRA;
+        }
+
+        // precursor charge and mass.
+        if (peptides == null) {
+            preCharge = DataAccessUtilities.getPrecursorCharge(spectrum.getPrecursors());
+            preMZ = DataAccessUtilities.getPrecursorMz(spectrum);
+        } else {
+            preCharge = peptides.get(0).getPrecursorCharge();
+            preMZ = peptides.get(0).getPrecursorMz();
+        }
+        // Charge State must be less than 8, but some files can have the annotation wrong
+        if (preCharge != null && preCharge < 8 && preCharge > 0) {
+            // Identified spectrum.
+            statistics.preChargeBars[preCharge - 1]++;
+        }
+
+        if (calcPreMasses && preMZ != null && preMZ > -1 && preCharge != null && preCharge < 8) {
+            collect(statistics.preMassedList, statistics.preMassesCounter, preMZ * preCharge,
+                    dataType.getMaskBit() | statusMask);
+        }
+
+        if (tandemCharts && fetchedSpectrum.msLevel == 2) {
+            statistics.noTandemSpectra = false;
+            if (calcPeaksMS) {
+                double peaks = spectrum.getMzBinaryDataArray().getDoubleArray().length + 0.0d;
+                collect(statistics.peaksMSList, statistics.peaksMSCounter, peaks,
+                        PrideDataType.ALL_SPECTRA.getMaskBit() | dataType.getMaskBit() | statusMask);
             }
 
-            if (preMZ != null && preMZ > -1 && preCharge != null && preCharge < 8) {
-                preMassedList.add(new PrideData(preMZ * preCharge,
-                        isIdentified ? PrideDataType.IDENTIFIED_SPECTRA : PrideDataType.UNIDENTIFIED_SPECTRA
-                ));
-                if(hasDecoyInformation){
-                    if(spectrumDecoy.containsKey(spectrum.getId())){
-                        Tuple<Boolean, Boolean> status = spectrumDecoy.get(spectrumId);
-                        if(status.getKey())
-                            preMassedList.add(new PrideData(preMZ * preCharge, PrideDataType.IDENTIFIED_TARGET));
-                        if(status.getValue())
-                            preMassedList.add(new PrideData(preMZ * preCharge, PrideDataType.IDENTIFIED_DECOY));
-                    }
-                }
+            if (calcAvg) {
+                statistics.avgDataSource.addSpectrum(spectrum, dataType);
             }
-            if (isIdentified) {
-                identifiedSpectraSize++;
-                dataType = PrideDataType.IDENTIFIED_SPECTRA;
-            } else {
-                unidentifiedSpectraSize++;
-                dataType = PrideDataType.UNIDENTIFIED_SPECTRA;
-            }
-
-            if (controller.getSpectrumMsLevel(spectrumId) == 2) {
-                noTandemSpectra = false;
-                peaksMSList.add(new PrideData(spectrum.getMzBinaryDataArray().getDoubleArray().length + 0.0d, PrideDataType.ALL_SPECTRA));
-                peaksMSList.add(new PrideData(spectrum.getMzBinaryDataArray().getDoubleArray().length + 0.0d, dataType));
-                if(hasDecoyInformation){
-                    if(spectrumDecoy.containsKey(spectrum.getId())){
-                        Tuple<Boolean, Boolean> status = spectrumDecoy.get(spectrumId);
-                        if(status.getKey())
-                            peaksMSList.add(new PrideData(spectrum.getMzBinaryDataArray().getDoubleArray().length + 0.0d, PrideDataType.IDENTIFIED_TARGET));
-                        if(status.getValue())
-                            peaksMSList.add(new PrideData(spectrum.getMzBinaryDataArray().getDoubleArray().length + 0.0d, PrideDataType.IDENTIFIED_DECOY));
-                    }
-                }
 
-                avgDataSource.addSpectrum(spectrum, dataType);
+            if (calcPeakIntensity) {
                 double[] itArray = spectrum.getIntensityBinaryDataArray().getDoubleArray();
-
+                int typeMask = dataType.getMaskBit() | statusMask;
                 for (double v : itArray) {
-                    peaksIntensityList.add(new PrideData(v, dataType));
-                    if(hasDecoyInformation){
-                        if(spectrumDecoy.containsKey(spectrum.getId())){
-                            Tuple<Boolean, Boolean> status = spectrumDecoy.get(spectrumId);
-                            if(status.getKey())
-                                peaksIntensityList.add(new PrideData(v, PrideDataType.IDENTIFIED_TARGET));
-                            if(status.getValue())
-                                peaksIntensityList.add(new PrideData(v, PrideDataType.IDENTIFIED_DECOY));
-                        }
-                    }
+                    collect(statistics.peaksIntensityList, statistics.peaksIntensityCounter, v, typeMask);
                 }
             }
+        }
+    }
 
+    /**
+     * Add value of all types in mask into the counter in streaming mode, otherwise into the columns.
+     */
+    private void collect(PrideDataColumns values, PrideHistogramAccumulator counter, double value, int typeMask) {
+        if (counter == null) {
+            values.add(value, typeMask);
+        } else {
+            counter.add(value, typeMask);
         }
+    }
 
-        // release memory.
-        controller = null;
+    /**
+     * @return the mask of target and/or decoy identification, based on the spectrum identification status.
+     */
+    private int getStatusMask(byte status) {
+        int mask = 0;
+        if ((status & SpectrumStatusIndex.TARGET) != 0) {
+            mask |= PrideDataType.IDENTIFIED_TARGET.getMaskBit();
+        }
+        if ((status & SpectrumStatusIndex.DECOY) != 0) {
+            mask |= PrideDataType.IDENTIFIED_DECOY.getMaskBit();
+        }
+        return mask;
+    }
 
-        readPeptide(peptideBars);
-        readDelta(deltaMZList);
-        readMissed(missedBars);
+    /**
+     * @return the mask of identified spectra, and target or decoy identification with decoy information.
+     */
+    private int getPsmMask(PsmProjection.Psm psm) {
+        int mask = PrideDataType.IDENTIFIED_SPECTRA.getMaskBit();
+        if (hasDecoyInformation) {
+            mask |= psm.decoy ? PrideDataType.IDENTIFIED_DECOY.getMaskBit() : PrideDataType.IDENTIFIED_TARGET.getMaskBit();
+        }
+        return mask;
+    }
 
-        readPreCharge(preChargeBars);
-        readPreMasses(preMassedList);
+    private PrideEqualWidthHistogramDataSource createEqualWidthDataSource(PrideDataColumns values, boolean calcAllSpectra) {
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(values, calcAllSpectra, false);
+        dataSource.setParallel(options.isParallelHistograms());
+        return dataSource;
+    }
 
-        readAvg(avgDataSource);
-        readPeakMS(peaksMSList);
-        readPeakIntensity(peaksIntensityList);
-        readQuantitation(variables, variablesStudy);
+    private boolean hasPositiveValue(PrideDataColumns values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (values.getValue(i) > 0.0) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private Double calcDeltaMZ(Peptide peptide) {
-        List<Double> modMassList = new ArrayList<Double>();
-        for (Modification mod : peptide.getModifications()) {
-            if(mod.getMonoisotopicMassDelta().size() > 0)
-               modMassList.add(mod.getMonoisotopicMassDelta().get(0));
+    /**
+     * Traverse all proteins, serially or sharded on a fork-join pool depending on {@link #options}.
+     */
+    private ProteinStatistics readProteins() {
+        List<Comparable> proteinIds = new ArrayList<Comparable>(controller.getProteinIds());
+        psmProjection = new PsmProjection(controller, filter, calcMissed, calcDelta, hasDecoyInformation,
+                calcSpectrumStatus ? spectrumStatusIndex : null, calcQuantitation);
+        peptideCache = new PeptideCache(options.getPeptideCacheSize());
+
+        fireProgress(PrideDataReaderPhase.PROTEINS, 0, proteinIds.size());
+        ProteinShardTask task = new ProteinShardTask(proteinIds, 0, proteinIds.size());
+        if (! options.isParallelProteins() || proteinIds.size() <= options.getProteinShardSize()) {
+            return task.compute();
         }
 
-        return MoleculeUtilities.calculateDeltaMz(
-                peptide.getSequence(),
-                peptide.getPrecursorMz(),
-                peptide.getPrecursorCharge(),
-                modMassList
-        );
+        ForkJoinPool pool = new ForkJoinPool(options.getProteinParallelism());
+        try {
+            return pool.invoke(task);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Fill the protein level statistics of one projected protein, without lock on the controller.
+     */
+    private void readProtein(PsmProjection.ProteinPsms protein, ProteinStatistics statistics) {
+        // fill peptides per protein
+        int size = protein.psms.length;
+        if (size < 6) {
+            statistics.peptideBars[size - 1]++;
+        } else {
+            statistics.peptideBars[5]++;
+        }
+
+        int missedCleavages;
+        Double deltaMZ;
+        for (PsmProjection.Psm psm : protein.psms) {
+
+            statistics.noPeptide = false;
+            statistics.peptideSize++;
+
+            // fill delta m/z histogram.
+            deltaMZ = calcDelta ? peptideCache.calcDeltaMz(psm.sequence, psm.precursorMz, psm.precursorCharge,
+                    psm.modMassDeltas) : null;
+            if (deltaMZ != null) {
+                statistics.deltaMZList.add(deltaMZ, getPsmMask(psm));
+            }
+            // fill missed cleavages
+            if (calcMissed) {
+                missedCleavages = peptideCache.calcMissedCleavages(psm.sequence);
+                if (missedCleavages > 4) {
+                    missedCleavages = 4;
+                }
+                statistics.addMissedCleavages(missedCleavages + 0.0d, getPsmMask(psm));
+            }
+
+            if (psm.spectrumIndex >= 0) {
+                statistics.markSpectrum(psm.spectrumIndex, psm.decoy);
+            }
+        }
+
+        //If mzTab and contains Quantitation data
+        if (calcQuantitation) {
+            for (QuantPeptide peptide : protein.quantPeptides) {
+                QuantScore quantScore = peptide.getQuantScore();
+                for (Comparable studyValueKey : quantScore.getStudyVariableScores().keySet()) {
+                    if (quantScore.getStudyVariableScores().get(studyValueKey) != null) {
+                        statistics.variablesStudy.get(studyValueKey).add(quantScore.getStudyVariableScores().get(studyValueKey));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fork-join task over a contiguous range of protein identifiers. Ranges larger than the
+     * shard size are split in two, and the right part is appended to the left one after both
+     * finished, so the merged statistics keep the protein order.
+     */
+    private class ProteinShardTask extends RecursiveTask<ProteinStatistics> {
+        private final List<Comparable> proteinIds;
+        private final int from;
+        private final int to;
+
+        private ProteinShardTask(List<Comparable> proteinIds, int from, int to) {
+            this.proteinIds = proteinIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ProteinStatistics compute() {
+            if (to - from > options.getProteinShardSize() && options.isParallelProteins()) {
+                int middle = (from + to) >>> 1;
+                ProteinShardTask left = new ProteinShardTask(proteinIds, from, middle);
+                ProteinShardTask right = new ProteinShardTask(proteinIds, middle, to);
+                left.fork();
+                ProteinStatistics rightStatistics = right.compute();
+                ProteinStatistics statistics = left.join();
+                statistics.merge(rightStatistics);
+                return statistics;
+            }
+
+            ProteinStatistics statistics = new ProteinStatistics(variables.keySet(), options.isStreamingHistograms());
+            int batchEnd;
+            for (int i = from; i < to; i += PROTEIN_BATCH_SIZE) {
+                checkCancelled();
+                batchEnd = Math.min(i + PROTEIN_BATCH_SIZE, to);
+                for (PsmProjection.ProteinPsms protein : psmProjection.project(proteinIds, i, batchEnd)) {
+                    readProtein(protein, statistics);
+                }
+                fireProgress(PrideDataReaderPhase.PROTEINS, processedProteins.addAndGet(batchEnd - i), proteinIds.size());
+            }
+            return statistics;
+        }
     }
 
     /**
      * Read the Delta Mz for all the peptides.
      * @param deltaMZList
      */
-    private void readDelta(List<PrideData> deltaMZList) {
+    private void readDelta(PrideDataColumns deltaMZList) {
         if (noPeptide || noSpectra) {
             errorMap.put(PrideChartType.DELTA_MASS, new PrideDataException(PrideDataException.NO_PRE_CHARGE));
             return;
         }
 
-        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(deltaMZList.toArray(new PrideData[deltaMZList.size()]),true, false);
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(deltaMZList, true, false);
+        dataSource.setParallel(options.isParallelHistograms());
 
         double start = Double.MAX_VALUE;
         double end = Double.MIN_VALUE;
         double v;
 
-        for (PrideData data : deltaMZList) {
-            v = data.getData();
+        for (int i = 0; i < deltaMZList.size(); i++) {
+            v = deltaMZList.getValue(i);
             if (v < start) {
                 start = v;
             }
@@ -449,19 +809,15 @@ public class DataAccessReader extends PrideDataReader {
 
     /**
      * Read miscleavage information and convert to histogram representation.
-     * @param missedCleavages
+     * @param dataSource
      */
-    private void readMissed(List<PrideData> missedCleavages) {
+    private void readMissed(PrideEqualWidthHistogramDataSource dataSource) {
 
         if (noPeptide) {
             errorMap.put(PrideChartType.MISSED_CLEAVAGES, new PrideDataException(PrideDataException.NO_IDENTIFICATION));
             return;
         }
 
-        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(
-                missedCleavages.toArray(new PrideData[missedCleavages.size()]),
-                false, false
-        );
         dataSource.appendBins(dataSource.generateGranularityBins(0d, 4, 1));
 
         histogramDataSourceMap.put(PrideChartType.MISSED_CLEAVAGES, dataSource);
@@ -485,7 +841,7 @@ public class DataAccessReader extends PrideDataReader {
             return;
         }
 
-        List<PrideData> preQuantList = new ArrayList<PrideData>();
+        PrideDataColumns preQuantList = new PrideDataColumns();
 
 //        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(preQuantList.toArray(new PrideData[preQuantList.size()]), true, true);
 //        dataSource.appendBins(dataSource.generateGranularityBins(minValue, 10, (int)(maxValue-minValue/10)));
@@ -500,8 +856,7 @@ public class DataAccessReader extends PrideDataReader {
             List<Double> valueStudy = values.get(studyId);
             for (Double data : valueStudy) {
                 v = data;
-                PrideData pridata = new PrideData(data, studyVariables.get(studyId));
-                preQuantList.add(pridata);
+                preQuantList.add(v, PrideDataType.ALL_SPECTRA, studyVariables.get(studyId));
                 if (v < start) {
                     start = v;
                 }
@@ -519,7 +874,7 @@ public class DataAccessReader extends PrideDataReader {
         empiricalDistribution.load(distribution);
 
 
-        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(preQuantList.toArray(new PrideData[preQuantList.size()]), false, true);
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(preQuantList, false, true);
 
         for(int i = 0; i < empiricalDistribution.getUpperBounds().length -1; i++){
             dataSource.appendBin(new PrideHistogramBin(empiricalDistribution.getUpperBounds()[i],empiricalDistribution.getUpperBounds()[i+1]));
@@ -559,7 +914,7 @@ public class DataAccessReader extends PrideDataReader {
             return;
         }
 
-        dataSource.appendBins(dataSource.generateBins(0, 1));
+        dataSource.appendBins(dataSource.generateMzBins());
 
         histogramDataSourceMap.put(PrideChartType.AVERAGE_MS, dataSource);
     }
@@ -595,30 +950,20 @@ public class DataAccessReader extends PrideDataReader {
 
     /**
      * Read the precursor mass information and generate the Charts
-     * @param preMassedList
+     * @param dataSource
+     * @param hasCharge whether exists positive precursor mass.
      */
-    private void readPreMasses(List<PrideData> preMassedList) {
+    private void readPreMasses(PrideEqualWidthHistogramDataSource dataSource, boolean hasCharge) {
         if (noSpectra) {
             errorMap.put(PrideChartType.PRECURSOR_MASSES, new PrideDataException(PrideDataException.NO_SPECTRA));
             return;
         }
 
-        boolean hasCharge = false;
-        for (int i = 0; i < preMassedList.size(); i++) {
-            if (preMassedList.get(i).getData() > 0.0) {
-                hasCharge = true;
-            }
-        }
-
         if (!hasCharge) {
             errorMap.put(PrideChartType.PRECURSOR_MASSES, new PrideDataException(PrideDataException.NO_PRECURSOR_MASS));
             return;
         }
 
-        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(
-                preMassedList.toArray(new PrideData[preMassedList.size()]),
-                true, false
-        );
         dataSource.appendBins(dataSource.generateBins(0d, PRE_MIN_BIN_WIDTH));
 
         SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> histogramMap = dataSource.getHistogramMap();
@@ -703,50 +1048,51 @@ public class DataAccessReader extends PrideDataReader {
     }
 
 
-    private void readPeakMS(List<PrideData> peaksMSList) {
+    private void readPeakMS(PrideEqualWidthHistogramDataSource dataSource) {
         if (noTandemSpectra) {
             errorMap.put(PrideChartType.PEAKS_MS, new PrideDataException(PrideDataException.NO_TANDEM_SPECTRA));
             return;
         }
 
-        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(
-                peaksMSList.toArray(new PrideData[peaksMSList.size()]),
-                false,false
-        );
         dataSource.appendBins(dataSource.generateGranularityBins(0d, 10, 50));
 
         histogramDataSourceMap.put(PrideChartType.PEAKS_MS, dataSource);
 
     }
 
-    private void readPeakIntensity(List<PrideData> peaksIntensityList) {
+    private void readPeakIntensity(PrideHistogramDataSource dataSource) {
 
         if (noTandemSpectra) {
             errorMap.put(PrideChartType.PEAK_INTENSITY, new PrideDataException(PrideDataException.NO_TANDEM_SPECTRA));
             return;
         }
 
-        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(
-                peaksIntensityList.toArray(new PrideData[peaksIntensityList.size()]),
-                true, false
-        );
-        dataSource.appendBin(new PrideHistogramBin(0, 5));
-        dataSource.appendBin(new PrideHistogramBin(10,  100));
-        dataSource.appendBin(new PrideHistogramBin(100, 300));
-        dataSource.appendBin(new PrideHistogramBin(300, 500));
-        dataSource.appendBin(new PrideHistogramBin(500, 700));
-        dataSource.appendBin(new PrideHistogramBin(700, 900));
-        dataSource.appendBin(new PrideHistogramBin(900, 1000));
-        dataSource.appendBin(new PrideHistogramBin(1000, 3000));
-        dataSource.appendBin(new PrideHistogramBin(3000, 6000));
-        dataSource.appendBin(new PrideHistogramBin(6000, 10000));
-        dataSource.appendBin(new PrideHistogramBin(10000, Integer.MAX_VALUE));
+        dataSource.appendBins(createPeakIntensityBins());
 
         histogramDataSourceMap.put(PrideChartType.PEAK_INTENSITY, dataSource);
     }
 
+    private List<PrideHistogramBin> createPeakIntensityBins() {
+        List<PrideHistogramBin> bins = new ArrayList<PrideHistogramBin>();
+        bins.add(new PrideHistogramBin(0, 5));
+        bins.add(new PrideHistogramBin(10,  100));
+        bins.add(new PrideHistogramBin(100, 300));
+        bins.add(new PrideHistogramBin(300, 500));
+        bins.add(new PrideHistogramBin(500, 700));
+        bins.add(new PrideHistogramBin(700, 900));
+        bins.add(new PrideHistogramBin(900, 1000));
+        bins.add(new PrideHistogramBin(1000, 3000));
+        bins.add(new PrideHistogramBin(3000, 6000));
+        bins.add(new PrideHistogramBin(6000, 10000));
+        bins.add(new PrideHistogramBin(10000, Integer.MAX_VALUE));
+        return bins;
+    }
+
     @Override
     protected void end() {
         logger.debug("create data set cost: " + PridePlotUtils.getTimeCost(start, System.currentTimeMillis()));
+        if (peptideCache != null) {
+            logger.debug(peptideCache);
+        }
     }
 }
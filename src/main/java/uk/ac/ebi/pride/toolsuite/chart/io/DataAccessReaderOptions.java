@@ -0,0 +1,261 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartSummary;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Tuning options of {@link DataAccessReader}. The default options read the experiment
+ * on the calling thread, which is the original behaviour of the reader.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class DataAccessReaderOptions {
+    public static final int DEFAULT_PROTEIN_SHARD_SIZE = 256;
+    public static final int DEFAULT_SPECTRUM_BATCH_SIZE = 64;
+    public static final int DEFAULT_PEPTIDE_CACHE_SIZE = 10000;
+
+    // number of threads used to traverse the proteins, 1 means serial traversal.
+    private int proteinParallelism = 1;
+
+    // maximum number of proteins handled by one fork-join task.
+    private int proteinShardSize = DEFAULT_PROTEIN_SHARD_SIZE;
+
+    // count the histogram values into primitive counters when they are read.
+    private boolean streamingHistograms = false;
+
+    // count the histogram values on a fork-join pool.
+    private boolean parallelHistograms = false;
+
+    // number of spectrum batches fetched ahead by a background thread, 0 means fetch on the reading thread.
+    private int spectrumPrefetchDepth = 0;
+
+    // number of spectra fetched in one batch.
+    private int spectrumBatchSize = DEFAULT_SPECTRUM_BATCH_SIZE;
+
+    // number of threads used to traverse the spectra, every thread reads by its own controller.
+    private int spectrumParallelism = 1;
+
+    // create the controllers of spectrum traversal threads, null means serial traversal.
+    private DataAccessControllerFactory spectrumControllerFactory;
+
+    // max entries of the missed cleavages and theoretical mass caches, 0 means no cache.
+    private int peptideCacheSize = DEFAULT_PEPTIDE_CACHE_SIZE;
+
+    // m/z bin width of the average MS/MS spectrum.
+    private double averageSpectrumBinWidth = PrideSpectrumHistogramDataSource.DEFAULT_MZ_BIN_WIDTH;
+
+    // the charts which should be generated.
+    private Set<PrideChartType> chartTypes = EnumSet.allOf(PrideChartType.class);
+
+    // receive the reading progress, null means no progress reported.
+    private PrideDataReaderListener listener;
+
+    // cancel the reading from another thread, null means the reading can not be cancelled.
+    private CancellationToken cancellationToken;
+
+    public DataAccessReaderOptions() {}
+
+    public int getProteinParallelism() {
+        return proteinParallelism;
+    }
+
+    /**
+     * Split the protein identifiers into shards and traverse them on a fork-join pool with
+     * the given parallelism. Every shard fills its own accumulators, which are merged in
+     * protein order, so the charts are identical to the serial traversal.
+     *
+     * The shards share the reader controller, and all calls to it, e.g. getProteinById, are serialized
+     * on it, only the statistics are calculated in parallel. So the speedup is limited by the time spent
+     * out of the controller: a controller which parses the proteins from file, e.g. PRIDE XML, gains
+     * little, a controller which holds the proteins in memory gains most.
+     */
+    public void setProteinParallelism(int proteinParallelism) {
+        if (proteinParallelism < 1) {
+            throw new IllegalArgumentException("Protein parallelism should be great than 0");
+        }
+        this.proteinParallelism = proteinParallelism;
+    }
+
+    public boolean isParallelProteins() {
+        return proteinParallelism > 1;
+    }
+
+    public int getProteinShardSize() {
+        return proteinShardSize;
+    }
+
+    public void setProteinShardSize(int proteinShardSize) {
+        if (proteinShardSize < 1) {
+            throw new IllegalArgumentException("Protein shard size should be great than 0");
+        }
+        this.proteinShardSize = proteinShardSize;
+    }
+
+    public boolean isStreamingHistograms() {
+        return streamingHistograms;
+    }
+
+    /**
+     * Count PEAK_INTENSITY, PEAKS_MS, PRECURSOR_MASSES and MISSED_CLEAVAGES values into primitive
+     * counters while reading, instead of keeping one {@link uk.ac.ebi.pride.toolsuite.chart.dataset.PrideData}
+     * for every value. The histograms are the same, but the values of these data sources are not kept.
+     */
+    public void setStreamingHistograms(boolean streamingHistograms) {
+        this.streamingHistograms = streamingHistograms;
+    }
+
+    public boolean isParallelHistograms() {
+        return parallelHistograms;
+    }
+
+    /**
+     * Count the values of large histograms in parallel, see
+     * {@link uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramDataSource#setParallel(boolean)}.
+     * It has no effect on the streaming histograms, which are counted while reading.
+     */
+    public void setParallelHistograms(boolean parallelHistograms) {
+        this.parallelHistograms = parallelHistograms;
+    }
+
+    public int getSpectrumPrefetchDepth() {
+        return spectrumPrefetchDepth;
+    }
+
+    /**
+     * Fetch and decode the spectra on a background thread, while the reading thread accumulates the
+     * statistics of fetched spectra. At most spectrumPrefetchDepth batches wait for the reading thread,
+     * so the memory keeps bounded. The spectra are read in the same order, the charts are not changed.
+     */
+    public void setSpectrumPrefetchDepth(int spectrumPrefetchDepth) {
+        if (spectrumPrefetchDepth < 0) {
+            throw new IllegalArgumentException("Spectrum prefetch depth should not be less than 0");
+        }
+        this.spectrumPrefetchDepth = spectrumPrefetchDepth;
+    }
+
+    public int getSpectrumBatchSize() {
+        return spectrumBatchSize;
+    }
+
+    public void setSpectrumBatchSize(int spectrumBatchSize) {
+        if (spectrumBatchSize < 1) {
+            throw new IllegalArgumentException("Spectrum batch size should be great than 0");
+        }
+        this.spectrumBatchSize = spectrumBatchSize;
+    }
+
+    public int getSpectrumParallelism() {
+        return spectrumParallelism;
+    }
+
+    public DataAccessControllerFactory getSpectrumControllerFactory() {
+        return spectrumControllerFactory;
+    }
+
+    /**
+     * Split the spectrum ids into contiguous ranges and read every range on its own thread, by a new
+     * controller of the factory, because a controller can not be shared between threads. The range
+     * statistics are merged in spectrum order. Only the sums of AVERAGE_MS intensities may differ from
+     * the serial traversal in the last digits, because they are added in a different order.
+     */
+    public void setParallelSpectra(DataAccessControllerFactory spectrumControllerFactory, int spectrumParallelism) {
+        if (spectrumControllerFactory == null) {
+            throw new IllegalArgumentException("Spectrum controller factory is null!");
+        }
+        if (spectrumParallelism < 1) {
+            throw new IllegalArgumentException("Spectrum parallelism should be great than 0");
+        }
+        this.spectrumControllerFactory = spectrumControllerFactory;
+        this.spectrumParallelism = spectrumParallelism;
+    }
+
+    public boolean isParallelSpectra() {
+        return spectrumControllerFactory != null && spectrumParallelism > 1;
+    }
+
+    public int getPeptideCacheSize() {
+        return peptideCacheSize;
+    }
+
+    /**
+     * The missed cleavages are cached by sequence, and the theoretical mass of delta m/z by sequence and
+     * modification deltas, because the same peptides repeat over proteins. The precursor part of delta m/z
+     * is calculated for every match. The caches keep the recently used entries.
+     */
+    public void setPeptideCacheSize(int peptideCacheSize) {
+        if (peptideCacheSize < 0) {
+            throw new IllegalArgumentException("Peptide cache size should not be less than 0");
+        }
+        this.peptideCacheSize = peptideCacheSize;
+    }
+
+    public double getAverageSpectrumBinWidth() {
+        return averageSpectrumBinWidth;
+    }
+
+    /**
+     * Sum the intensities of AVERAGE_MS chart by the given m/z bin width, e.g. 0.01 Da for high resolution
+     * instruments. The default width is 1 Da.
+     */
+    public void setAverageSpectrumBinWidth(double averageSpectrumBinWidth) {
+        if (averageSpectrumBinWidth <= 0) {
+            throw new IllegalArgumentException("Average spectrum bin width should be great than 0");
+        }
+        this.averageSpectrumBinWidth = averageSpectrumBinWidth;
+    }
+
+    public Set<PrideChartType> getChartTypes() {
+        return chartTypes;
+    }
+
+    /**
+     * Only generate the given charts. The reader skips the traversals and accumulators which
+     * are not needed by these charts, e.g. only PEPTIDES_PROTEIN not touches the spectra at all.
+     * The charts which not be selected have neither data source nor error message.
+     */
+    public void setChartTypes(Collection<PrideChartType> chartTypes) {
+        if (chartTypes == null) {
+            throw new IllegalArgumentException("Chart types is null!");
+        }
+        this.chartTypes = chartTypes.isEmpty() ? EnumSet.noneOf(PrideChartType.class) : EnumSet.copyOf(chartTypes);
+    }
+
+    public void setChartSummary(PrideChartSummary summary) {
+        if (summary == null) {
+            throw new IllegalArgumentException("Chart summary is null!");
+        }
+        setChartTypes(summary.getAll());
+    }
+
+    public boolean isChartSelected(PrideChartType type) {
+        return chartTypes.contains(type);
+    }
+
+    public PrideDataReaderListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Report the phases of reading, and the proteins and spectra processed after every batch.
+     */
+    public void setListener(PrideDataReaderListener listener) {
+        this.listener = listener;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Stop the reading at the end of current protein or spectrum batch when the token is cancelled, the
+     * reader constructor throws {@link PrideDataException} with {@link PrideDataException#READING_CANCELLED}.
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+}
@@ -16,9 +16,8 @@ import java.util.regex.Pattern;
  * @author qingwei
  * Date: 21/06/13
  */
-public class ElderJSONReader extends PrideDataReader {
+public class ElderJSONReader extends JSONChartReader<JSONObject> {
     Logger logger = Logger.getLogger(ElderJSONReader.class);
-    private Map<PrideChartType, JSONObject> jsonMap = new TreeMap<PrideChartType, JSONObject>();
 
     private final String source = "JSON";
 
@@ -33,17 +32,7 @@ public class ElderJSONReader extends PrideDataReader {
     private final String UNIDENTIFIED_FREQUENCY = "unidenFreq";
 
     public ElderJSONReader(String jsonString, PrideChartType chartType) {
-        try {
-            JSONObject json = new JSONObject(jsonString);
-            try {
-                checkErrorMsg(json);
-            } catch (PrideDataException e) {
-                errorMap.put(chartType, e);
-            }
-            jsonMap.put(chartType, json);
-        } catch (JSONException e) {
-            logger.error(e.getMessage());
-        }
+        addChart(chartType, new JSONChartPayload(jsonString));
 
         readData();
     }
@@ -117,26 +106,9 @@ public class ElderJSONReader extends PrideDataReader {
      * Reference testset directory json files.
      */
     public ElderJSONReader(File jsonFile) {
+        List<JSONChartPayload> payloads = new ArrayList<JSONChartPayload>();
         try {
-            BufferedReader reader = new BufferedReader(new FileReader(jsonFile));
-
-            String line;
-            String[] items;
-            JSONObject json;
-            PrideChartType chartType;
-            while ((line = reader.readLine()) != null) {
-                items = line.split(", ");
-                json = new JSONObject(items[1]);
-                chartType = getChartType(Integer.parseInt(items[0]));
-                try {
-                    checkErrorMsg(json);
-                } catch (PrideDataException e) {
-                    errorMap.put(chartType, e);
-                }
-                jsonMap.put(chartType, json);
-            }
-
-            reader.close();
+            JSONChartPayload.readFile(jsonFile, payloads);
         } catch (FileNotFoundException e) {
             logger.error(e.getMessage());
         } catch (IOException e) {
@@ -145,6 +117,10 @@ public class ElderJSONReader extends PrideDataReader {
             logger.error(e.getMessage());
         }
 
+        for (JSONChartPayload payload : payloads) {
+            addChart(getChartType(payload.getChartId()), payload);
+        }
+
         readData();
     }
 
@@ -156,19 +132,10 @@ public class ElderJSONReader extends PrideDataReader {
      */
     public ElderJSONReader(String[] jsonFileContent) {
         try {
-            String[] items;
-            JSONObject json;
-            PrideChartType chartType;
+            JSONChartPayload payload;
             for (String line : jsonFileContent) {
-                items = line.split(", ");
-                json = new JSONObject(items[1]);
-                chartType = getChartType(Integer.parseInt(items[0]));
-                try {
-                    checkErrorMsg(json);
-                } catch (PrideDataException e) {
-                    errorMap.put(chartType, e);
-                }
-                jsonMap.put(chartType, json);
+                payload = JSONChartPayload.parseLine(line);
+                addChart(getChartType(payload.getChartId()), payload);
             }
         } catch (JSONException e) {
             logger.error(e.getMessage());
@@ -178,11 +145,7 @@ public class ElderJSONReader extends PrideDataReader {
     }
 
     @Override
-    protected void start() {
-        // do noting.
-    }
-
-    private void checkErrorMsg(JSONObject object) throws PrideDataException {
+    protected void checkErrorMsg(JSONObject object) throws PrideDataException {
         try {
             StringBuilder sb = new StringBuilder();
             JSONArray msgList = object.getJSONArray(ERROR);
@@ -237,7 +200,8 @@ public class ElderJSONReader extends PrideDataReader {
         }
     }
 
-    private void readDelta(JSONObject json) throws JSONException {
+    @Override
+    protected void readDelta(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         peptideSize = json.getInt("sequenceNumber");
@@ -248,7 +212,8 @@ public class ElderJSONReader extends PrideDataReader {
         xyDataSourceMap.put(PrideChartType.DELTA_MASS, dataSource);
     }
 
-    private void readPeptide(JSONObject json) throws JSONException {
+    @Override
+    protected void readPeptide(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
@@ -268,7 +233,8 @@ public class ElderJSONReader extends PrideDataReader {
         xyDataSourceMap.put(PrideChartType.PEPTIDES_PROTEIN, dataSource);
     }
 
-    private void readMissed(JSONObject json) throws JSONException {
+    @Override
+    protected void readMissed(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
@@ -298,7 +264,8 @@ public class ElderJSONReader extends PrideDataReader {
         }
     }
 
-    private void readAvg(JSONObject json) throws JSONException {
+    @Override
+    protected void readAvg(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         List<Double> domainDataList0 = new ArrayList<Double>();
@@ -343,7 +310,8 @@ public class ElderJSONReader extends PrideDataReader {
         histogramDataSourceMap.put(PrideChartType.AVERAGE_MS, dataSource);
     }
 
-    private void readPreCharge(JSONObject json) throws JSONException {
+    @Override
+    protected void readPreCharge(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.IDENTIFIED_SPECTRA;
 
         JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
@@ -363,7 +331,8 @@ public class ElderJSONReader extends PrideDataReader {
         xyDataSourceMap.put(PrideChartType.PRECURSOR_CHARGE, dataSource);
     }
 
-    private void readPreMasses(JSONObject json) throws JSONException {
+    @Override
+    protected void readPreMasses(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         identifiedSpectraSize = json.getInt(IDENTIFIED_FREQUENCY);
@@ -475,7 +444,8 @@ public class ElderJSONReader extends PrideDataReader {
         return countList;
     }
 
-    private void readPeakMS(JSONObject json) throws JSONException {
+    @Override
+    protected void readPeakMS(JSONObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
@@ -508,7 +478,8 @@ public class ElderJSONReader extends PrideDataReader {
         }
     }
 
-    private void readPeakIntensity(JSONObject json) throws JSONException {
+    @Override
+    protected void readPeakIntensity(JSONObject json) throws JSONException {
         List<PrideData> values = new ArrayList<PrideData>();
 
         JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
@@ -532,47 +503,7 @@ public class ElderJSONReader extends PrideDataReader {
     }
 
     @Override
-    protected void reading() {
-        try {
-            for (PrideChartType type : jsonMap.keySet()) {
-                if (errorMap.containsKey(type)) {
-                    continue;
-                }
-
-                switch (type) {
-                    case DELTA_MASS:
-                        readDelta(jsonMap.get(type));
-                        break;
-                    case PEPTIDES_PROTEIN:
-                        readPeptide(jsonMap.get(type));
-                        break;
-                    case MISSED_CLEAVAGES:
-                        readMissed(jsonMap.get(type));
-                        break;
-                    case AVERAGE_MS:
-                        readAvg(jsonMap.get(type));
-                        break;
-                    case PRECURSOR_CHARGE:
-                        readPreCharge(jsonMap.get(type));
-                        break;
-                    case PRECURSOR_MASSES:
-                        readPreMasses(jsonMap.get(type));
-                        break;
-                    case PEAKS_MS:
-                        readPeakMS(jsonMap.get(type));
-                        break;
-                    case PEAK_INTENSITY:
-                        readPeakIntensity(jsonMap.get(type));
-                        break;
-                }
-            }
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Override
-    protected void end() {
-        // do noting.
+    protected JSONObject parse(String text) throws JSONException {
+        return new JSONObject(text);
     }
 }
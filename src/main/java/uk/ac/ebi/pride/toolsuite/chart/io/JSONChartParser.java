@@ -0,0 +1,547 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.*;
+
+/**
+ * Parse the JSON of one chart, e.g. a line of the file read by {@link JSONReader}, in one pass over the
+ * characters. No {@link JSONObject} tree is built and the numbers of arrays are read straight into
+ * double arrays, so a series of thousands values costs one primitive array.
+ *
+ * The parser only handles strict JSON. Other text, e.g. the unquoted keys, single quotes or duplicate
+ * keys, is parsed again by {@link JSONObject}, so exactly the same text is accepted, with the same
+ * {@link JSONException} if it is not valid. The getters of {@link ChartObject} and {@link ChartArray}
+ * follow the conversions of JSONObject and JSONArray getters as well.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class JSONChartParser {
+
+    /**
+     * JSON object, the values are String, Number, Boolean, {@link JSONObject#NULL}, ChartObject or ChartArray.
+     */
+    static class ChartObject {
+        private Map<String, Object> fields = new HashMap<String, Object>();
+
+        boolean has(String key) {
+            return fields.containsKey(key);
+        }
+
+        private Object get(String key) throws JSONException {
+            Object value = fields.get(key);
+            if (value == null) {
+                throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] not found.");
+            }
+            return value;
+        }
+
+        ChartArray getArray(String key) throws JSONException {
+            Object value = get(key);
+            if (value instanceof ChartArray) {
+                return (ChartArray) value;
+            }
+            throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not a JSONArray.");
+        }
+
+        int getInt(String key) throws JSONException {
+            Object value = get(key);
+            try {
+                return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt((String) value);
+            } catch (Exception e) {
+                throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not an int.");
+            }
+        }
+
+        String getString(String key) throws JSONException {
+            Object value = get(key);
+            if (value instanceof String) {
+                return (String) value;
+            }
+            throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] not a string.");
+        }
+    }
+
+    /**
+     * JSON array, the numbers are kept in a double array, and the other values in an object array which is
+     * only created when the array has other values, e.g. bin labels or series.
+     */
+    static class ChartArray {
+        private double[] numbers = new double[16];
+        // null for the numbers.
+        private Object[] values;
+        private int size = 0;
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > numbers.length) {
+                numbers = Arrays.copyOf(numbers, numbers.length * 2);
+                if (values != null) {
+                    values = Arrays.copyOf(values, numbers.length);
+                }
+            }
+        }
+
+        private void addNumber(double number) {
+            ensureCapacity(size + 1);
+            numbers[size++] = number;
+        }
+
+        private void addValue(Object value) {
+            ensureCapacity(size + 1);
+            if (values == null) {
+                values = new Object[numbers.length];
+            }
+            values[size++] = value;
+        }
+
+        int length() {
+            return size;
+        }
+
+        private Object get(int index) throws JSONException {
+            if (index < 0 || index >= size) {
+                throw new JSONException("JSONArray[" + index + "] not found.");
+            }
+            return values == null ? null : values[index];
+        }
+
+        double getDouble(int index) throws JSONException {
+            Object value = get(index);
+            if (value == null) {
+                return numbers[index];
+            }
+            try {
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble((String) value);
+            } catch (Exception e) {
+                throw new JSONException("JSONArray[" + index + "] is not a number.");
+            }
+        }
+
+        int getInt(int index) throws JSONException {
+            Object value = get(index);
+            if (value == null) {
+                return (int) numbers[index];
+            }
+            try {
+                return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt((String) value);
+            } catch (Exception e) {
+                throw new JSONException("JSONArray[" + index + "] is not a number.");
+            }
+        }
+
+        String getString(int index) throws JSONException {
+            Object value = get(index);
+            if (value instanceof String) {
+                return (String) value;
+            }
+            throw new JSONException("JSONArray[" + index + "] not a string.");
+        }
+
+        ChartObject getObject(int index) throws JSONException {
+            Object value = get(index);
+            if (value instanceof ChartObject) {
+                return (ChartObject) value;
+            }
+            throw new JSONException("JSONArray[" + index + "] is not a JSONObject.");
+        }
+
+        double[] getDoubles() throws JSONException {
+            double[] doubles = new double[size];
+            if (values == null) {
+                System.arraycopy(numbers, 0, doubles, 0, size);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    doubles[i] = getDouble(i);
+                }
+            }
+            return doubles;
+        }
+
+        int[] getInts() throws JSONException {
+            int[] ints = new int[size];
+            for (int i = 0; i < size; i++) {
+                ints[i] = getInt(i);
+            }
+            return ints;
+        }
+    }
+
+    /**
+     * Thrown when the text is not strict JSON, which is parsed by JSONObject then. Without stack trace, it
+     * is only a signal.
+     */
+    private static class NotStrictException extends Exception {
+        private NotStrictException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final NotStrictException NOT_STRICT = new NotStrictException();
+
+    // the integers which has more digits may not fit an int, JSONObject keeps them as Long.
+    private static final int MAX_INT_DIGITS = 9;
+
+    private final String text;
+    private int pos = 0;
+
+    // whether the last number read by readDouble() is an integer, JSONObject reads it as Integer.
+    private boolean integer;
+
+    private JSONChartParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse the JSON object at the beginning of text, the characters after the object are ignored, same
+     * as {@link JSONObject#JSONObject(String)}.
+     */
+    static ChartObject parse(String text) throws JSONException {
+        try {
+            JSONChartParser parser = new JSONChartParser(text);
+            parser.skipWhitespace();
+            parser.expect('{');
+            return parser.readObject();
+        } catch (NotStrictException e) {
+            return convert(new JSONObject(text));
+        }
+    }
+
+    private char peek() throws NotStrictException {
+        if (pos >= text.length()) {
+            throw NOT_STRICT;
+        }
+        return text.charAt(pos);
+    }
+
+    private void expect(char c) throws NotStrictException {
+        if (peek() != c) {
+            throw NOT_STRICT;
+        }
+        pos++;
+    }
+
+    /**
+     * Same as JSONTokener, all characters up to space are whitespace, and the char 0 ends the text.
+     */
+    private void skipWhitespace() throws NotStrictException {
+        char c;
+        while (pos < text.length() && (c = text.charAt(pos)) <= ' ') {
+            if (c == 0) {
+                throw NOT_STRICT;
+            }
+            pos++;
+        }
+    }
+
+    private ChartObject readObject() throws NotStrictException {
+        ChartObject object = new ChartObject();
+
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return object;
+        }
+
+        String key;
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            key = readString();
+            if (object.fields.containsKey(key)) {
+                throw NOT_STRICT;
+            }
+
+            skipWhitespace();
+            expect(':');
+            object.fields.put(key, readValue());
+
+            skipWhitespace();
+            switch (peek()) {
+                case ',':
+                    pos++;
+                    break;
+                case '}':
+                    pos++;
+                    return object;
+                default:
+                    throw NOT_STRICT;
+            }
+        }
+    }
+
+    private ChartArray readArray() throws NotStrictException {
+        ChartArray array = new ChartArray();
+
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return array;
+        }
+
+        char c;
+        while (true) {
+            skipWhitespace();
+            c = peek();
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                array.addNumber(readDouble());
+            } else {
+                array.addValue(readValue());
+            }
+
+            skipWhitespace();
+            switch (peek()) {
+                case ',':
+                    pos++;
+                    break;
+                case ']':
+                    pos++;
+                    return array;
+                default:
+                    throw NOT_STRICT;
+            }
+        }
+    }
+
+    private Object readValue() throws NotStrictException {
+        skipWhitespace();
+        char c = peek();
+        switch (c) {
+            case '{':
+                pos++;
+                return readObject();
+            case '[':
+                pos++;
+                return readArray();
+            case '"':
+                pos++;
+                return readString();
+            case 't':
+                readLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                readLiteral("null");
+                return JSONObject.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    double number = readDouble();
+                    if (integer) {
+                        return (int) number;
+                    }
+                    return number;
+                }
+                throw NOT_STRICT;
+        }
+    }
+
+    private void readLiteral(String literal) throws NotStrictException {
+        if (! text.startsWith(literal, pos)) {
+            throw NOT_STRICT;
+        }
+        pos += literal.length();
+        checkDelimiter();
+    }
+
+    /**
+     * A number or literal should be followed by a delimiter, otherwise JSONObject reads it as a string.
+     */
+    private void checkDelimiter() throws NotStrictException {
+        if (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c > ' ' && c != ',' && c != ']' && c != '}') {
+                throw NOT_STRICT;
+            }
+        }
+    }
+
+    private int skipDigits() {
+        int start = pos;
+        char c;
+        while (pos < text.length() && (c = text.charAt(pos)) >= '0' && c <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    /**
+     * The integers are read without parsing the text again, only the decimals are parsed by Double.
+     */
+    private double readDouble() throws NotStrictException {
+        int start = pos;
+        boolean negative = false;
+        boolean decimal = false;
+
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        int digits;
+        if (peek() == '0') {
+            pos++;
+            digits = 1;
+        } else {
+            digits = skipDigits();
+            if (digits == 0) {
+                throw NOT_STRICT;
+            }
+        }
+        int end = pos;
+
+        if (pos < text.length() && text.charAt(pos) == '.') {
+            pos++;
+            if (skipDigits() == 0) {
+                throw NOT_STRICT;
+            }
+            decimal = true;
+        }
+        if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                pos++;
+            }
+            if (skipDigits() == 0) {
+                throw NOT_STRICT;
+            }
+            decimal = true;
+        }
+        checkDelimiter();
+
+        if (decimal) {
+            double value = Double.parseDouble(text.substring(start, pos));
+            if (Double.isInfinite(value)) {
+                throw NOT_STRICT;
+            }
+            integer = false;
+            return value;
+        }
+
+        if (digits > MAX_INT_DIGITS) {
+            throw NOT_STRICT;
+        }
+        int value = 0;
+        for (int i = end - digits; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        // JSONObject reads -0 as a double.
+        integer = ! (negative && value == 0);
+        return negative ? -(double) value : value;
+    }
+
+    /**
+     * Read the string after the opening quote.
+     */
+    private String readString() throws NotStrictException {
+        int start = pos;
+        char c;
+        while (true) {
+            c = peek();
+            if (c == '"') {
+                return text.substring(start, pos++);
+            }
+            if (c == '\\' || c < ' ') {
+                break;
+            }
+            pos++;
+        }
+
+        StringBuilder sb = new StringBuilder(text.substring(start, pos));
+        while (true) {
+            c = peek();
+            pos++;
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c < ' ') {
+                throw NOT_STRICT;
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+
+            c = peek();
+            pos++;
+            switch (c) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'u':
+                    sb.append(readUnicode());
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(c);
+                    break;
+                default:
+                    throw NOT_STRICT;
+            }
+        }
+    }
+
+    private char readUnicode() throws NotStrictException {
+        int code = 0;
+        int digit;
+        for (int i = 0; i < 4; i++) {
+            digit = Character.digit(peek(), 16);
+            if (digit < 0) {
+                throw NOT_STRICT;
+            }
+            code = code * 16 + digit;
+            pos++;
+        }
+        return (char) code;
+    }
+
+    private static ChartObject convert(JSONObject json) throws JSONException {
+        ChartObject object = new ChartObject();
+        Iterator<String> keys = json.keys();
+        String key;
+        while (keys.hasNext()) {
+            key = keys.next();
+            object.fields.put(key, convertValue(json.get(key)));
+        }
+        return object;
+    }
+
+    private static ChartArray convert(JSONArray json) throws JSONException {
+        ChartArray array = new ChartArray();
+        Object value;
+        for (int i = 0; i < json.length(); i++) {
+            value = json.get(i);
+            // Long and big numbers are kept as they are, which are converted to int in other way.
+            if (value instanceof Integer || value instanceof Double) {
+                array.addNumber(((Number) value).doubleValue());
+            } else {
+                array.addValue(convertValue(value));
+            }
+        }
+        return array;
+    }
+
+    private static Object convertValue(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return convert((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            return convert((JSONArray) value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,191 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.json.JSONException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The raw JSON of a chart line "id, json", which is read by {@link JSONReader} and {@link ElderJSONReader}.
+ * The payload of a file is kept as a byte range of the memory mapped file, and it is decoded into text
+ * only when the chart is read, so a chart which is never accessed is never parsed.
+ *
+ * The JSON ends at the next ", " of the line, the same as line.split(", ")[1].
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class JSONChartPayload {
+    private static final String SEPARATOR = ", ";
+    private static final String ERROR = "ErrorMessages";
+
+    private final String id;
+
+    // the text of a string line, or null if the payload is a range of mapped file.
+    private final String text;
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+    private final Charset charset;
+
+    private JSONChartPayload(String id, String text) {
+        this.id = id;
+        this.text = text;
+        this.buffer = null;
+        this.offset = 0;
+        this.length = text.length();
+        this.charset = null;
+    }
+
+    private JSONChartPayload(String id, ByteBuffer buffer, int offset, int length, Charset charset) {
+        this.id = id;
+        this.text = null;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    /**
+     * A payload which is not read from file, e.g. the JSON of one chart.
+     */
+    JSONChartPayload(String text) {
+        this(null, text);
+    }
+
+    /**
+     * @throws JSONException if the line has no chart JSON.
+     */
+    static JSONChartPayload parseLine(String line) throws JSONException {
+        int separator = line.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new JSONException("Chart JSON not found: " + line);
+        }
+
+        int start = separator + SEPARATOR.length();
+        int end = line.indexOf(SEPARATOR, start);
+        return new JSONChartPayload(line.substring(0, separator), line.substring(start, end < 0 ? line.length() : end));
+    }
+
+    /**
+     * Map the file into memory and add the payload of every line into the list. The lines are split the
+     * same as {@link BufferedReader#readLine()}, decoded in the default charset like {@link FileReader}.
+     *
+     * @throws JSONException if a line has no chart JSON, the payloads before the line are added.
+     */
+    static void readFile(File file, List<JSONChartPayload> payloads) throws IOException, JSONException {
+        Charset charset = Charset.defaultCharset();
+        if (! isAsciiCompatible(charset)) {
+            // the separators can not be found in bytes, read the lines as text.
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    payloads.add(parseLine(line));
+                }
+            } finally {
+                reader.close();
+            }
+            return;
+        }
+
+        ByteBuffer buffer;
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            // the mapping stays valid after the channel closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+
+        int limit = buffer.limit();
+        int start = 0;
+        int end;
+        while (start < limit) {
+            end = start;
+            while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+                end++;
+            }
+            payloads.add(parseLine(buffer, start, end, charset));
+
+            if (end + 1 < limit && buffer.get(end) == '\r' && buffer.get(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static JSONChartPayload parseLine(ByteBuffer buffer, int start, int end, Charset charset) throws JSONException {
+        int separator = indexOf(buffer, SEPARATOR, start, end);
+        if (separator < 0) {
+            throw new JSONException("Chart JSON not found: " + decode(buffer, start, end - start, charset));
+        }
+
+        int jsonStart = separator + SEPARATOR.length();
+        int jsonEnd = indexOf(buffer, SEPARATOR, jsonStart, end);
+        if (jsonEnd < 0) {
+            jsonEnd = end;
+        }
+        return new JSONChartPayload(decode(buffer, start, separator - start, charset),
+                buffer, jsonStart, jsonEnd - jsonStart, charset);
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        String sample = "\r\n, 0123456789-" + ERROR + "\\";
+        try {
+            return Arrays.equals(sample.getBytes(charset), sample.getBytes("US-ASCII"));
+        } catch (UnsupportedEncodingException e) {
+            return false;
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, String ascii, int start, int end) {
+        int last = end - ascii.length();
+        int j;
+        for (int i = start; i <= last; i++) {
+            for (j = 0; j < ascii.length() && buffer.get(i + j) == ascii.charAt(j); j++) {
+                // compare next byte.
+            }
+            if (j == ascii.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length, Charset charset) {
+        ByteBuffer range = buffer.duplicate();
+        range.limit(offset + length);
+        range.position(offset);
+        return charset.decode(range).toString();
+    }
+
+    /**
+     * @throws NumberFormatException if the chart id is not a number.
+     */
+    int getChartId() {
+        return Integer.parseInt(id);
+    }
+
+    /**
+     * Decode the JSON text, which is not cached.
+     */
+    String getText() {
+        return text != null ? text : decode(buffer, offset, length, charset);
+    }
+
+    /**
+     * Whether the JSON may carry error messages, which should be parsed when the file is read. The
+     * escaped text is always checked, because the key may be written in escapes.
+     */
+    boolean mayHaveError() {
+        if (text != null) {
+            return text.contains(ERROR) || text.indexOf('\\') >= 0;
+        }
+        return indexOf(buffer, ERROR, offset, offset + length) >= 0 || indexOf(buffer, "\\", offset, offset + length) >= 0;
+    }
+}
@@ -0,0 +1,203 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.apache.log4j.Logger;
+import org.json.JSONException;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramDataSource;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideXYDataSource;
+
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The base of JSON file readers, which keeps the raw JSON of every chart and decodes a chart on first
+ * access of the data source maps, see {@link LazyChartMap}. The error messages are checked when a chart
+ * is added, so the error map is complete after reading. The subclasses parse the JSON of their format and
+ * read the charts into data sources.
+ *
+ * @param <T> the parsed JSON of a chart.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+abstract class JSONChartReader<T> extends PrideDataReader {
+    private Logger logger = Logger.getLogger(getClass());
+
+    // the raw chart JSON, which is removed when the chart is decoded.
+    private SortedMap<PrideChartType, JSONChartPayload> payloadMap = new TreeMap<PrideChartType, JSONChartPayload>();
+
+    protected abstract T parse(String text) throws JSONException;
+
+    /**
+     * @throws PrideDataException with the error messages of chart, if the chart has them.
+     */
+    protected abstract void checkErrorMsg(T json) throws PrideDataException;
+
+    protected abstract void readDelta(T json) throws JSONException;
+
+    protected abstract void readPeptide(T json) throws JSONException;
+
+    protected abstract void readMissed(T json) throws JSONException;
+
+    protected abstract void readAvg(T json) throws JSONException;
+
+    protected abstract void readPreCharge(T json) throws JSONException;
+
+    protected abstract void readPreMasses(T json) throws JSONException;
+
+    protected abstract void readPeakMS(T json) throws JSONException;
+
+    protected abstract void readPeakIntensity(T json) throws JSONException;
+
+    /**
+     * Keep the raw JSON of chart, which is decoded on first access. Only the JSON which may carry error
+     * messages is parsed here, so the errors are known after reading.
+     */
+    protected void addChart(PrideChartType chartType, JSONChartPayload payload) {
+        if (payload.mayHaveError()) {
+            try {
+                checkErrorMsg(parse(payload.getText()));
+            } catch (PrideDataException e) {
+                errorMap.put(chartType, e);
+            } catch (JSONException e) {
+                logger.error(e.getMessage());
+                return;
+            }
+        }
+        payloadMap.put(chartType, payload);
+    }
+
+    @Override
+    protected void start() {
+        // do noting.
+    }
+
+    /**
+     * The charts are decoded on first access of the data source maps, see {@link #decodeChart(PrideChartType)}.
+     */
+    @Override
+    protected void reading() {
+        LazyChartMap<PrideXYDataSource> xyCharts = new LazyChartMap<PrideXYDataSource>(this) {
+            @Override
+            protected void decode(PrideChartType type) {
+                decodeChart(type);
+            }
+        };
+        LazyChartMap<PrideHistogramDataSource> histogramCharts = new LazyChartMap<PrideHistogramDataSource>(this) {
+            @Override
+            protected void decode(PrideChartType type) {
+                decodeChart(type);
+            }
+        };
+
+        Iterator<PrideChartType> it = payloadMap.keySet().iterator();
+        PrideChartType type;
+        while (it.hasNext()) {
+            type = it.next();
+            if (errorMap.containsKey(type)) {
+                it.remove();
+                continue;
+            }
+
+            switch (type) {
+                case DELTA_MASS:
+                case PEPTIDES_PROTEIN:
+                case MISSED_CLEAVAGES:
+                case PRECURSOR_CHARGE:
+                case PRECURSOR_MASSES:
+                    xyCharts.defer(type);
+                    break;
+                case AVERAGE_MS:
+                case PEAKS_MS:
+                case PEAK_INTENSITY:
+                    histogramCharts.defer(type);
+                    break;
+                default:
+                    it.remove();
+            }
+        }
+
+        xyDataSourceMap = xyCharts;
+        histogramDataSourceMap = histogramCharts;
+    }
+
+    /**
+     * Decode the chart into data source, the raw JSON is released after decoding. A chart which can not
+     * be decoded is left out of the data source maps.
+     */
+    private synchronized void decodeChart(PrideChartType type) {
+        JSONChartPayload payload = payloadMap.remove(type);
+        if (payload == null) {
+            return;
+        }
+
+        try {
+            T json = parse(payload.getText());
+            switch (type) {
+                case DELTA_MASS:
+                    readDelta(json);
+                    break;
+                case PEPTIDES_PROTEIN:
+                    readPeptide(json);
+                    break;
+                case MISSED_CLEAVAGES:
+                    readMissed(json);
+                    break;
+                case AVERAGE_MS:
+                    readAvg(json);
+                    break;
+                case PRECURSOR_CHARGE:
+                    readPreCharge(json);
+                    break;
+                case PRECURSOR_MASSES:
+                    readPreMasses(json);
+                    break;
+                case PEAKS_MS:
+                    readPeakMS(json);
+                    break;
+                case PEAK_INTENSITY:
+                    readPeakIntensity(json);
+                    break;
+            }
+        } catch (JSONException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the chart is kept as raw JSON, and not decoded yet.
+     */
+    synchronized boolean isDeferred(PrideChartType type) {
+        return payloadMap.containsKey(type);
+    }
+
+    /**
+     * The peptide size is read from delta m/z chart.
+     */
+    @Override
+    public int getPeptideSize() {
+        decodeChart(PrideChartType.DELTA_MASS);
+        return super.getPeptideSize();
+    }
+
+    /**
+     * The spectra sizes are read from precursor masses chart.
+     */
+    @Override
+    public int getIdentifiedSpectraSize() {
+        decodeChart(PrideChartType.PRECURSOR_MASSES);
+        return super.getIdentifiedSpectraSize();
+    }
+
+    @Override
+    public int getUnidentifiedSpectraSize() {
+        decodeChart(PrideChartType.PRECURSOR_MASSES);
+        return super.getUnidentifiedSpectraSize();
+    }
+
+    @Override
+    protected void end() {
+        // do noting.
+    }
+}
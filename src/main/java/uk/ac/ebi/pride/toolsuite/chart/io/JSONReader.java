@@ -1,11 +1,11 @@
 package uk.ac.ebi.pride.toolsuite.chart.io;
 
 import org.apache.log4j.Logger;
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
 import uk.ac.ebi.pride.toolsuite.chart.dataset.*;
+import uk.ac.ebi.pride.toolsuite.chart.io.JSONChartParser.ChartArray;
+import uk.ac.ebi.pride.toolsuite.chart.io.JSONChartParser.ChartObject;
 
 import java.io.*;
 import java.util.*;
@@ -13,14 +13,14 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * The new JSON file format reader.
+ * The new JSON file format reader. The charts are parsed by {@link JSONChartParser}, which reads the
+ * series into primitive arrays without JSONObject tree.
  *
  * @author qingwei
  * Date: 21/06/13
  */
-public class JSONReader extends PrideDataReader {
+public class JSONReader extends JSONChartReader<ChartObject> {
     Logger logger = Logger.getLogger(JSONReader.class);
-    private Map<PrideChartType, JSONObject> jsonMap = new TreeMap<PrideChartType, JSONObject>();
 
     private final String source = "JSON";
 
@@ -35,17 +35,7 @@ public class JSONReader extends PrideDataReader {
     private final String UNIDENTIFIED_FREQUENCY = "unidenFreq";
 
     public JSONReader(String jsonString, PrideChartType chartType) {
-        try {
-            JSONObject json = new JSONObject(jsonString);
-            try {
-                checkErrorMsg(json);
-            } catch (PrideDataException e) {
-                errorMap.put(chartType, e);
-            }
-            jsonMap.put(chartType, json);
-        } catch (JSONException e) {
-            logger.error(e.getMessage());
-        }
+        addChart(chartType, new JSONChartPayload(jsonString));
 
         readData();
     }
@@ -119,26 +109,9 @@ public class JSONReader extends PrideDataReader {
      * Reference testset directory json files.
      */
     public JSONReader(File jsonFile) {
+        List<JSONChartPayload> payloads = new ArrayList<JSONChartPayload>();
         try {
-            BufferedReader reader = new BufferedReader(new FileReader(jsonFile));
-
-            String line;
-            String[] items;
-            JSONObject json;
-            PrideChartType chartType;
-            while ((line = reader.readLine()) != null) {
-                items = line.split(", ");
-                json = new JSONObject(items[1]);
-                chartType = getChartType(Integer.parseInt(items[0]));
-                try {
-                    checkErrorMsg(json);
-                } catch (PrideDataException e) {
-                    errorMap.put(chartType, e);
-                }
-                jsonMap.put(chartType, json);
-            }
-
-            reader.close();
+            JSONChartPayload.readFile(jsonFile, payloads);
         } catch (FileNotFoundException e) {
             logger.error(e.getMessage());
         } catch (IOException e) {
@@ -147,6 +120,10 @@ public class JSONReader extends PrideDataReader {
             logger.error(e.getMessage());
         }
 
+        for (JSONChartPayload payload : payloads) {
+            addChart(getChartType(payload.getChartId()), payload);
+        }
+
         readData();
     }
 
@@ -158,19 +135,10 @@ public class JSONReader extends PrideDataReader {
      */
     public JSONReader(String[] jsonFileContent) {
         try {
-            String[] items;
-            JSONObject json;
-            PrideChartType chartType;
+            JSONChartPayload payload;
             for (String line : jsonFileContent) {
-                items = line.split(", ");
-                json = new JSONObject(items[1]);
-                chartType = getChartType(Integer.parseInt(items[0]));
-                try {
-                    checkErrorMsg(json);
-                } catch (PrideDataException e) {
-                    errorMap.put(chartType, e);
-                }
-                jsonMap.put(chartType, json);
+                payload = JSONChartPayload.parseLine(line);
+                addChart(getChartType(payload.getChartId()), payload);
             }
         } catch (JSONException e) {
             logger.error(e.getMessage());
@@ -180,14 +148,14 @@ public class JSONReader extends PrideDataReader {
     }
 
     @Override
-    protected void start() {
-        // do noting.
-    }
+    protected void checkErrorMsg(ChartObject object) throws PrideDataException {
+        if (! object.has(ERROR)) {
+            return;
+        }
 
-    private void checkErrorMsg(JSONObject object) throws PrideDataException {
         try {
             StringBuilder sb = new StringBuilder();
-            JSONArray msgList = object.getJSONArray(ERROR);
+            ChartArray msgList = object.getArray(ERROR);
             sb.append(msgList.getString(0));
             for (int i = 1; i < msgList.length(); i++) {
                 sb.append(ERROR_MSG_SPLIT_CHAR).append(msgList.getString(i));
@@ -199,261 +167,232 @@ public class JSONReader extends PrideDataReader {
         }
     }
 
-    private Double[] getDomainData(JSONArray array) throws JSONException {
-        List<Double> dataArray = new ArrayList<Double>();
+    private PrideDataColumns getRangeData(ChartArray array, PrideDataType dataType) throws JSONException {
+        PrideDataColumns columns = new PrideDataColumns(array.length());
         for (int i = 0; i < array.length(); i++) {
-            dataArray.add(array.getDouble(i));
+            columns.add(array.getDouble(i), dataType);
         }
 
-        return dataArray.toArray(new Double[dataArray.size()]);
+        return columns;
     }
 
-    private PrideData[] getRangeData(JSONArray array, PrideDataType dataType) throws JSONException {
-        List<PrideData> dataArray = new ArrayList<PrideData>();
-        PrideData data;
-        for (int i = 0; i < array.length(); i++) {
-            data = new PrideData(array.getDouble(i), dataType);
-            dataArray.add(data);
+    private PrideDataColumns getRangeData(double[] values, PrideDataType dataType) {
+        PrideDataColumns columns = new PrideDataColumns(values.length);
+        for (double value : values) {
+            columns.add(value, dataType);
         }
 
-        return dataArray.toArray(new PrideData[dataArray.size()]);
+        return columns;
     }
 
-    private void fillData(Double[] srcDomainData, PrideData[] srcRangeData,
-                          Double[] targetDomainData, PrideData[] targetRangeData) {
+    private void fillData(double[] srcDomainData, double[] srcRangeData,
+                          double[] targetDomainData, double[] targetRangeData) {
         for (int i = 0; i < targetDomainData.length - 1; i++) {
             for (int j = 0; j < srcDomainData.length; j++) {
-                if (srcDomainData[j].equals(targetDomainData[i])) {
+                if (Double.compare(srcDomainData[j], targetDomainData[i]) == 0) {
                     targetRangeData[i] = srcRangeData[j];
                     break;
                 }
             }
         }
 
-        Double lastDomainData = targetDomainData[targetDomainData.length - 1];
-        PrideData lastRangeData = targetRangeData[targetRangeData.length - 1];
+        double lastDomainData = targetDomainData[targetDomainData.length - 1];
+        int last = targetRangeData.length - 1;
         for (int i = 0; i < srcDomainData.length; i++) {
             if (srcDomainData[i] >= lastDomainData) {
-                lastRangeData.setData(lastRangeData.getData() + srcRangeData[i].getData());
+                targetRangeData[last] += srcRangeData[i];
             }
         }
     }
 
-    private void readDelta(JSONObject json) throws JSONException {
+    /**
+     * Put the series into the bars of domain values start, start + 1, ..., the values which exceed the
+     * last bar are summed into it.
+     */
+    private PrideXYDataSource createBars(ChartObject json, int barCount, double start, PrideDataType dataType) throws JSONException {
+        ChartObject series = json.getArray(SERIES).getObject(0);
+        double[] domainData = series.getArray(X_AXIS).getDoubles();
+        double[] rangeData = series.getArray(Y_AXIS).getDoubles();
+
+        double[] barDomainData = new double[barCount];
+        double[] barRangeData = new double[barCount];
+        for (int i = 0; i < barCount; i++) {
+            barDomainData[i] = i + start;
+        }
+        fillData(domainData, rangeData, barDomainData, barRangeData);
+
+        return new PrideXYDataSource(barDomainData, getRangeData(barRangeData, dataType), dataType);
+    }
+
+    @Override
+    protected void readDelta(ChartObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         peptideSize = json.getInt("sequenceNumber");
-        JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
-        Double[] domainData = getDomainData(series.getJSONArray(X_AXIS));
-        PrideData[] rangeData = getRangeData(series.getJSONArray(Y_AXIS), dataType);
+        ChartObject series = json.getArray(SERIES).getObject(0);
+        double[] domainData = series.getArray(X_AXIS).getDoubles();
+        PrideDataColumns rangeData = getRangeData(series.getArray(Y_AXIS), dataType);
         PrideXYDataSource dataSource = new PrideXYDataSource(domainData, rangeData, dataType);
         xyDataSourceMap.put(PrideChartType.DELTA_MASS, dataSource);
     }
 
-    private void readPeptide(JSONObject json) throws JSONException {
-        PrideDataType dataType = PrideDataType.ALL_SPECTRA;
-
-        JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
-        Double[] domainData = getDomainData(series.getJSONArray(X_AXIS));
-        PrideData[] rangeData = getRangeData(series.getJSONArray(Y_AXIS), dataType);
-
+    @Override
+    protected void readPeptide(ChartObject json) throws JSONException {
         // put data into six bars.
-        Double[] sixDomainData = new Double[6];
-        PrideData[] sixRangeData = new PrideData[6];
-        for (int i = 0; i < 6; i++) {
-            sixDomainData[i] = i + 1.0;
-            sixRangeData[i] = new PrideData(0.0, dataType);
-        }
-        fillData(domainData, rangeData, sixDomainData, sixRangeData);
-
-        PrideXYDataSource dataSource = new PrideXYDataSource(sixDomainData, sixRangeData, dataType);
+        PrideXYDataSource dataSource = createBars(json, 6, 1.0, PrideDataType.ALL_SPECTRA);
         xyDataSourceMap.put(PrideChartType.PEPTIDES_PROTEIN, dataSource);
     }
 
-    private void readMissed(JSONObject json) throws JSONException {
-        PrideDataType dataType = PrideDataType.ALL_SPECTRA;
-
-        JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
-        Double[] domainData = getDomainData(series.getJSONArray(X_AXIS));
-        PrideData[] rangeData = getRangeData(series.getJSONArray(Y_AXIS), dataType);
-
+    @Override
+    protected void readMissed(ChartObject json) throws JSONException {
         // put data into five bars.
-        Double[] fiveDomainData = new Double[5];
-        PrideData[] fiveRangeData = new PrideData[5];
-        for (int i = 0; i < 5; i++) {
-            fiveDomainData[i] = i + 0.0;
-            fiveRangeData[i] = new PrideData(0.0, dataType);
-        }
-        fillData(domainData, rangeData, fiveDomainData, fiveRangeData);
-
-        PrideXYDataSource dataSource = new PrideXYDataSource(fiveDomainData, fiveRangeData, dataType);
+        PrideXYDataSource dataSource = createBars(json, 5, 0.0, PrideDataType.ALL_SPECTRA);
         xyDataSourceMap.put(PrideChartType.MISSED_CLEAVAGES, dataSource);
     }
 
-    private void addPeaks(PrideSpectrumHistogramDataSource dataSource, List<Double> domainList, List<PrideData> rangeList) {
-        for (int i = 0; i < domainList.size(); i++) {
-            dataSource.addPeak(
-                    domainList.get(i),
-                    rangeList.get(i).getData(),
-                    rangeList.get(i).getType()
-            );
+    private void addPeaks(PrideSpectrumHistogramDataSource dataSource, double[] domainData, double[] rangeData, PrideDataType dataType) {
+        for (int i = 0; i < domainData.length; i++) {
+            dataSource.addPeak(domainData[i], rangeData[i], dataType);
         }
     }
 
-    private void readAvg(JSONObject json) throws JSONException {
+    private double[] getStartBoundaries(List<PrideHistogramBin> bins) {
+        double[] boundaries = new double[bins.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = bins.get(i).getStartBoundary();
+        }
+        return boundaries;
+    }
+
+    @Override
+    protected void readAvg(ChartObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
-        List<Double> domainDataList0 = new ArrayList<Double>();
-        List<PrideData> rangeDataList0 = new ArrayList<PrideData>();
-        JSONObject series0 = json.getJSONArray(SERIES).getJSONObject(0);
+        double[] domainData0 = new double[0];
+        double[] rangeData0 = new double[0];
+        ChartObject series0 = json.getArray(SERIES).getObject(0);
         PrideDataType type0 = PrideDataType.findBy(series0.getString(ID));
         if (series0.has(X_AXIS)) {
-            List<PrideHistogramBin> bins = parseBins(series0.getJSONArray(X_AXIS));
-            for (PrideHistogramBin bin : bins) {
-                domainDataList0.add(bin.getStartBoundary());
-            }
-
-            rangeDataList0.addAll(Arrays.asList(getRangeData(series0.getJSONArray(Y_AXIS), type0)));
+            domainData0 = getStartBoundaries(parseBins(series0.getArray(X_AXIS)));
+            rangeData0 = series0.getArray(Y_AXIS).getDoubles();
         }
 
-        List<Double> domainDataList1 = new ArrayList<Double>();
-        List<PrideData> rangeDataList1 = new ArrayList<PrideData>();
-        JSONObject series1 = json.getJSONArray(SERIES).getJSONObject(1);
+        double[] domainData1 = new double[0];
+        double[] rangeData1 = new double[0];
+        ChartObject series1 = json.getArray(SERIES).getObject(1);
         PrideDataType type1 = PrideDataType.findBy(series1.getString(ID));
         if (series1.has(X_AXIS)) {
-            List<PrideHistogramBin> bins = parseBins(series1.getJSONArray(X_AXIS));
-            for (PrideHistogramBin bin : bins) {
-                domainDataList1.add(bin.getStartBoundary());
-            }
-
-            rangeDataList1.addAll(Arrays.asList(getRangeData(series1.getJSONArray(Y_AXIS), type1)));
+            domainData1 = getStartBoundaries(parseBins(series1.getArray(X_AXIS)));
+            rangeData1 = series1.getArray(Y_AXIS).getDoubles();
         }
 
-        List<Double> domainDataList = new ArrayList<Double>();
-        List<PrideData> rangeDataList = new ArrayList<PrideData>();
-        if (! domainDataList0.isEmpty() && domainDataList1.isEmpty()) {
-            domainDataList.addAll(domainDataList0);
-
-            for (PrideData data : rangeDataList0) {
-                rangeDataList.add(new PrideData(data.getData(), dataType));
-            }
-        } else if (domainDataList0.isEmpty() && ! domainDataList1.isEmpty()) {
-            domainDataList.addAll(domainDataList1);
-
-            for (PrideData data : rangeDataList1) {
-                rangeDataList.add(new PrideData(data.getData(), dataType));
-            }
-        } else if (! domainDataList0.isEmpty() && ! domainDataList1.isEmpty()) {
-            int small = domainDataList0.size() < domainDataList1.size() ? domainDataList0.size() : domainDataList1.size();
+        double[] domainData = new double[0];
+        double[] rangeData = new double[0];
+        if (domainData0.length != 0 && domainData1.length == 0) {
+            domainData = domainData0;
+            rangeData = rangeData0;
+        } else if (domainData0.length == 0 && domainData1.length != 0) {
+            domainData = domainData1;
+            rangeData = rangeData1;
+        } else if (domainData0.length != 0 && domainData1.length != 0) {
+            int small = Math.min(domainData0.length, domainData1.length);
+            domainData = new double[Math.max(domainData0.length, domainData1.length)];
+            rangeData = new double[domainData.length];
 
             for (int i = 0; i < small; i++) {
-                domainDataList.add(domainDataList0.get(i));
-                rangeDataList.add(new PrideData(rangeDataList0.get(i).getData() + rangeDataList1.get(i).getData(), dataType));
+                domainData[i] = domainData0[i];
+                rangeData[i] = rangeData0[i] + rangeData1[i];
             }
 
-            if (domainDataList0.size() > small) {
-                for (int i = small; i < domainDataList0.size(); i++) {
-                    domainDataList.add(domainDataList0.get(i));
-                    rangeDataList.add(new PrideData(rangeDataList0.get(i).getData(), dataType));
+            if (domainData0.length > small) {
+                for (int i = small; i < domainData0.length; i++) {
+                    domainData[i] = domainData0[i];
+                    rangeData[i] = rangeData0[i];
                 }
             } else {
-                for (int i = small; i < domainDataList1.size(); i++) {
-                    domainDataList.add(domainDataList1.get(i));
-                    rangeDataList.add(new PrideData(rangeDataList1.get(i).getData(), dataType));
+                for (int i = small; i < domainData1.length; i++) {
+                    domainData[i] = domainData1[i];
+                    rangeData[i] = rangeData1[i];
                 }
             }
         }
 
         PrideSpectrumHistogramDataSource dataSource = new PrideSpectrumHistogramDataSource(false);
-        addPeaks(dataSource, domainDataList0, rangeDataList0);
-        addPeaks(dataSource, domainDataList1, rangeDataList1);
-        addPeaks(dataSource, domainDataList, rangeDataList);
+        addPeaks(dataSource, domainData0, rangeData0, type0);
+        addPeaks(dataSource, domainData1, rangeData1, type1);
+        addPeaks(dataSource, domainData, rangeData, dataType);
 
         dataSource.appendBins(dataSource.generateBins(0, 1));
         histogramDataSourceMap.put(PrideChartType.AVERAGE_MS, dataSource);
     }
 
-    private void readPreCharge(JSONObject json) throws JSONException {
-        PrideDataType dataType = PrideDataType.IDENTIFIED_SPECTRA;
-
-        JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
-        Double[] domainData = getDomainData(series.getJSONArray(X_AXIS));
-        PrideData[] rangeData = getRangeData(series.getJSONArray(Y_AXIS), dataType);
-
+    @Override
+    protected void readPreCharge(ChartObject json) throws JSONException {
         // put data into 8 bars
-        Double[] eightDomainData = new Double[8];
-        PrideData[] eightRangeData = new PrideData[8];
-        for (int i = 0; i < 8; i++) {
-            eightDomainData[i] = i + 1.0;
-            eightRangeData[i] = new PrideData(0.0, dataType);
-        }
-        fillData(domainData, rangeData, eightDomainData, eightRangeData);
-
-        PrideXYDataSource dataSource = new PrideXYDataSource(eightDomainData, eightRangeData, dataType);
+        PrideXYDataSource dataSource = createBars(json, 8, 1.0, PrideDataType.IDENTIFIED_SPECTRA);
         xyDataSourceMap.put(PrideChartType.PRECURSOR_CHARGE, dataSource);
     }
 
-    private void readPreMasses(JSONObject json) throws JSONException {
+    @Override
+    protected void readPreMasses(ChartObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
         identifiedSpectraSize = json.getInt(IDENTIFIED_FREQUENCY);
         unidentifiedSpectraSize = json.getInt(UNIDENTIFIED_FREQUENCY);
 
-        List<Double> domainDataList0 = new ArrayList<Double>();
-        List<PrideData> rangeDataList0 = new ArrayList<PrideData>();
-        JSONObject series0 = json.getJSONArray(SERIES).getJSONObject(0);
+        double[] domainData0 = new double[0];
+        PrideDataColumns rangeData0 = new PrideDataColumns(0);
+        ChartObject series0 = json.getArray(SERIES).getObject(0);
         PrideDataType type0 = PrideDataType.findBy(series0.getString(ID));
         if (series0.has(X_AXIS)) {
-            domainDataList0.addAll(Arrays.asList(getDomainData(series0.getJSONArray(X_AXIS))));
-            rangeDataList0.addAll(Arrays.asList(getRangeData(series0.getJSONArray(Y_AXIS), type0)));
+            domainData0 = series0.getArray(X_AXIS).getDoubles();
+            rangeData0 = getRangeData(series0.getArray(Y_AXIS), type0);
         }
 
-        List<Double> domainDataList1 = new ArrayList<Double>();
-        List<PrideData> rangeDataList1 = new ArrayList<PrideData>();
-        JSONObject series1 = json.getJSONArray(SERIES).getJSONObject(1);
+        double[] domainData1 = new double[0];
+        PrideDataColumns rangeData1 = new PrideDataColumns(0);
+        ChartObject series1 = json.getArray(SERIES).getObject(1);
         PrideDataType type1 = PrideDataType.findBy(series1.getString(ID));
         if (series1.has(X_AXIS)) {
-            domainDataList1.addAll(Arrays.asList(getDomainData(series1.getJSONArray(X_AXIS))));
-            rangeDataList1.addAll(Arrays.asList(getRangeData(series1.getJSONArray(Y_AXIS), type1)));
+            domainData1 = series1.getArray(X_AXIS).getDoubles();
+            rangeData1 = getRangeData(series1.getArray(Y_AXIS), type1);
         }
 
-        List<Double> domainDataList = new ArrayList<Double>();
-        List<PrideData> rangeDataList = new ArrayList<PrideData>();
-        if (! domainDataList0.isEmpty() && domainDataList1.isEmpty()) {
-            domainDataList.addAll(Arrays.asList(getDomainData(series0.getJSONArray(X_AXIS))));
-            rangeDataList.addAll(Arrays.asList(getRangeData(series0.getJSONArray(Y_AXIS), dataType)));
-        } else if (domainDataList0.isEmpty() && ! domainDataList1.isEmpty()) {
-            domainDataList.addAll(Arrays.asList(getDomainData(series1.getJSONArray(X_AXIS))));
-            rangeDataList.addAll(Arrays.asList(getRangeData(series1.getJSONArray(Y_AXIS), dataType)));
-        } else if (! domainDataList0.isEmpty() && ! domainDataList1.isEmpty()) {
-            int max = Math.max(domainDataList0.size(), domainDataList1.size());
+        double[] domainData = new double[0];
+        PrideDataColumns rangeData = new PrideDataColumns(0);
+        if (domainData0.length != 0 && domainData1.length == 0) {
+            domainData = domainData0;
+            rangeData = getRangeData(series0.getArray(Y_AXIS), dataType);
+        } else if (domainData0.length == 0 && domainData1.length != 0) {
+            domainData = domainData1;
+            rangeData = getRangeData(series1.getArray(Y_AXIS), dataType);
+        } else if (domainData0.length != 0 && domainData1.length != 0) {
+            int max = Math.max(domainData0.length, domainData1.length);
+            domainData = new double[max];
+            rangeData = new PrideDataColumns(max);
             double identified;
             double unidentified;
-            double offset;
             for (int i = 0; i < max; i++) {
-                identified = i < rangeDataList0.size() ? rangeDataList0.get(i).getData() : 0.0;
-                unidentified = i < rangeDataList1.size() ? rangeDataList1.get(i).getData() : 0.0;
+                identified = i < rangeData0.size() ? rangeData0.getValue(i) : 0.0;
+                unidentified = i < rangeData1.size() ? rangeData1.getValue(i) : 0.0;
 
-                offset = i < domainDataList0.size() ? domainDataList0.get(i) : domainDataList1.get(i);
-                domainDataList.add(offset);
-                rangeDataList.add(new PrideData(
+                domainData[i] = i < domainData0.length ? domainData0[i] : domainData1[i];
+                rangeData.add(
                         (identified * identifiedSpectraSize  + unidentified * unidentifiedSpectraSize) / (identifiedSpectraSize + unidentifiedSpectraSize),
                         dataType
-                ));
+                );
             }
         }
 
-        List<Double> totalDomainDataList = new ArrayList<Double>();
-        List<PrideData> totalRangeDataList = new ArrayList<PrideData>();
-        totalDomainDataList.addAll(domainDataList0);
-        totalDomainDataList.addAll(domainDataList1);
-        totalDomainDataList.addAll(domainDataList);
-        totalRangeDataList.addAll(rangeDataList0);
-        totalRangeDataList.addAll(rangeDataList1);
-        totalRangeDataList.addAll(rangeDataList);
-        Double[] domainData = totalDomainDataList.toArray(new Double[totalDomainDataList.size()]);
-        PrideData[] rangeData = totalRangeDataList.toArray(new PrideData[totalRangeDataList.size()]);
-        PrideXYDataSource dataSource = new PrideXYDataSource(domainData, rangeData, dataType);
+        double[] totalDomainData = new double[domainData0.length + domainData1.length + domainData.length];
+        System.arraycopy(domainData0, 0, totalDomainData, 0, domainData0.length);
+        System.arraycopy(domainData1, 0, totalDomainData, domainData0.length, domainData1.length);
+        System.arraycopy(domainData, 0, totalDomainData, domainData0.length + domainData1.length, domainData.length);
+        PrideDataColumns totalRangeData = new PrideDataColumns(rangeData0.size() + rangeData1.size() + rangeData.size());
+        totalRangeData.addAll(rangeData0);
+        totalRangeData.addAll(rangeData1);
+        totalRangeData.addAll(rangeData);
+        PrideXYDataSource dataSource = new PrideXYDataSource(totalDomainData, totalRangeData, dataType);
         xyDataSourceMap.put(PrideChartType.PRECURSOR_MASSES, dataSource);
     }
 
@@ -471,7 +410,7 @@ public class JSONReader extends PrideDataReader {
         return null;
     }
 
-    private List<PrideHistogramBin> parseBins(JSONArray array) throws JSONException {
+    private List<PrideHistogramBin> parseBins(ChartArray array) throws JSONException {
         List<PrideHistogramBin> bins = new ArrayList<PrideHistogramBin>();
 
         String binLabel;
@@ -487,72 +426,58 @@ public class JSONReader extends PrideDataReader {
         return bins;
     }
 
-    private List<Integer> parseCounts(JSONArray array) throws JSONException {
-        List<Integer> countList = new ArrayList<Integer>();
-
-        for (int i = 0; i < array.length(); i++) {
-            countList.add(array.getInt(i));
-        }
-
-        return countList;
-    }
-
-    private void readPeakMS(JSONObject json) throws JSONException {
+    @Override
+    protected void readPeakMS(ChartObject json) throws JSONException {
         PrideDataType dataType = PrideDataType.ALL_SPECTRA;
 
-        JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
-        List<PrideHistogramBin> bins = parseBins(series.getJSONArray(X_AXIS));
-        List<Integer> countList = parseCounts(series.getJSONArray(Y_AXIS));
+        ChartObject series = json.getArray(SERIES).getObject(0);
+        List<PrideHistogramBin> bins = parseBins(series.getArray(X_AXIS));
+        int[] counts = series.getArray(Y_AXIS).getInts();
 
-        List<PrideData> values = new ArrayList<PrideData>();
-        int count;
-        for (int i = 0; i < countList.size(); i++) {
-            count = countList.get(i);
-            for (int j = 0; j < count; j++) {
-                values.add(new PrideData(bins.get(i).getStartBoundary() + 0.0d, dataType));
-            }
-        }
+        PrideDataColumns values = new PrideDataColumns();
+        addSeries(values, bins, counts, dataType);
 
-        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(values.toArray(new PrideData[values.size()]), false, false);
+        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(values, false, false);
         for (PrideHistogramBin bin : bins) {
             dataSource.appendBin(bin);
         }
         histogramDataSourceMap.put(PrideChartType.PEAKS_MS, dataSource);
     }
 
-    private void addSeries(List<PrideData> values, List<PrideHistogramBin> bins, List<Integer> countList, PrideDataType type) throws JSONException {
+    private void addSeries(PrideDataColumns values, List<PrideHistogramBin> bins, int[] counts, PrideDataType type) {
         int count;
-        for (int i = 0; i < countList.size(); i++) {
-            count = countList.get(i);
+        for (int i = 0; i < counts.length; i++) {
+            count = counts[i];
             for (int j = 0; j < count; j++) {
-                values.add(new PrideData(bins.get(i).getStartBoundary() + 0.0d, type));
+                values.add(bins.get(i).getStartBoundary() + 0.0d, type);
             }
         }
     }
 
-    private void readPeakIntensity(JSONObject json) throws JSONException {
-        List<PrideData> values = new ArrayList<PrideData>();
+    @Override
+    protected void readPeakIntensity(ChartObject json) throws JSONException {
+        PrideDataColumns values = new PrideDataColumns();
 
         List<PrideHistogramBin> bins = null;
-        List<Integer> countList;
+        int[] counts;
 
-        JSONObject series = json.getJSONArray(SERIES).getJSONObject(0);
+        ChartObject series = json.getArray(SERIES).getObject(0);
         PrideDataType type = PrideDataType.findBy(series.getString(ID));
         if (series.has(X_AXIS)) {
-            bins = parseBins(series.getJSONArray(X_AXIS));
-            countList = parseCounts(series.getJSONArray(Y_AXIS));
-            addSeries(values, bins, countList, type);
+            bins = parseBins(series.getArray(X_AXIS));
+            counts = series.getArray(Y_AXIS).getInts();
+            addSeries(values, bins, counts, type);
         }
 
-        series = json.getJSONArray(SERIES).getJSONObject(1);
+        series = json.getArray(SERIES).getObject(1);
         type = PrideDataType.findBy(series.getString(ID));
         if (series.has(X_AXIS)) {
-            bins = parseBins(series.getJSONArray(X_AXIS));
-            countList = parseCounts(series.getJSONArray(Y_AXIS));
-            addSeries(values, bins, countList, type);
+            bins = parseBins(series.getArray(X_AXIS));
+            counts = series.getArray(Y_AXIS).getInts();
+            addSeries(values, bins, counts, type);
         }
 
-        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(values.toArray(new PrideData[values.size()]), true, false);
+        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(values, true, false);
         if (bins != null) {
             for (PrideHistogramBin bin : bins) {
                 dataSource.appendBin(bin);
@@ -563,47 +488,7 @@ public class JSONReader extends PrideDataReader {
     }
 
     @Override
-    protected void reading() {
-        try {
-            for (PrideChartType type : jsonMap.keySet()) {
-                if (errorMap.containsKey(type)) {
-                    continue;
-                }
-
-                switch (type) {
-                    case DELTA_MASS:
-                        readDelta(jsonMap.get(type));
-                        break;
-                    case PEPTIDES_PROTEIN:
-                        readPeptide(jsonMap.get(type));
-                        break;
-                    case MISSED_CLEAVAGES:
-                        readMissed(jsonMap.get(type));
-                        break;
-                    case AVERAGE_MS:
-                        readAvg(jsonMap.get(type));
-                        break;
-                    case PRECURSOR_CHARGE:
-                        readPreCharge(jsonMap.get(type));
-                        break;
-                    case PRECURSOR_MASSES:
-                        readPreMasses(jsonMap.get(type));
-                        break;
-                    case PEAKS_MS:
-                        readPeakMS(jsonMap.get(type));
-                        break;
-                    case PEAK_INTENSITY:
-                        readPeakIntensity(jsonMap.get(type));
-                        break;
-                }
-            }
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Override
-    protected void end() {
-        // do noting.
+    protected ChartObject parse(String text) throws JSONException {
+        return JSONChartParser.parse(text);
     }
 }
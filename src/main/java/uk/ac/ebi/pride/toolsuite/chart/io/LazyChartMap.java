@@ -0,0 +1,184 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+
+import java.util.*;
+
+/**
+ * The data source map of a reader, which decodes a chart on the first access of its key. The deferred
+ * charts are decoded by {@link #decode(PrideChartType)}, which puts the data source into this map, and
+ * the decoded data sources are kept. A query of one key, e.g. get or containsKey, only decodes that
+ * chart, the other queries, e.g. size, entrySet or firstKey, decode all deferred charts.
+ *
+ * The map is synchronized on the lock of reader, the returned views are not.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+abstract class LazyChartMap<V> extends AbstractMap<PrideChartType, V> implements SortedMap<PrideChartType, V> {
+    private final Object lock;
+    private final SortedMap<PrideChartType, V> decodedMap = new TreeMap<PrideChartType, V>();
+    private final Set<PrideChartType> deferredTypes = EnumSet.noneOf(PrideChartType.class);
+
+    LazyChartMap(Object lock) {
+        this.lock = lock;
+    }
+
+    void defer(PrideChartType type) {
+        synchronized (lock) {
+            deferredTypes.add(type);
+        }
+    }
+
+    /**
+     * Decode the chart, and put its data source into this map. If the chart can not be decoded, nothing
+     * is put, and the chart is not decoded again.
+     */
+    protected abstract void decode(PrideChartType type);
+
+    private void decodeKey(Object key) {
+        if (key instanceof PrideChartType && deferredTypes.remove(key)) {
+            decode((PrideChartType) key);
+        }
+    }
+
+    private void decodeAll() {
+        while (! deferredTypes.isEmpty()) {
+            decodeKey(deferredTypes.iterator().next());
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        synchronized (lock) {
+            decodeKey(key);
+            return decodedMap.get(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        synchronized (lock) {
+            decodeKey(key);
+            return decodedMap.containsKey(key);
+        }
+    }
+
+    @Override
+    public V put(PrideChartType key, V value) {
+        synchronized (lock) {
+            // the value replaces the chart which is not decoded yet.
+            deferredTypes.remove(key);
+            return decodedMap.put(key, value);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        synchronized (lock) {
+            decodeKey(key);
+            return decodedMap.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            deferredTypes.clear();
+            decodedMap.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.containsValue(value);
+        }
+    }
+
+    @Override
+    public Set<PrideChartType> keySet() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.keySet();
+        }
+    }
+
+    @Override
+    public Collection<V> values() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.values();
+        }
+    }
+
+    @Override
+    public Set<Entry<PrideChartType, V>> entrySet() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.entrySet();
+        }
+    }
+
+    @Override
+    public Comparator<? super PrideChartType> comparator() {
+        return decodedMap.comparator();
+    }
+
+    @Override
+    public SortedMap<PrideChartType, V> subMap(PrideChartType fromKey, PrideChartType toKey) {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.subMap(fromKey, toKey);
+        }
+    }
+
+    @Override
+    public SortedMap<PrideChartType, V> headMap(PrideChartType toKey) {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.headMap(toKey);
+        }
+    }
+
+    @Override
+    public SortedMap<PrideChartType, V> tailMap(PrideChartType fromKey) {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.tailMap(fromKey);
+        }
+    }
+
+    @Override
+    public PrideChartType firstKey() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.firstKey();
+        }
+    }
+
+    @Override
+    public PrideChartType lastKey() {
+        synchronized (lock) {
+            decodeAll();
+            return decodedMap.lastKey();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of calculation results, which counts the hits and misses. The cache
+ * can be shared by threads, the calculation itself runs outside the lock, so two threads may calculate
+ * the same key at the same time, which gets the same result.
+ *
+ * Null is not a valid value, get returns null when the key is missed.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class MemoCache<K, V> {
+    private final LinkedHashMap<K, V> map;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    MemoCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size should be great than 0");
+        }
+
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return value;
+    }
+
+    synchronized void put(K key, V value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "hits " + hitCount + ", misses " + missCount + ", size " + map.size();
+    }
+}
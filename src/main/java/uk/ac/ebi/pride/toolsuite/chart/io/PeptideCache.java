@@ -0,0 +1,131 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.utilities.mol.MoleculeUtilities;
+import uk.ac.ebi.pride.utilities.mol.NuclearParticle;
+
+import java.util.List;
+
+/**
+ * Calculate the missed cleavages and delta m/z of peptide spectrum matches for {@link DataAccessReader}.
+ * The values which only depend on the peptide are cached, because the same peptides repeat over proteins:
+ * the missed cleavages by sequence, and the theoretical mass by sequence and modification mass deltas. The
+ * delta m/z is calculated from the theoretical mass for every match, because the precursor differs.
+ *
+ * With cache size 0, the values are calculated by {@link MoleculeUtilities} directly. The caches can be
+ * shared by the protein shards.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class PeptideCache {
+    // sequence --> missed cleavages, null if the cache is disabled.
+    private final MemoCache<String, Integer> missedCleavagesCache;
+    // sequence and modification deltas --> theoretical mass, null if the cache is disabled.
+    private final MemoCache<MassKey, Double> massCache;
+
+    /**
+     * The key of theoretical mass cache.
+     */
+    private static class MassKey {
+        private final String sequence;
+        private final List<Double> modMassDeltas;
+
+        private MassKey(String sequence, List<Double> modMassDeltas) {
+            this.sequence = sequence;
+            this.modMassDeltas = modMassDeltas;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MassKey)) return false;
+
+            MassKey that = (MassKey) o;
+            return sequence.equals(that.sequence) && modMassDeltas.equals(that.modMassDeltas);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sequence.hashCode() + modMassDeltas.hashCode();
+        }
+    }
+
+    PeptideCache(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size should not be less than 0");
+        }
+
+        if (cacheSize > 0) {
+            missedCleavagesCache = new MemoCache<String, Integer>(cacheSize);
+            massCache = new MemoCache<MassKey, Double>(cacheSize);
+        } else {
+            missedCleavagesCache = null;
+            massCache = null;
+        }
+    }
+
+    int calcMissedCleavages(String sequence) {
+        if (missedCleavagesCache == null) {
+            return MoleculeUtilities.calcMissedCleavages(sequence);
+        }
+
+        Integer missedCleavages = missedCleavagesCache.get(sequence);
+        if (missedCleavages == null) {
+            missedCleavages = MoleculeUtilities.calcMissedCleavages(sequence);
+            missedCleavagesCache.put(sequence, missedCleavages);
+        }
+        return missedCleavages;
+    }
+
+    /**
+     * The same as {@link MoleculeUtilities#calculateDeltaMz(String, double, int, List)}, experimental m/z minus
+     * theoretical m/z, or null if the charge is 0 or the sequence is null.
+     */
+    Double calcDeltaMz(String sequence, Double precursorMz, Integer precursorCharge, List<Double> modMassDeltas) {
+        if (massCache == null) {
+            return MoleculeUtilities.calculateDeltaMz(sequence, precursorMz, precursorCharge, modMassDeltas);
+        }
+
+        double mz = precursorMz;
+        int charge = precursorCharge;
+        if (charge == 0 || sequence == null) {
+            return null;
+        }
+        return mz - (getTheoreticalMass(sequence, modMassDeltas) + charge * NuclearParticle.PROTON.getMonoMass()) / charge;
+    }
+
+    private double getTheoreticalMass(String sequence, List<Double> modMassDeltas) {
+        MassKey key = new MassKey(sequence, modMassDeltas);
+        Double mass = massCache.get(key);
+        if (mass == null) {
+            double[] deltas = new double[modMassDeltas.size()];
+            for (int i = 0; i < deltas.length; i++) {
+                deltas[i] = modMassDeltas.get(i);
+            }
+            mass = MoleculeUtilities.calculateTheoreticalMass(sequence, deltas);
+            massCache.put(key, mass);
+        }
+        return mass;
+    }
+
+    long getMissedCleavagesHitCount() {
+        return missedCleavagesCache == null ? 0 : missedCleavagesCache.getHitCount();
+    }
+
+    long getMissedCleavagesMissCount() {
+        return missedCleavagesCache == null ? 0 : missedCleavagesCache.getMissCount();
+    }
+
+    long getMassHitCount() {
+        return massCache == null ? 0 : massCache.getHitCount();
+    }
+
+    long getMassMissCount() {
+        return massCache == null ? 0 : massCache.getMissCount();
+    }
+
+    @Override
+    public String toString() {
+        return "missed cleavages cache: " + missedCleavagesCache + "; theoretical mass cache: " + massCache;
+    }
+}
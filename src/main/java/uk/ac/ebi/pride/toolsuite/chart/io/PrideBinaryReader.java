@@ -0,0 +1,538 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.apache.log4j.Logger;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Read the binary QC format written by {@link PrideBinaryWriter}. The file is memory mapped, the header,
+ * sizes and error messages are read at once, and every chart section is decoded on the first access of
+ * its data source, see {@link LazyChartMap}. The charts and data types which are unknown by current
+ * version are skipped.
+ *
+ * The histograms are restored from their bins and counts, so {@link PrideHistogramDataSource#getValues()}
+ * is empty, the same as the data sources after merging.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideBinaryReader extends PrideDataReader {
+    private Logger logger = Logger.getLogger(PrideBinaryReader.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // the generated bins are not limited by the section size, this is more than the fine m/z bins of
+    // a full MS/MS range.
+    static final int MAX_GENERATED_BIN_COUNT = 1 << 24;
+
+    /**
+     * The bins of a section. The explicit bins are read at once, their count is limited by the section. The
+     * generated bins are only a start and a width, they are created by {@link #createBins(int)} after
+     * their count is checked.
+     */
+    private static class BinLayout {
+        private int count;
+        private boolean generated;
+        private double start;
+        private double binWidth;
+        private double[] starts;
+        private double[] ends;
+
+        /**
+         * @param maxCount the max count of generated bins.
+         */
+        private List<PrideHistogramBin> createBins(int maxCount) {
+            List<PrideHistogramBin> bins = new ArrayList<PrideHistogramBin>();
+            if (! generated) {
+                for (int i = 0; i < count; i++) {
+                    bins.add(new PrideHistogramBin(starts[i], ends[i]));
+                }
+                return bins;
+            }
+
+            if (count > Math.min(maxCount, MAX_GENERATED_BIN_COUNT)) {
+                throw new IllegalArgumentException("Invalid count " + count);
+            }
+            // the same additions as PrideEqualWidthHistogramDataSource.generateBins.
+            double lowerBound = start;
+            double higherBound;
+            for (int i = 0; i < count; i++) {
+                higherBound = lowerBound + binWidth;
+                bins.add(new PrideHistogramBin(lowerBound, higherBound));
+                lowerBound = higherBound;
+            }
+            return bins;
+        }
+    }
+
+    /**
+     * The kind and position of a chart section in buffer.
+     */
+    private static class Section {
+        private final int kind;
+        private final int position;
+        private final int length;
+
+        private Section(int kind, int position, int length) {
+            this.kind = kind;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    private ByteBuffer buffer;
+
+    // the data type of every mask bit in file.
+    private PrideDataType[] fileTypes;
+
+    // the sections which are removed when the chart is decoded.
+    private SortedMap<PrideChartType, Section> xySectionMap = new TreeMap<PrideChartType, Section>();
+    private SortedMap<PrideChartType, Section> histogramSectionMap = new TreeMap<PrideChartType, Section>();
+
+    public PrideBinaryReader(File file) {
+        try {
+            FileChannel channel = new FileInputStream(file).getChannel();
+            try {
+                // the mapping stays valid after the channel closed.
+                init(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                channel.close();
+            }
+        } catch (FileNotFoundException e) {
+            logger.error(e.getMessage());
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+        } catch (PrideDataException e) {
+            logger.error(e.getMessage());
+        }
+
+        readData();
+    }
+
+    public PrideBinaryReader(byte[] content) {
+        try {
+            init(ByteBuffer.wrap(content));
+        } catch (PrideDataException e) {
+            logger.error(e.getMessage());
+        }
+
+        readData();
+    }
+
+    /**
+     * Read the header and locate the chart sections, the sections located before an error are kept.
+     */
+    private void init(ByteBuffer buffer) throws PrideDataException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt() != PrideBinaryWriter.MAGIC) {
+                throw new PrideDataException("Not a PRIDE QC binary file.");
+            }
+            int version = buffer.get();
+            if (version != PrideBinaryWriter.VERSION) {
+                throw new PrideDataException("Unsupported PRIDE QC binary version " + version);
+            }
+
+            peptideSize = readVarint(buffer);
+            identifiedSpectraSize = readVarint(buffer);
+            unidentifiedSpectraSize = readVarint(buffer);
+
+            fileTypes = new PrideDataType[readCount(buffer)];
+            for (int i = 0; i < fileTypes.length; i++) {
+                fileTypes[i] = findDataType(readVarint(buffer));
+            }
+
+            int errorCount = readCount(buffer);
+            PrideChartType chartType;
+            String message;
+            for (int i = 0; i < errorCount; i++) {
+                chartType = findChartType(readString(buffer));
+                message = readString(buffer);
+                if (chartType != null) {
+                    errorMap.put(chartType, new PrideDataException(message));
+                }
+            }
+
+            int chartCount = readCount(buffer);
+            int kind;
+            int length;
+            for (int i = 0; i < chartCount; i++) {
+                kind = buffer.get();
+                chartType = findChartType(readString(buffer));
+                length = readCount(buffer);
+                if (chartType != null) {
+                    switch (kind) {
+                        case PrideBinaryWriter.XY_SECTION:
+                            xySectionMap.put(chartType, new Section(kind, buffer.position(), length));
+                            break;
+                        case PrideBinaryWriter.HISTOGRAM_SECTION:
+                        case PrideBinaryWriter.EQUAL_WIDTH_SECTION:
+                        case PrideBinaryWriter.SPECTRUM_SECTION:
+                            histogramSectionMap.put(chartType, new Section(kind, buffer.position(), length));
+                            break;
+                    }
+                }
+                buffer.position(buffer.position() + length);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new PrideDataException("Unexpected end of PRIDE QC binary file.", e);
+        } catch (IllegalArgumentException e) {
+            throw new PrideDataException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void start() {
+        // do nothing.
+    }
+
+    /**
+     * The charts are decoded on first access of the data source maps, see {@link #decodeChart(PrideChartType, Map)}.
+     */
+    @Override
+    protected void reading() {
+        LazyChartMap<PrideXYDataSource> xyCharts = new LazyChartMap<PrideXYDataSource>(this) {
+            @Override
+            protected void decode(PrideChartType type) {
+                decodeChart(type, xySectionMap);
+            }
+        };
+        LazyChartMap<PrideHistogramDataSource> histogramCharts = new LazyChartMap<PrideHistogramDataSource>(this) {
+            @Override
+            protected void decode(PrideChartType type) {
+                decodeChart(type, histogramSectionMap);
+            }
+        };
+
+        for (PrideChartType type : xySectionMap.keySet()) {
+            xyCharts.defer(type);
+        }
+        for (PrideChartType type : histogramSectionMap.keySet()) {
+            histogramCharts.defer(type);
+        }
+
+        xyDataSourceMap = xyCharts;
+        histogramDataSourceMap = histogramCharts;
+    }
+
+    @Override
+    protected void end() {
+        // do nothing.
+    }
+
+    /**
+     * Decode the section of chart into data source. A chart which can not be decoded is left out of the
+     * data source maps.
+     */
+    private synchronized void decodeChart(PrideChartType type, Map<PrideChartType, Section> sectionMap) {
+        Section section = sectionMap.remove(type);
+        if (section == null) {
+            return;
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        in.limit(section.position + section.length);
+        in.position(section.position);
+        try {
+            switch (section.kind) {
+                case PrideBinaryWriter.XY_SECTION:
+                    xyDataSourceMap.put(type, readXY(in));
+                    break;
+                case PrideBinaryWriter.SPECTRUM_SECTION:
+                    histogramDataSourceMap.put(type, readSpectrum(in));
+                    break;
+                default:
+                    histogramDataSourceMap.put(type, readHistogram(in, section.kind == PrideBinaryWriter.EQUAL_WIDTH_SECTION));
+            }
+        } catch (BufferUnderflowException e) {
+            logger.error("Unexpected end of chart " + type);
+        } catch (IllegalArgumentException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
+    private PrideXYDataSource readXY(ByteBuffer in) {
+        int dataTypeBit = readVarint(in);
+        PrideDataType dataType = dataTypeBit == 0 ? null : toType(dataTypeBit - 1);
+        Set<PrideDataType> dataTypes = readDataTypes(in);
+
+        int size = readCount(in);
+        double[] domainValues = readDoubles(in, size);
+        double[] values = readDoubles(in, size);
+
+        int[] masks = new int[size];
+        int runCount = readCount(in);
+        int runStart = 0;
+        int runLength;
+        int mask;
+        for (int i = 0; i < runCount; i++) {
+            runLength = readVarint(in);
+            mask = toMask(in.get() & 0xFF);
+            if (runLength < 0 || runLength > size - runStart) {
+                throw new IllegalArgumentException("Invalid data type run " + runLength);
+            }
+            Arrays.fill(masks, runStart, runStart + runLength, mask);
+            runStart += runLength;
+        }
+
+        String[] categories = new String[readCount(in)];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = readString(in);
+        }
+
+        PrideDataColumns columns = new PrideDataColumns(size);
+        int categoryId;
+        for (int i = 0; i < size; i++) {
+            categoryId = categories.length == 0 ? 0 : readVarint(in);
+            if (categoryId < 0 || categoryId > categories.length) {
+                throw new IllegalArgumentException("Invalid category id " + categoryId);
+            }
+            columns.add(values[i], masks[i], categoryId == 0 ? null : categories[categoryId - 1]);
+        }
+
+        PrideXYDataSource dataSource = new PrideXYDataSource(domainValues, columns, dataType);
+        dataSource.getDataTypeList().addAll(dataTypes);
+        return dataSource;
+    }
+
+    /**
+     * The counts are restored by an accumulator of fixed bins, which gives the same count map.
+     */
+    private PrideHistogramDataSource readHistogram(ByteBuffer in, boolean equalWidth) {
+        Set<PrideDataType> dataTypes = readDataTypes(in);
+        int policy = in.get();
+        if (policy < 0 || policy >= PrideHistogramRangePolicy.values().length) {
+            throw new IllegalArgumentException("Invalid histogram range policy " + policy);
+        }
+        BinLayout layout = readBins(in);
+        double maxIntValue = equalWidth ? in.getDouble() : 0;
+
+        Map<PrideDataType, int[]> countMap = new EnumMap<PrideDataType, int[]>(PrideDataType.class);
+        int typeCount = readCount(in);
+        // every bin has a count of one byte at least for every data type.
+        List<PrideHistogramBin> bins = layout.createBins(typeCount > 0 ? in.remaining() / typeCount : MAX_GENERATED_BIN_COUNT);
+        if (typeCount > 0 && bins.size() > in.remaining() / typeCount) {
+            throw new IllegalArgumentException("Invalid count " + bins.size());
+        }
+        for (int i = 0; i < typeCount; i++) {
+            PrideDataType type = toType(in.get());
+            int[] counts = new int[bins.size()];
+            for (int j = 0; j < counts.length; j++) {
+                counts[j] = readVarint(in);
+            }
+            countMap.put(type, counts);
+        }
+
+        PrideHistogramDataSource dataSource;
+        if (bins.isEmpty()) {
+            // without bins, there are no counts.
+            dataSource = equalWidth ?
+                    new PrideEqualWidthHistogramDataSource(new PrideDataColumns(0), false, false) :
+                    new PrideHistogramDataSource(new PrideDataColumns(0), false, false);
+        } else {
+            PrideHistogramAccumulator accumulator = new PrideHistogramAccumulator(bins, false);
+            for (Map.Entry<PrideDataType, int[]> entry : countMap.entrySet()) {
+                accumulator.addCounts(entry.getKey(), entry.getValue());
+            }
+            if (equalWidth) {
+                accumulator.updateMaxValue(maxIntValue, Double.NEGATIVE_INFINITY);
+            }
+
+            dataSource = equalWidth ?
+                    new PrideEqualWidthHistogramDataSource(accumulator) :
+                    new PrideHistogramDataSource(accumulator);
+            dataSource.appendBins(bins);
+        }
+
+        dataSource.getDataTypeList().addAll(dataTypes);
+        dataSource.setRangePolicy(PrideHistogramRangePolicy.values()[policy]);
+        return dataSource;
+    }
+
+    private PrideSpectrumHistogramDataSource readSpectrum(ByteBuffer in) {
+        Set<PrideDataType> dataTypes = readDataTypes(in);
+        boolean calcAllSpectra = in.get() != 0;
+        double mzStart = in.getDouble();
+        double mzBinWidth = in.getDouble();
+        double maxMz = in.getDouble();
+        BinLayout layout = readBins(in);
+        // the m/z bins are generated up to the max m/z, see PrideSpectrumHistogramDataSource.generateBins, one
+        // more bin is allowed for the rounding of the stored bin width.
+        double maxCount = Math.ceil((maxMz - layout.start) / layout.binWidth) + 1;
+        List<PrideHistogramBin> bins = layout.createBins(maxCount >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) maxCount);
+
+        PrideSpectrumHistogramDataSource dataSource = new PrideSpectrumHistogramDataSource(calcAllSpectra, mzStart, mzBinWidth);
+        int typeCount = readCount(in);
+        for (int i = 0; i < typeCount; i++) {
+            PrideDataType type = toType(in.get());
+            int[] offsets = new int[readCount(in)];
+            int offset = 0;
+            for (int j = 0; j < offsets.length; j++) {
+                offset += readVarint(in);
+                if (offset < 0) {
+                    throw new IllegalArgumentException("Invalid m/z offset " + offset);
+                }
+                offsets[j] = offset;
+            }
+            double[] intensities = readDoubles(in, offsets.length);
+            for (int j = 0; j < offsets.length; j++) {
+                dataSource.addMzIntensity(offsets[j], intensities[j], type);
+            }
+        }
+
+        dataSource.setMaxMz(maxMz);
+        dataSource.appendBins(bins);
+        dataSource.getDataTypeList().addAll(dataTypes);
+        return dataSource;
+    }
+
+    /**
+     * Read the bins of section, the generated bins should have a positive width and a finite end.
+     */
+    private BinLayout readBins(ByteBuffer in) {
+        // the generated bins are not stored one by one, so the count is not limited by the section.
+        BinLayout layout = new BinLayout();
+        layout.count = readVarint(in);
+        if (layout.count < 0) {
+            throw new IllegalArgumentException("Invalid count " + layout.count);
+        }
+        if (in.get() == PrideBinaryWriter.GENERATED_BINS) {
+            layout.generated = true;
+            layout.start = in.getDouble();
+            layout.binWidth = in.getDouble();
+            if (! (layout.binWidth > 0) || Double.isInfinite(layout.start + layout.count * layout.binWidth) ||
+                    Double.isNaN(layout.start + layout.count * layout.binWidth)) {
+                throw new IllegalArgumentException("Invalid generated bins from " + layout.start + " by " + layout.binWidth);
+            }
+        } else {
+            layout.starts = readDoubles(in, layout.count);
+            layout.ends = readDoubles(in, layout.count);
+        }
+        return layout;
+    }
+
+    private Set<PrideDataType> readDataTypes(ByteBuffer in) {
+        int mask = toMask(readVarint(in));
+        Set<PrideDataType> dataTypes = new HashSet<PrideDataType>(PrideDataType.findByMask(mask));
+        if (in.get() != 0) {
+            dataTypes.add(null);
+        }
+        return dataTypes;
+    }
+
+    /**
+     * @return the data type of mask bit in file.
+     */
+    private PrideDataType toType(int bit) {
+        if (bit < 0 || bit >= fileTypes.length) {
+            throw new IllegalArgumentException("Invalid data type " + bit);
+        }
+        return fileTypes[bit];
+    }
+
+    /**
+     * Translate the mask in file into the mask of current data types.
+     */
+    private int toMask(int fileMask) {
+        int mask = 0;
+        for (int bits = fileMask; bits != 0; bits &= bits - 1) {
+            mask |= toType(Integer.numberOfTrailingZeros(bits)).getMaskBit();
+        }
+        return mask;
+    }
+
+    private static PrideDataType findDataType(int id) {
+        for (PrideDataType type : PrideDataType.values()) {
+            if (type.getId() == id) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown data type id " + id);
+    }
+
+    /**
+     * @return the chart type of name, or null if the chart type is unknown.
+     */
+    private static PrideChartType findChartType(String name) {
+        try {
+            return name == null ? null : PrideChartType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the double array in its encoding, see {@link PrideBinaryWriter}. The count is checked against the
+     * section before allocation, a value takes one byte at least as varint and 8 bytes as double.
+     */
+    private static double[] readDoubles(ByteBuffer in, int count) {
+        boolean intEncoding = in.get() == PrideBinaryWriter.INT_ENCODING;
+        if (count < 0 || count > (intEncoding ? in.remaining() : in.remaining() / 8)) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+
+        double[] values = new double[count];
+        int v;
+        if (intEncoding) {
+            for (int i = 0; i < count; i++) {
+                v = readVarint(in);
+                values[i] = (v >>> 1) ^ -(v & 1);
+            }
+            return values;
+        }
+
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + count * 8);
+        return values;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length - 1 > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        byte[] bytes = new byte[length - 1];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Read a varint which is a count of following items, every item has one byte at least.
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = readVarint(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        byte b;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint.");
+            }
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
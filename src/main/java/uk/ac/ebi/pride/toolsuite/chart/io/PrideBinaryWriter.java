@@ -0,0 +1,336 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Write the whole result of a {@link PrideDataReader} in the compact binary QC format, which is read by
+ * {@link PrideBinaryReader}. The layout of version 1, the numbers are big-endian:
+ * <pre>
+ * header:  int magic "PQCB", byte version,
+ *          varint peptide size, identified spectra size and unidentified spectra size,
+ *          varint data type count, varint {@link PrideDataType#getId()} of every data type mask bit,
+ *          varint error count, chart type name and message of every error,
+ *          varint chart count.
+ * chart:   byte section kind, chart type name, varint section length, section.
+ * </pre>
+ * A string is a varint of UTF-8 byte length + 1, and 0 for null. The values and histogram bin boundaries
+ * are written as double arrays, the data types as masks and the counts as varints, so nothing is parsed
+ * from text when reading. A double array starts with its encoding byte, the arrays of integer values are
+ * written as zigzag varints. The bins which are generated by equal width are written as start, width and
+ * count. The section length lets the reader decode a chart only when it is accessed.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideBinaryWriter {
+    public static final int MAGIC = 0x50514342;
+    public static final int VERSION = 1;
+
+    static final int XY_SECTION = 1;
+    static final int HISTOGRAM_SECTION = 2;
+    static final int EQUAL_WIDTH_SECTION = 3;
+    static final int SPECTRUM_SECTION = 4;
+
+    static final int DOUBLE_ENCODING = 0;
+    static final int INT_ENCODING = 1;
+
+    static final int EXPLICIT_BINS = 0;
+    static final int GENERATED_BINS = 1;
+
+    private static final PrideDataType[] TYPES = PrideDataType.values();
+    private static final PrideDataType[] INTENSITY_TYPES = new PrideDataType[] {
+            PrideDataType.ALL_SPECTRA, PrideDataType.IDENTIFIED_SPECTRA, PrideDataType.UNIDENTIFIED_SPECTRA
+    };
+
+    private PrideDataReader reader;
+
+    public PrideBinaryWriter(PrideDataReader reader) {
+        if (reader == null) {
+            throw new NullPointerException("Please set a pride data reader instance.");
+        }
+
+        this.reader = reader;
+    }
+
+    /**
+     * Write the charts and error messages of reader, the stream is not closed.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        writeVarint(data, reader.getPeptideSize());
+        writeVarint(data, reader.getIdentifiedSpectraSize());
+        writeVarint(data, reader.getUnidentifiedSpectraSize());
+
+        writeVarint(data, TYPES.length);
+        for (PrideDataType type : TYPES) {
+            writeVarint(data, type.getId());
+        }
+
+        Map<PrideChartType, PrideDataException> errorMap = reader.getErrorMap();
+        writeVarint(data, errorMap.size());
+        for (Map.Entry<PrideChartType, PrideDataException> entry : errorMap.entrySet()) {
+            writeString(data, entry.getKey().name());
+            writeString(data, entry.getValue().getMessage());
+        }
+
+        Map<PrideChartType, PrideXYDataSource> xyDataSourceMap = reader.getXYDataSourceMap();
+        Map<PrideChartType, PrideHistogramDataSource> histogramDataSourceMap = reader.getHistogramDataSourceMap();
+        writeVarint(data, xyDataSourceMap.size() + histogramDataSourceMap.size());
+
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        DataOutputStream sectionData = new DataOutputStream(section);
+        for (Map.Entry<PrideChartType, PrideXYDataSource> entry : xyDataSourceMap.entrySet()) {
+            section.reset();
+            writeXY(sectionData, entry.getValue());
+            writeSection(data, XY_SECTION, entry.getKey(), section);
+        }
+        int kind;
+        for (Map.Entry<PrideChartType, PrideHistogramDataSource> entry : histogramDataSourceMap.entrySet()) {
+            section.reset();
+            kind = writeHistogram(sectionData, entry.getValue());
+            writeSection(data, kind, entry.getKey(), section);
+        }
+
+        data.flush();
+    }
+
+    private void writeSection(DataOutputStream out, int kind, PrideChartType chartType, ByteArrayOutputStream section) throws IOException {
+        out.writeByte(kind);
+        writeString(out, chartType.name());
+        writeVarint(out, section.size());
+        section.writeTo(out);
+    }
+
+    private void writeXY(DataOutputStream out, PrideXYDataSource dataSource) throws IOException {
+        PrideDataType dataType = dataSource.getDataType();
+        writeVarint(out, dataType == null ? 0 : dataType.ordinal() + 1);
+        writeDataTypes(out, dataSource.getDataTypeList());
+
+        int size = dataSource.getSize();
+        PrideDataColumns columns = dataSource.getRangeColumns();
+        double[] domainValues = new double[size];
+        double[] rangeValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            domainValues[i] = dataSource.getDomainValue(i);
+            rangeValues[i] = columns.getValue(i);
+        }
+        writeVarint(out, size);
+        writeDoubles(out, domainValues);
+        writeDoubles(out, rangeValues);
+
+        // the masks are written as runs of (length, mask), the values of a series are mostly together.
+        int runCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || columns.getTypeMask(i) != columns.getTypeMask(i - 1)) {
+                runCount++;
+            }
+        }
+        writeVarint(out, runCount);
+        int runStart = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || columns.getTypeMask(i) != columns.getTypeMask(i - 1)) {
+                writeVarint(out, i - runStart);
+                out.writeByte(columns.getTypeMask(runStart));
+                runStart = i;
+            }
+        }
+
+        // the category ids are written only if there are categories, id + 1 and 0 for no category.
+        List<String> categoryList = columns.getCategoryList();
+        writeVarint(out, categoryList.size());
+        if (! categoryList.isEmpty()) {
+            for (String category : categoryList) {
+                writeString(out, category);
+            }
+            for (int i = 0; i < size; i++) {
+                writeVarint(out, columns.getCategoryId(i) + 1);
+            }
+        }
+    }
+
+    /**
+     * The histogram is written as its bins and counts, the values are not kept.
+     *
+     * @return the section kind of data source.
+     */
+    private int writeHistogram(DataOutputStream out, PrideHistogramDataSource dataSource) throws IOException {
+        writeDataTypes(out, dataSource.getDataTypeList());
+        if (dataSource instanceof PrideSpectrumHistogramDataSource) {
+            writeSpectrum(out, (PrideSpectrumHistogramDataSource) dataSource);
+            return SPECTRUM_SECTION;
+        }
+
+        out.writeByte(dataSource.getRangePolicy().ordinal());
+        writeBins(out, dataSource);
+
+        int kind = HISTOGRAM_SECTION;
+        if (dataSource instanceof PrideEqualWidthHistogramDataSource) {
+            out.writeDouble(((PrideEqualWidthHistogramDataSource) dataSource).getMaxIntValue());
+            kind = EQUAL_WIDTH_SECTION;
+        }
+
+        Map<PrideDataType, int[]> countMap = dataSource.getCountMap();
+        writeVarint(out, countMap.size());
+        for (Map.Entry<PrideDataType, int[]> entry : countMap.entrySet()) {
+            out.writeByte(entry.getKey().ordinal());
+            for (int count : entry.getValue()) {
+                writeVarint(out, count);
+            }
+        }
+
+        return kind;
+    }
+
+    /**
+     * The intensity sums are written by m/z offset, only the offsets which have intensity, as the varint
+     * distance from the previous offset.
+     */
+    private void writeSpectrum(DataOutputStream out, PrideSpectrumHistogramDataSource dataSource) throws IOException {
+        out.writeBoolean(dataSource.isCalcAllSpectra());
+        out.writeDouble(dataSource.getMzStart());
+        out.writeDouble(dataSource.getMzBinWidth());
+        out.writeDouble(dataSource.getMaxMz());
+        writeBins(out, dataSource);
+
+        Map<PrideDataType, int[]> offsetMap = new EnumMap<PrideDataType, int[]>(PrideDataType.class);
+        for (PrideDataType type : INTENSITY_TYPES) {
+            int[] offsets = dataSource.getMzOffsets(type);
+            if (offsets != null) {
+                offsetMap.put(type, offsets);
+            }
+        }
+
+        writeVarint(out, offsetMap.size());
+        for (Map.Entry<PrideDataType, int[]> entry : offsetMap.entrySet()) {
+            int[] offsets = entry.getValue();
+            out.writeByte(entry.getKey().ordinal());
+            writeVarint(out, offsets.length);
+            int previous = 0;
+            for (int offset : offsets) {
+                writeVarint(out, offset - previous);
+                previous = offset;
+            }
+            writeDoubles(out, dataSource.getMzIntensities(entry.getKey(), offsets));
+        }
+    }
+
+    /**
+     * The bins are written as start, width and count, if they are the same as the bins generated by
+     * {@link PrideEqualWidthHistogramDataSource#generateBins(double, double, int)}. Otherwise the start and
+     * end boundaries are written.
+     */
+    private void writeBins(DataOutputStream out, PrideHistogramDataSource dataSource) throws IOException {
+        int count = dataSource.getBinCount();
+        double[] starts = new double[count];
+        double[] ends = new double[count];
+        Iterator<PrideHistogramBin> it = dataSource.iterator();
+        PrideHistogramBin bin;
+        for (int i = 0; i < count; i++) {
+            bin = it.next();
+            starts[i] = bin.getStartBoundary();
+            ends[i] = bin.getEndBoundary();
+        }
+
+        writeVarint(out, count);
+        if (count > 1 && isGenerated(starts, ends)) {
+            out.writeByte(GENERATED_BINS);
+            out.writeDouble(starts[0]);
+            out.writeDouble(ends[0] - starts[0]);
+        } else {
+            out.writeByte(EXPLICIT_BINS);
+            writeDoubles(out, starts);
+            writeDoubles(out, ends);
+        }
+    }
+
+    /**
+     * Whether the bins are generated by the addition of the first bin width, compared by the exact bits.
+     */
+    private static boolean isGenerated(double[] starts, double[] ends) {
+        double binWidth = ends[0] - starts[0];
+        double lowerBound = starts[0];
+        double higherBound;
+        for (int i = 0; i < starts.length; i++) {
+            higherBound = lowerBound + binWidth;
+            if (Double.doubleToLongBits(starts[i]) != Double.doubleToLongBits(lowerBound) ||
+                Double.doubleToLongBits(ends[i]) != Double.doubleToLongBits(higherBound)) {
+                return false;
+            }
+            lowerBound = higherBound;
+        }
+        return true;
+    }
+
+    /**
+     * Write the encoding byte and the values, as zigzag varints if all values are integers, otherwise as
+     * doubles. The count of values is not written.
+     */
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        boolean integer = true;
+        for (int i = 0; integer && i < values.length; i++) {
+            integer = Double.doubleToRawLongBits(values[i]) == Double.doubleToRawLongBits((int) values[i]);
+        }
+
+        if (integer) {
+            out.writeByte(INT_ENCODING);
+            for (double value : values) {
+                int v = (int) value;
+                writeVarint(out, (v << 1) ^ (v >> 31));
+            }
+        } else {
+            out.writeByte(DOUBLE_ENCODING);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    /**
+     * The data types are written as mask, followed by whether null type is in the list.
+     */
+    private void writeDataTypes(DataOutputStream out, Set<PrideDataType> dataTypes) throws IOException {
+        int mask = 0;
+        boolean hasNull = false;
+        for (PrideDataType type : dataTypes) {
+            if (type == null) {
+                hasNull = true;
+            } else {
+                mask |= type.getMaskBit();
+            }
+        }
+
+        writeVarint(out, mask);
+        out.writeBoolean(hasNull);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeVarint(out, 0);
+            return;
+        }
+
+        byte[] bytes = s.getBytes("UTF-8");
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * Write the int as unsigned, 7 bits per byte and the high bit marks a following byte.
+     */
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
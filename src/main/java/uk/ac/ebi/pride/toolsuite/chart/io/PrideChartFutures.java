@@ -0,0 +1,87 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataSource;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * The futures of a reader which runs asynchronously, see {@link DataAccessReader#readChartsAsync}.
+ * The future of a chart completes with its data source, or exceptionally with the {@link PrideDataException}
+ * of the chart. The reader may complete some charts before the end of reading, e.g. the charts of protein
+ * pass, the other charts complete when the reader completes. If the reading fails or is cancelled, all
+ * charts not completed yet complete exceptionally with the failure of reader.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideChartFutures implements PrideChartListener {
+    private final Map<PrideChartType, CompletableFuture<PrideDataSource>> chartFutures =
+            new EnumMap<PrideChartType, CompletableFuture<PrideDataSource>>(PrideChartType.class);
+
+    private CompletableFuture<? extends PrideDataReader> reader;
+
+    PrideChartFutures(Collection<PrideChartType> chartTypes) {
+        for (PrideChartType chartType : chartTypes) {
+            chartFutures.put(chartType, new CompletableFuture<PrideDataSource>());
+        }
+    }
+
+    /**
+     * Complete the charts which not completed yet, when the reader completes.
+     */
+    void setReader(CompletableFuture<? extends PrideDataReader> reader) {
+        this.reader = reader;
+        reader.whenComplete(new BiConsumer<PrideDataReader, Throwable>() {
+            @Override
+            public void accept(PrideDataReader reader, Throwable failure) {
+                for (Map.Entry<PrideChartType, CompletableFuture<PrideDataSource>> entry : chartFutures.entrySet()) {
+                    if (failure != null) {
+                        entry.getValue().completeExceptionally(failure);
+                    } else {
+                        complete(entry.getKey(), reader);
+                    }
+                }
+            }
+        });
+    }
+
+    private void complete(PrideChartType type, PrideDataReader reader) {
+        PrideDataSource dataSource = reader.getXYDataSourceMap().get(type);
+        if (dataSource == null) {
+            dataSource = reader.getHistogramDataSourceMap().get(type);
+        }
+        chartRead(type, dataSource, reader.getErrorMap().get(type));
+    }
+
+    @Override
+    public void chartRead(PrideChartType type, PrideDataSource dataSource, PrideDataException error) {
+        CompletableFuture<PrideDataSource> future = chartFutures.get(type);
+        if (future == null) {
+            return;
+        }
+
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(dataSource);
+        }
+    }
+
+    public CompletableFuture<? extends PrideDataReader> getReader() {
+        return reader;
+    }
+
+    /**
+     * @return the future of chart, null if the chart is not selected.
+     */
+    public CompletableFuture<PrideDataSource> getChart(PrideChartType type) {
+        return chartFutures.get(type);
+    }
+
+    public Set<PrideChartType> getChartTypes() {
+        return Collections.unmodifiableSet(chartFutures.keySet());
+    }
+}
@@ -0,0 +1,19 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataSource;
+
+/**
+ * Receive the charts of {@link PrideDataReader} as soon as they are read, called on the reading thread.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+interface PrideChartListener {
+
+    /**
+     * @param dataSource the data source of chart, null if the chart has error.
+     * @param error the error of chart, null if the chart has data source.
+     */
+    void chartRead(PrideChartType type, PrideDataSource dataSource, PrideDataException error);
+}
@@ -24,6 +24,7 @@ public class PrideDataException extends Exception {
     public static final String NO_TANDEM_SPECTRA = "MS/MS Spectra not found";
     public static final String NO_PRECURSOR_CHARGE = "Precursor charge not found";
     public static final String NO_PRECURSOR_MASS = "No correct mass has been found";
+    public static final String READING_CANCELLED = "Reading has been cancelled";
 
     public PrideDataException() {
     }
@@ -1,11 +1,17 @@
 package uk.ac.ebi.pride.toolsuite.chart.io;
 
 import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideData;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataSource;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideEqualWidthHistogramDataSource;
 import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramDataSource;
 import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideXYDataSource;
 
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 
 /**
  * @author qingwei
@@ -24,10 +30,82 @@ public abstract class PrideDataReader {
     // unidentified spectra size in the experiment data.
     protected int unidentifiedSpectraSize = 0;
 
+    private PrideDataReaderListener listener;
+    private CancellationToken cancellationToken;
+    private PrideChartListener chartListener;
+
+    /**
+     * @throws CancellationException if the cancellation token is cancelled during reading.
+     */
     public void readData() {
+        checkCancelled();
+        fireProgress(PrideDataReaderPhase.START, 0, -1);
         start();
         reading();
         end();
+        fireProgress(PrideDataReaderPhase.END, 0, -1);
+    }
+
+    /**
+     * Should be called before {@link #readData()}, null means no progress reported.
+     */
+    protected void setListener(PrideDataReaderListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Should be called before {@link #readData()}, null means the reading can not be cancelled.
+     */
+    protected void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * Should be called before {@link #readData()}, null means the charts are only available after reading.
+     */
+    void setChartListener(PrideChartListener chartListener) {
+        this.chartListener = chartListener;
+    }
+
+    /**
+     * Hand out the charts which are finished before the end of reading, the data sources and errors should
+     * not be changed after this call. The charts which have neither data source nor error are skipped.
+     */
+    protected void fireChartsRead(PrideChartType... types) {
+        if (chartListener == null) {
+            return;
+        }
+
+        PrideDataSource dataSource;
+        for (PrideChartType type : types) {
+            dataSource = xyDataSourceMap.containsKey(type) ? xyDataSourceMap.get(type) : histogramDataSourceMap.get(type);
+            if (dataSource != null || errorMap.containsKey(type)) {
+                chartListener.chartRead(type, dataSource, errorMap.get(type));
+            }
+        }
+    }
+
+    /**
+     * Report the progress to the listener, the calls from different threads are serialized.
+     */
+    protected void fireProgress(PrideDataReaderPhase phase, int processed, int total) {
+        if (listener == null) {
+            return;
+        }
+        synchronized (listener) {
+            listener.progressUpdated(phase, processed, total);
+        }
+    }
+
+    /**
+     * Called by the reading loops between batches.
+     *
+     * @throws CancellationException if the cancellation token is cancelled.
+     */
+    protected void checkCancelled() {
+        if (cancellationToken != null && cancellationToken.isCancelled()) {
+            throw new CancellationException(PrideDataException.READING_CANCELLED);
+        }
     }
 
     protected abstract void start();
@@ -36,6 +114,92 @@ public abstract class PrideDataReader {
 
     protected abstract void end();
 
+    /**
+     * Combine the charts of other reader into current reader, e.g. to summary several files of a project.
+     * The histograms and the count charts are added; DELTA_MASS and QUANTITATION_PEPTIDES are averaged by
+     * the peptide sizes, PRECURSOR_MASSES by the spectra sizes. The bins of the averaged charts are decided
+     * by the data range of every file, so they are re-binned onto a common layout before averaging, see
+     * {@link PrideXYDataSource#mergeBins}. Because the frequencies are normalized per file, the averaged
+     * charts are approximations of the charts of the combined data. The data sources of other reader
+     * are not modified.
+     *
+     * A chart which has data source in any reader has no error message after merging.
+     */
+    public void merge(PrideDataReader other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Can not merge reader with itself.");
+        }
+
+        double peptideWeight = getWeight(getPeptideSize(), other.getPeptideSize());
+        double spectraWeight = getWeight(getSpectraSize(), other.getSpectraSize());
+
+        PrideXYDataSource xyDataSource;
+        double weight;
+        for (Map.Entry<PrideChartType, PrideXYDataSource> entry : other.xyDataSourceMap.entrySet()) {
+            xyDataSource = xyDataSourceMap.get(entry.getKey());
+            if (xyDataSource == null) {
+                xyDataSourceMap.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            switch (entry.getKey()) {
+                case DELTA_MASS:
+                case QUANTITATION_PEPTIDES:
+                    weight = peptideWeight;
+                    break;
+                case PRECURSOR_MASSES:
+                    weight = spectraWeight;
+                    break;
+                default:
+                    weight = -1;
+            }
+            xyDataSourceMap.put(entry.getKey(), weight < 0 ?
+                    xyDataSource.merge(entry.getValue(), 1, 1) :
+                    xyDataSource.mergeBins(entry.getValue(), weight, 1 - weight));
+        }
+
+        PrideHistogramDataSource histogramDataSource;
+        for (Map.Entry<PrideChartType, PrideHistogramDataSource> entry : other.histogramDataSourceMap.entrySet()) {
+            histogramDataSource = histogramDataSourceMap.get(entry.getKey());
+            if (histogramDataSource == null) {
+                histogramDataSource = createEmptyDataSource(entry.getValue());
+                histogramDataSourceMap.put(entry.getKey(), histogramDataSource);
+            }
+            histogramDataSource.merge(entry.getValue());
+        }
+
+        for (PrideChartType chartType : EnumSet.allOf(PrideChartType.class)) {
+            if (xyDataSourceMap.containsKey(chartType) || histogramDataSourceMap.containsKey(chartType)) {
+                errorMap.remove(chartType);
+            } else if (! errorMap.containsKey(chartType) && other.errorMap.containsKey(chartType)) {
+                errorMap.put(chartType, other.errorMap.get(chartType));
+            }
+        }
+
+        peptideSize += other.getPeptideSize();
+        identifiedSpectraSize += other.getIdentifiedSpectraSize();
+        unidentifiedSpectraSize += other.getUnidentifiedSpectraSize();
+    }
+
+    /**
+     * @return the weight of current reader in the average, half if both sizes are 0.
+     */
+    private double getWeight(int size, int otherSize) {
+        return size + otherSize == 0 ? 0.5 : (double) size / (size + otherSize);
+    }
+
+    private PrideHistogramDataSource createEmptyDataSource(PrideHistogramDataSource dataSource) {
+        if (dataSource instanceof PrideSpectrumHistogramDataSource) {
+            PrideSpectrumHistogramDataSource spectrumDataSource = (PrideSpectrumHistogramDataSource) dataSource;
+            return new PrideSpectrumHistogramDataSource(spectrumDataSource.isCalcAllSpectra(),
+                    spectrumDataSource.getMzStart(), spectrumDataSource.getMzBinWidth());
+        } else if (dataSource instanceof PrideEqualWidthHistogramDataSource) {
+            return new PrideEqualWidthHistogramDataSource(new PrideData[0], dataSource.isCalcAllSpectra(), false);
+        } else {
+            return new PrideHistogramDataSource(new PrideData[0], dataSource.isCalcAllSpectra(), false);
+        }
+    }
+
     public SortedMap<PrideChartType, PrideXYDataSource> getXYDataSourceMap() {
         return xyDataSourceMap;
     }
@@ -61,6 +225,6 @@ public abstract class PrideDataReader {
     }
 
     public int getSpectraSize() {
-        return identifiedSpectraSize + unidentifiedSpectraSize;
+        return getIdentifiedSpectraSize() + getUnidentifiedSpectraSize();
     }
 }
@@ -0,0 +1,18 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+/**
+ * Receive the progress of {@link PrideDataReader#readData()}. The calls are serialized by the reader,
+ * but they may come from the traversal threads of the reader, so the listener should return quickly.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public interface PrideDataReaderListener {
+
+    /**
+     * @param phase current phase of reading.
+     * @param processed the number of items (proteins or spectra) processed in the phase.
+     * @param total the estimated number of items in the phase, -1 if unknown.
+     */
+    void progressUpdated(PrideDataReaderPhase phase, int processed, int total);
+}
@@ -0,0 +1,15 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+/**
+ * The phases of {@link PrideDataReader#readData()} reported to {@link PrideDataReaderListener}.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public enum PrideDataReaderPhase {
+    START,
+    PROTEINS,
+    SPECTRA,
+    CHARTS,
+    END
+}
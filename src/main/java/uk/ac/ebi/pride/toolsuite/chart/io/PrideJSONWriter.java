@@ -6,9 +6,15 @@ import org.json.JSONObject;
 import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
 import uk.ac.ebi.pride.toolsuite.chart.dataset.*;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.*;
 
+import static uk.ac.ebi.pride.toolsuite.chart.utils.PridePlotConstants.NEW_LINE;
+
 /**
  * @author qingwei
  * Date: 20/06/13
@@ -33,6 +39,9 @@ public class PrideJSONWriter {
 
     private PrideDataReader reader;
 
+    // fraction digits of the decimal values written by the write methods, -1 means full precision.
+    private int precision = -1;
+
     public PrideJSONWriter(PrideDataReader reader) {
         if (reader == null) {
             throw new NullPointerException("Please set a pride data reader instance.");
@@ -76,24 +85,13 @@ public class PrideJSONWriter {
         }
     }
 
-    private List<Object> getDomainValues(Double[] domainData) {
-        List<Object> values = new ArrayList<Object>();
-
-        Collections.addAll(values, domainData);
-
-        return values;
-    }
-
-    private List<Object> getDomainValues(Double[] domainData, PrideData[] rangeData, PrideDataType dataType) {
+    private List<Object> getDomainValues(PrideXYDataSource dataSource, PrideDataType dataType) {
         List<Object> values = new ArrayList<Object>();
 
-        PrideData prideData;
-        for (int i = 0; i < rangeData.length; i++) {
-            prideData = rangeData[i];
-            if (dataType != null && prideData.getType() == dataType) {
-                values.add(domainData[i]);
-            } else if (dataType == null) {
-                values.add(domainData[i]);
+        PrideDataColumns rangeColumns = dataSource.getRangeColumns();
+        for (int i = 0; i < dataSource.getSize(); i++) {
+            if (dataType == null || rangeColumns.getType(i) == dataType) {
+                values.add(dataSource.getDomainValue(i));
             }
         }
 
@@ -116,14 +114,13 @@ public class PrideJSONWriter {
         return values;
     }
 
-    private List<Object> getRangeValues(PrideData[] rangeData, PrideDataType dataType) {
+    private List<Object> getRangeValues(PrideXYDataSource dataSource, PrideDataType dataType) {
         List<Object> values = new ArrayList<Object>();
 
-        for (PrideData prideData : rangeData) {
-            if (dataType != null && prideData.getType() == dataType) {
-                values.add(prideData.getData());
-            } else if (dataType == null) {
-                values.add(prideData.getData());
+        PrideDataColumns rangeColumns = dataSource.getRangeColumns();
+        for (int i = 0; i < rangeColumns.size(); i++) {
+            if (dataType == null || rangeColumns.getType(i) == dataType) {
+                values.add(rangeColumns.getValue(i));
             }
         }
 
@@ -138,8 +135,8 @@ public class PrideJSONWriter {
         PrideXYDataSource dataSource = reader.getXYDataSourceMap().get(PrideChartType.DELTA_MASS);
         boolean hasData = false;
         if (dataSource != null) {
-            for (PrideData data : dataSource.getRangeData()) {
-                if (data.getData() > 0) {
+            for (int i = 0; i < dataSource.getSize(); i++) {
+                if (dataSource.getRangeValue(i) > 0) {
                     hasData = true;
                     break;
                 }
@@ -153,8 +150,8 @@ public class PrideJSONWriter {
 
             Series series = new Series(
                     DELTA_MASSES, null,
-                    getDomainValues(dataSource.getDomainData()),
-                    getRangeValues(dataSource.getRangeData(), null)
+                    getDomainValues(dataSource, null),
+                    getRangeValues(dataSource, null)
             );
 
             JSONObject obj = new JSONObject();
@@ -178,8 +175,8 @@ public class PrideJSONWriter {
         if (dataSource != null) {
             Series series = new Series(
                     FREQUENCY, null,
-                    getDomainValues(dataSource.getDomainData()),
-                    getRangeValues(dataSource.getRangeData(), null)
+                    getDomainValues(dataSource, null),
+                    getRangeValues(dataSource, null)
             );
 
             JSONObject obj = new JSONObject();
@@ -202,8 +199,8 @@ public class PrideJSONWriter {
         if (dataSource != null) {
             Series series = new Series(
                     MISSED_CLEAVAGE, null,
-                    getDomainValues(dataSource.getDomainData()),
-                    getRangeValues(dataSource.getRangeData(), null)
+                    getDomainValues(dataSource, null),
+                    getRangeValues(dataSource, null)
             );
 
             JSONObject obj = new JSONObject();
@@ -273,8 +270,8 @@ public class PrideJSONWriter {
         if (dataSource != null) {
             Series series = new Series(
                     IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA,
-                    getDomainValues(dataSource.getDomainData()),
-                    getRangeValues(dataSource.getRangeData(), null)
+                    getDomainValues(dataSource, null),
+                    getRangeValues(dataSource, null)
             );
 
             JSONObject obj = new JSONObject();
@@ -297,10 +294,10 @@ public class PrideJSONWriter {
         PrideXYDataSource dataSource = reader.getXYDataSourceMap().get(PrideChartType.PRECURSOR_MASSES);
         if (dataSource != null) {
             List<Series> seriesList = new ArrayList<Series>();
-            List<Object> unSpectraList = getRangeValues(dataSource.getRangeData(), PrideDataType.UNIDENTIFIED_SPECTRA);
-            List<Object> unDomainList = getDomainValues(dataSource.getDomainData(), dataSource.getRangeData(), PrideDataType.UNIDENTIFIED_SPECTRA);
-            List<Object> idSpectraList = getRangeValues(dataSource.getRangeData(), PrideDataType.IDENTIFIED_SPECTRA);
-            List<Object> idDomainList = getDomainValues(dataSource.getDomainData(), dataSource.getRangeData(), PrideDataType.IDENTIFIED_SPECTRA);
+            List<Object> unSpectraList = getRangeValues(dataSource, PrideDataType.UNIDENTIFIED_SPECTRA);
+            List<Object> unDomainList = getDomainValues(dataSource, PrideDataType.UNIDENTIFIED_SPECTRA);
+            List<Object> idSpectraList = getRangeValues(dataSource, PrideDataType.IDENTIFIED_SPECTRA);
+            List<Object> idDomainList = getDomainValues(dataSource, PrideDataType.IDENTIFIED_SPECTRA);
 
             if (unSpectraList.size() == 0) {
                 seriesList.add(new Series(UNIDENTIFIED_SPECTRA, UNIDENTIFIED_SPECTRA, null, null));
@@ -349,10 +346,23 @@ public class PrideJSONWriter {
         return values;
     }
 
-    private Collection<Object> getIntegerRangeValues(Collection<Integer> data) {
+    private List<Object> getDomainValues(PrideHistogramDataSource dataSource) {
+        List<Object> values = new ArrayList<Object>();
+
+        DecimalFormat format = new DecimalFormat("#");
+        for (int i = 0; i < dataSource.getBinCount(); i++) {
+            values.add(dataSource.getBin(i).toString(format));
+        }
+
+        return values;
+    }
+
+    private Collection<Object> getIntegerRangeValues(int[] counts) {
         List<Object> values = new ArrayList<Object>();
 
-        values.addAll(data);
+        for (int count : counts) {
+            values.add(count);
+        }
 
         return values;
     }
@@ -365,11 +375,11 @@ public class PrideJSONWriter {
         PrideHistogramDataSource dataSource = reader.getHistogramDataSourceMap().get(PrideChartType.PEAKS_MS);
 
         if (dataSource != null) {
-            SortedMap<PrideHistogramBin, Integer> histogram = dataSource.getHistogramMap().get(PrideDataType.ALL_SPECTRA);
+            int[] counts = dataSource.getCounts(PrideDataType.ALL_SPECTRA);
             Series series = new Series(
                     INTENSITY, null,
-                    getDomainValues(histogram.keySet()),
-                    getIntegerRangeValues(histogram.values())
+                    getDomainValues(dataSource),
+                    getIntegerRangeValues(counts)
             );
 
             JSONObject obj = new JSONObject();
@@ -392,15 +402,14 @@ public class PrideJSONWriter {
         PrideHistogramDataSource dataSource = reader.getHistogramDataSourceMap().get(PrideChartType.PEAK_INTENSITY);
 
         if (dataSource != null) {
-            SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> histogramMap = dataSource.getHistogramMap();
             List<Series> seriesList = new ArrayList<Series>();
 
-            SortedMap<PrideHistogramBin, Integer> histogram = histogramMap.get(PrideDataType.IDENTIFIED_SPECTRA);
-            if (histogram != null) {
+            int[] counts = dataSource.getCounts(PrideDataType.IDENTIFIED_SPECTRA);
+            if (counts != null) {
                 seriesList.add(new Series(
                         IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA,
-                        getDomainValues(histogram.keySet()),
-                        getIntegerRangeValues(histogram.values())
+                        getDomainValues(dataSource),
+                        getIntegerRangeValues(counts)
                 ));
             } else {
                 seriesList.add(new Series(
@@ -410,12 +419,12 @@ public class PrideJSONWriter {
                 ));
             }
 
-            histogram = histogramMap.get(PrideDataType.UNIDENTIFIED_SPECTRA);
-            if (histogram != null) {
+            counts = dataSource.getCounts(PrideDataType.UNIDENTIFIED_SPECTRA);
+            if (counts != null) {
                 seriesList.add(new Series(
                         UNIDENTIFIED_SPECTRA, UNIDENTIFIED_SPECTRA,
-                        getDomainValues(histogram.keySet()),
-                        getIntegerRangeValues(histogram.values())
+                        getDomainValues(dataSource),
+                        getIntegerRangeValues(counts)
                 ));
             } else {
                 seriesList.add(new Series(
@@ -450,4 +459,597 @@ public class PrideJSONWriter {
         return obj;
     }
 
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Round the decimal values written by the write methods to the given fraction digits, which shrinks the
+     * JSON of large charts. The counts are not affected. The default -1 keeps the full precision, then the
+     * output is identical to the toString() of the JSONObject getters.
+     */
+    public void setPrecision(int precision) {
+        if (precision < -1) {
+            throw new IllegalArgumentException("Precision should not be less than -1");
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Write all charts in the format of PrideJSONTransformer, one line per chart: the chart number followed
+     * by the JSON of chart. A chart which contains non-finite numbers is written as null, same as the
+     * toString() of its JSONObject.
+     */
+    public void write(Writer out) throws IOException {
+        out.write("1, ");
+        writePeakIntensity(out);
+        out.write(NEW_LINE);
+        out.write("2, ");
+        writePreCharge(out);
+        out.write(NEW_LINE);
+        out.write("3, ");
+        writeAvg(out);
+        out.write(NEW_LINE);
+        out.write("4, ");
+        writePreMasses(out);
+        out.write(NEW_LINE);
+        out.write("5, ");
+        writePeptides(out);
+        out.write(NEW_LINE);
+        out.write("6, ");
+        writePeaksMS(out);
+        out.write(NEW_LINE);
+        out.write("7, ");
+        writeDelta(out);
+        out.write(NEW_LINE);
+        out.write("8, ");
+        writeMissed(out);
+    }
+
+    public void writeDelta(Writer out) throws IOException {
+        writeValue(out, createDelta());
+    }
+
+    public void writePeptides(Writer out) throws IOException {
+        writeValue(out, createXYChart(PrideChartType.PEPTIDES_PROTEIN, FREQUENCY, null, null));
+    }
+
+    public void writeMissed(Writer out) throws IOException {
+        writeValue(out, createXYChart(PrideChartType.MISSED_CLEAVAGES, MISSED_CLEAVAGE, null, null));
+    }
+
+    public void writeAvg(Writer out) throws IOException {
+        writeValue(out, createAvg());
+    }
+
+    public void writePreCharge(Writer out) throws IOException {
+        writeValue(out, createXYChart(PrideChartType.PRECURSOR_CHARGE, IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA,
+                new IntValue(reader.getSpectraSize())));
+    }
+
+    public void writePreMasses(Writer out) throws IOException {
+        writeValue(out, createPreMasses());
+    }
+
+    public void writePeaksMS(Writer out) throws IOException {
+        writeValue(out, createPeaksMS());
+    }
+
+    public void writePeakIntensity(Writer out) throws IOException {
+        writeValue(out, createPeakIntensity());
+    }
+
+    /**
+     * A JSON value which is written directly from the data sources, without a JSONObject tree or boxed values.
+     */
+    private interface JSONValue {
+        void write(Writer out) throws IOException;
+
+        /**
+         * @return false if the value contains NaN or infinite numbers, which JSON does not allow.
+         */
+        boolean isFinite();
+    }
+
+    private static boolean isFinite(double value) {
+        return ! Double.isInfinite(value) && ! Double.isNaN(value);
+    }
+
+    /**
+     * The fields are kept in a HashMap, same as {@link JSONObject}, so they are written in the same order.
+     */
+    private class ObjectValue implements JSONValue {
+        private Map<String, JSONValue> fields = new HashMap<String, JSONValue>();
+
+        void put(String key, JSONValue value) {
+            fields.put(key, value);
+        }
+
+        void append(String key, JSONValue value) {
+            ArrayValue array = (ArrayValue) fields.get(key);
+            if (array == null) {
+                array = new ArrayValue();
+                fields.put(key, array);
+            }
+            array.items.add(value);
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<String, JSONValue> entry : fields.entrySet()) {
+                if (! first) {
+                    out.write(',');
+                }
+                first = false;
+                JSONObject.quote(entry.getKey(), out);
+                out.write(':');
+                entry.getValue().write(out);
+            }
+            out.write('}');
+        }
+
+        @Override
+        public boolean isFinite() {
+            for (JSONValue value : fields.values()) {
+                if (! value.isFinite()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private class ArrayValue implements JSONValue {
+        private List<JSONValue> items = new ArrayList<JSONValue>();
+
+        @Override
+        public void write(Writer out) throws IOException {
+            out.write('[');
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                items.get(i).write(out);
+            }
+            out.write(']');
+        }
+
+        @Override
+        public boolean isFinite() {
+            for (JSONValue item : items) {
+                if (! item.isFinite()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private class StringValue implements JSONValue {
+        private String[] values;
+        private boolean array;
+
+        private StringValue(String value) {
+            this.values = new String[]{value};
+            this.array = false;
+        }
+
+        private StringValue(String[] values) {
+            this.values = values;
+            this.array = true;
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            if (! array) {
+                JSONObject.quote(values[0], out);
+                return;
+            }
+
+            out.write('[');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                JSONObject.quote(values[i], out);
+            }
+            out.write(']');
+        }
+
+        @Override
+        public boolean isFinite() {
+            return true;
+        }
+    }
+
+    private class IntValue implements JSONValue {
+        private int value;
+
+        private IntValue(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            out.write(Integer.toString(value));
+        }
+
+        @Override
+        public boolean isFinite() {
+            return true;
+        }
+    }
+
+    /**
+     * The counts of histogram bins.
+     */
+    private class CountsValue implements JSONValue {
+        private int[] counts;
+
+        private CountsValue(int[] counts) {
+            this.counts = counts;
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            out.write('[');
+            for (int i = 0; i < counts.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(Integer.toString(counts[i]));
+            }
+            out.write(']');
+        }
+
+        @Override
+        public boolean isFinite() {
+            return true;
+        }
+    }
+
+    /**
+     * The intensities of histogram bins.
+     */
+    private class DecimalsValue implements JSONValue {
+        private double[] values;
+
+        private DecimalsValue(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            out.write('[');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeDecimal(out, values[i]);
+            }
+            out.write(']');
+        }
+
+        @Override
+        public boolean isFinite() {
+            for (double value : values) {
+                if (! PrideJSONWriter.isFinite(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The domain or range values of XY data source, which have the data type, or all values if data type is null.
+     */
+    private class XYValue implements JSONValue {
+        private PrideXYDataSource dataSource;
+        private PrideDataType dataType;
+        private boolean domain;
+
+        private XYValue(PrideXYDataSource dataSource, PrideDataType dataType, boolean domain) {
+            this.dataSource = dataSource;
+            this.dataType = dataType;
+            this.domain = domain;
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            PrideDataColumns rangeColumns = dataSource.getRangeColumns();
+            out.write('[');
+            boolean first = true;
+            for (int i = 0; i < dataSource.getSize(); i++) {
+                if (dataType == null || rangeColumns.getType(i) == dataType) {
+                    if (! first) {
+                        out.write(',');
+                    }
+                    first = false;
+                    writeDecimal(out, domain ? dataSource.getDomainValue(i) : rangeColumns.getValue(i));
+                }
+            }
+            out.write(']');
+        }
+
+        @Override
+        public boolean isFinite() {
+            PrideDataColumns rangeColumns = dataSource.getRangeColumns();
+            for (int i = 0; i < dataSource.getSize(); i++) {
+                if ((dataType == null || rangeColumns.getType(i) == dataType) &&
+                        ! PrideJSONWriter.isFinite(domain ? dataSource.getDomainValue(i) : rangeColumns.getValue(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The bins of histogram data source, e.g. "0-100".
+     */
+    private class BinsValue implements JSONValue {
+        private PrideHistogramDataSource dataSource;
+
+        private BinsValue(PrideHistogramDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public void write(Writer out) throws IOException {
+            DecimalFormat format = new DecimalFormat("#");
+            out.write('[');
+            for (int i = 0; i < dataSource.getBinCount(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                JSONObject.quote(dataSource.getBin(i).toString(format), out);
+            }
+            out.write(']');
+        }
+
+        @Override
+        public boolean isFinite() {
+            return true;
+        }
+    }
+
+    /**
+     * Same as {@link JSONObject#numberToString(Number)} of a Double, rounded to {@link #precision} if it is set.
+     */
+    private void writeDecimal(Writer out, double value) throws IOException {
+        if (! isFinite(value)) {
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        }
+
+        String string;
+        if (precision < 0) {
+            string = Double.toString(value);
+        } else {
+            string = BigDecimal.valueOf(value).setScale(precision, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+        }
+
+        int end = string.length();
+        if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && string.indexOf('E') < 0) {
+            while (string.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (string.charAt(end - 1) == '.') {
+                end--;
+            }
+        }
+        out.write(string, 0, end);
+    }
+
+    /**
+     * Write the chart, or null if the chart is not found or contains non-finite numbers. The chart is checked
+     * before writing, so no partial chart is written.
+     */
+    private void writeValue(Writer out, JSONValue value) throws IOException {
+        if (value == null || ! value.isFinite()) {
+            out.write("null");
+        } else {
+            value.write(out);
+        }
+    }
+
+    private ObjectValue createSeries(String id, String type, JSONValue xArray, JSONValue yArray) {
+        ObjectValue series = new ObjectValue();
+
+        series.put(ID, new StringValue(id));
+
+        if (yArray != null) {
+            series.put(Y_AXIS, yArray);
+        }
+
+        if (type != null) {
+            series.put(TYPE, new StringValue(type));
+        }
+
+        if (xArray != null) {
+            series.put(X_AXIS, xArray);
+        }
+
+        return series;
+    }
+
+    private ObjectValue createErrorValue(String[] errorItems) {
+        ObjectValue obj = new ObjectValue();
+        obj.put(ERROR, new StringValue(errorItems));
+        return obj;
+    }
+
+    private ObjectValue createErrorValue(PrideChartType chartType) {
+        if (!reader.getErrorMap().containsKey(chartType)) {
+            return null;
+        }
+
+        String errorMsg = reader.getErrorMap().get(chartType).getMessage();
+        return createErrorValue(errorMsg.split(ElderJSONReader.ERROR_MSG_SPLIT_CHAR));
+    }
+
+    /**
+     * The chart of one series over all values of XY data source, same as the JSONObject getters.
+     *
+     * @param experimentSize the experiment size field, null if the chart has not this field.
+     */
+    private JSONValue createXYChart(PrideChartType chartType, String id, String type, JSONValue experimentSize) {
+        ObjectValue obj = createErrorValue(chartType);
+        if (obj != null) {
+            return obj;
+        }
+
+        PrideXYDataSource dataSource = reader.getXYDataSourceMap().get(chartType);
+        if (dataSource == null) {
+            return null;
+        }
+
+        obj = new ObjectValue();
+        obj.append(SERIES, createSeries(id, type,
+                new XYValue(dataSource, null, true), new XYValue(dataSource, null, false)));
+        if (experimentSize != null) {
+            obj.put(EXPERIMENT_SIZE, experimentSize);
+        }
+        return obj;
+    }
+
+    private JSONValue createDelta() {
+        ObjectValue obj = createErrorValue(PrideChartType.DELTA_MASS);
+        if (obj != null) {
+            return obj;
+        }
+
+        PrideXYDataSource dataSource = reader.getXYDataSourceMap().get(PrideChartType.DELTA_MASS);
+        if (dataSource == null) {
+            return null;
+        }
+
+        boolean hasData = false;
+        for (int i = 0; i < dataSource.getSize(); i++) {
+            if (dataSource.getRangeValue(i) > 0) {
+                hasData = true;
+                break;
+            }
+        }
+        if (!hasData) {
+            return createErrorValue(new String[]{PrideDataException.NO_PRECURSOR_CHARGE});
+        }
+
+        obj = new ObjectValue();
+        obj.append(SERIES, createSeries(DELTA_MASSES, null,
+                new XYValue(dataSource, null, true), new XYValue(dataSource, null, false)));
+        obj.put(SEQUENCE_NUMBER, new IntValue(reader.getPeptideSize()));
+        return obj;
+    }
+
+    private JSONValue createAvg() {
+        ObjectValue obj = createErrorValue(PrideChartType.AVERAGE_MS);
+        if (obj != null) {
+            return obj;
+        }
+
+        PrideSpectrumHistogramDataSource dataSource = (PrideSpectrumHistogramDataSource) reader.getHistogramDataSourceMap().get(PrideChartType.AVERAGE_MS);
+        if (dataSource == null) {
+            return null;
+        }
+
+        double[] unIntensities = dataSource.getIntensities(PrideDataType.UNIDENTIFIED_SPECTRA);
+        double[] idIntensities = dataSource.getIntensities(PrideDataType.IDENTIFIED_SPECTRA);
+
+        obj = new ObjectValue();
+        obj.append(SERIES, createSeries(UNIDENTIFIED_SPECTRA, UNIDENTIFIED_SPECTRA,
+                unIntensities == null ? null : new BinsValue(dataSource),
+                unIntensities == null ? null : new DecimalsValue(unIntensities)));
+        obj.append(SERIES, createSeries(IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA,
+                idIntensities == null ? null : new BinsValue(dataSource),
+                idIntensities == null ? null : new DecimalsValue(idIntensities)));
+        obj.put(EXPERIMENT_SIZE, new IntValue(reader.getSpectraSize()));
+        return obj;
+    }
+
+    private boolean containsType(PrideXYDataSource dataSource, PrideDataType dataType) {
+        PrideDataColumns rangeColumns = dataSource.getRangeColumns();
+        for (int i = 0; i < rangeColumns.size(); i++) {
+            if (rangeColumns.getType(i) == dataType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JSONValue createPreMasses() {
+        ObjectValue obj = createErrorValue(PrideChartType.PRECURSOR_MASSES);
+        if (obj != null) {
+            return obj;
+        }
+
+        PrideXYDataSource dataSource = reader.getXYDataSourceMap().get(PrideChartType.PRECURSOR_MASSES);
+        if (dataSource == null) {
+            return null;
+        }
+
+        obj = new ObjectValue();
+        if (containsType(dataSource, PrideDataType.UNIDENTIFIED_SPECTRA)) {
+            obj.append(SERIES, createSeries(UNIDENTIFIED_SPECTRA, UNIDENTIFIED_SPECTRA,
+                    new XYValue(dataSource, PrideDataType.UNIDENTIFIED_SPECTRA, true),
+                    new XYValue(dataSource, PrideDataType.UNIDENTIFIED_SPECTRA, false)));
+        } else {
+            obj.append(SERIES, createSeries(UNIDENTIFIED_SPECTRA, UNIDENTIFIED_SPECTRA, null, null));
+        }
+        if (containsType(dataSource, PrideDataType.IDENTIFIED_SPECTRA)) {
+            obj.append(SERIES, createSeries(IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA,
+                    new XYValue(dataSource, PrideDataType.IDENTIFIED_SPECTRA, true),
+                    new XYValue(dataSource, PrideDataType.IDENTIFIED_SPECTRA, false)));
+        } else {
+            obj.append(SERIES, createSeries(IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA, null, null));
+        }
+        obj.put(UNIDENTIFIED_FREQUENCY, new IntValue(reader.getUnidentifiedSpectraSize()));
+        obj.put(IDENTIFIED_FREQUENCY, new IntValue(reader.getIdentifiedSpectraSize()));
+        return obj;
+    }
+
+    private JSONValue createPeaksMS() {
+        ObjectValue obj = createErrorValue(PrideChartType.PEAKS_MS);
+        if (obj != null) {
+            return obj;
+        }
+
+        PrideHistogramDataSource dataSource = reader.getHistogramDataSourceMap().get(PrideChartType.PEAKS_MS);
+        if (dataSource == null) {
+            return null;
+        }
+
+        obj = new ObjectValue();
+        obj.append(SERIES, createSeries(INTENSITY, null,
+                new BinsValue(dataSource), new CountsValue(dataSource.getCounts(PrideDataType.ALL_SPECTRA))));
+        obj.put(EXPERIMENT_SIZE, new IntValue(reader.getSpectraSize()));
+        return obj;
+    }
+
+    private JSONValue createPeakIntensity() {
+        ObjectValue obj = createErrorValue(PrideChartType.PEAK_INTENSITY);
+        if (obj != null) {
+            return obj;
+        }
+
+        PrideHistogramDataSource dataSource = reader.getHistogramDataSourceMap().get(PrideChartType.PEAK_INTENSITY);
+        if (dataSource == null) {
+            return null;
+        }
+
+        int[] idCounts = dataSource.getCounts(PrideDataType.IDENTIFIED_SPECTRA);
+        int[] unCounts = dataSource.getCounts(PrideDataType.UNIDENTIFIED_SPECTRA);
+
+        obj = new ObjectValue();
+        obj.append(SERIES, createSeries(IDENTIFIED_SPECTRA, IDENTIFIED_SPECTRA,
+                idCounts == null ? null : new BinsValue(dataSource),
+                idCounts == null ? null : new CountsValue(idCounts)));
+        obj.append(SERIES, createSeries(UNIDENTIFIED_SPECTRA, UNIDENTIFIED_SPECTRA,
+                unCounts == null ? null : new BinsValue(dataSource),
+                unCounts == null ? null : new CountsValue(unCounts)));
+        obj.put(EXPERIMENT_SIZE, new IntValue(reader.getSpectraSize()));
+        return obj;
+    }
 }
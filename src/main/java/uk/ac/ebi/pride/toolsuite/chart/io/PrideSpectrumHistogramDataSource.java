@@ -11,19 +11,104 @@ import java.util.*;
  */
 public class PrideSpectrumHistogramDataSource extends PrideEqualWidthHistogramDataSource {
 
-    private class PridePeak {
-        double mz;
-        double intensity;
-        PrideDataType dataType;
+    public static final double DEFAULT_MZ_START = 0;
+    public static final double DEFAULT_MZ_BIN_WIDTH = 1;
+
+    /**
+     * Sparse intensity sums indexed by m/z offset. The offsets are split into chunks of fixed size, and
+     * only the chunks which have peaks are allocated, so a fine bin width not costs the empty m/z regions.
+     */
+    private static class IntensityChunks {
+        private static final int CHUNK_BITS = 10;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+        private double[][] chunks = new double[16][];
+        // the max offset + 1.
+        private int size = 0;
+
+        private void add(int offset, double intensity) {
+            int index = offset >>> CHUNK_BITS;
+            if (index >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(chunks.length * 2, index + 1));
+            }
+
+            double[] chunk = chunks[index];
+            if (chunk == null) {
+                chunk = new double[CHUNK_SIZE];
+                chunks[index] = chunk;
+            }
+
+            chunk[offset & CHUNK_MASK] += intensity;
+            if (offset >= size) {
+                size = offset + 1;
+            }
+        }
+
+        private void addAll(IntensityChunks other) {
+            double[] chunk;
+            for (int i = 0; i < other.chunks.length; i++) {
+                chunk = other.chunks[i];
+                if (chunk == null) {
+                    continue;
+                }
+                for (int j = 0; j < CHUNK_SIZE; j++) {
+                    if (chunk[j] != 0) {
+                        add((i << CHUNK_BITS) | j, chunk[j]);
+                    }
+                }
+            }
+        }
 
-        private PridePeak(double mz, double intensity, PrideDataType dataType) {
-            this.mz = mz;
-            this.intensity = intensity;
-            this.dataType = dataType;
+        private double get(int offset) {
+            int index = offset >>> CHUNK_BITS;
+            double[] chunk = index < chunks.length ? chunks[index] : null;
+            return chunk == null ? 0 : chunk[offset & CHUNK_MASK];
+        }
+
+        /**
+         * @return the offsets which have intensity in ascending order, only the allocated chunks are scanned.
+         */
+        private int[] getOffsets() {
+            int count = 0;
+            for (double[] chunk : chunks) {
+                if (chunk != null) {
+                    for (double intensity : chunk) {
+                        if (intensity != 0) {
+                            count++;
+                        }
+                    }
+                }
+            }
+
+            int[] offsets = new int[count];
+            int k = 0;
+            double[] chunk;
+            for (int i = 0; i < chunks.length; i++) {
+                chunk = chunks[i];
+                if (chunk == null) {
+                    continue;
+                }
+                for (int j = 0; j < CHUNK_SIZE; j++) {
+                    if (chunk[j] != 0) {
+                        offsets[k++] = (i << CHUNK_BITS) | j;
+                    }
+                }
+            }
+            return offsets;
         }
     }
 
-    private List<PridePeak> peakList = new ArrayList<PridePeak>();
+    private final double mzStart;
+    private final double mzBinWidth;
+
+    // null if no peak of the data type has been added.
+    private IntensityChunks allIntensities = new IntensityChunks();
+    private IntensityChunks idIntensities;
+    private IntensityChunks unIntensities;
+
+    // the max m/z value, which is the end of generated bins.
+    private double maxMz = Double.MIN_VALUE;
 
     // If add data into data source, modify set true. Which means histogram map need to regenerate again.
     private boolean modify = true;
@@ -31,55 +116,294 @@ public class PrideSpectrumHistogramDataSource extends PrideEqualWidthHistogramDa
 
 
     public PrideSpectrumHistogramDataSource(boolean calcAllSpectra) {
+        this(calcAllSpectra, DEFAULT_MZ_START, DEFAULT_MZ_BIN_WIDTH);
+    }
+
+    /**
+     * The intensities are summed by the m/z bins [mzStart + i * mzBinWidth, mzStart + (i + 1) * mzBinWidth),
+     * e.g. 0.01 Da bin width for high resolution spectra.
+     */
+    public PrideSpectrumHistogramDataSource(boolean calcAllSpectra, double mzStart, double mzBinWidth) {
         super(new PrideData[0], calcAllSpectra, false);
+
+        if (mzBinWidth <= 0) {
+            throw new IllegalArgumentException("Bin width should be great than 0");
+        }
+        this.mzStart = mzStart;
+        this.mzBinWidth = mzBinWidth;
+    }
+
+    public double getMzStart() {
+        return mzStart;
+    }
+
+    public double getMzBinWidth() {
+        return mzBinWidth;
+    }
+
+    double getMaxMz() {
+        return maxMz;
+    }
+
+    void setMaxMz(double maxMz) {
+        this.maxMz = maxMz;
+        modify = true;
     }
 
     public void addSpectrum(Spectrum spectrum, PrideDataType dataType) {
         double[] mzArray = spectrum.getMzBinaryDataArray().getDoubleArray();
         double[] intensityArray = spectrum.getIntensityBinaryDataArray().getDoubleArray();
 
-        PridePeak peak;
         for (int i = 0; i < mzArray.length; i++) {
-            peak = new PridePeak(
-                    mzArray[i],
-                    i < intensityArray.length ? intensityArray[i] : 0d,
-                    dataType
-            );
-            peakList.add(peak);
+            addPeak(mzArray[i], i < intensityArray.length ? intensityArray[i] : 0d, dataType);
+        }
+    }
+
+    /**
+     * The intensity is added into the m/z bin directly, the peak is not kept. A peak which m/z is less than
+     * the m/z start is ignored.
+     */
+    public void addPeak(double mz, double intensity, PrideDataType dataType) {
+        if (mz > maxMz) {
+            maxMz = mz;
         }
 
         modify = true;
+        if (mz < mzStart) {
+            return;
+        }
+
+        addIntensity((int)Math.floor((mz - mzStart) / mzBinWidth), intensity, dataType);
     }
 
-    public void addPeak(double mz, double intensity, PrideDataType dataType) {
-        PridePeak peak = new PridePeak(mz, intensity, dataType);
-        peakList.add(peak);
+    private void addIntensity(int offset, double intensity, PrideDataType dataType) {
+        if (dataType == PrideDataType.IDENTIFIED_SPECTRA) {
+            if (idIntensities == null) {
+                idIntensities = new IntensityChunks();
+            }
+            idIntensities.add(offset, intensity);
+        } else if (dataType == PrideDataType.UNIDENTIFIED_SPECTRA) {
+            if (unIntensities == null) {
+                unIntensities = new IntensityChunks();
+            }
+            unIntensities.add(offset, intensity);
+        } else if (dataType == PrideDataType.ALL_SPECTRA) {
+            allIntensities.add(offset, intensity);
+        }
+
+        if (isCalcAllSpectra()) {
+            allIntensities.add(offset, intensity);
+        }
+    }
+
+    /**
+     * Add the intensity sum of a m/z bin into the data type only, all spectra intensities are not calculated
+     * again. Which restores the intensities stored by {@link PrideBinaryWriter}.
+     */
+    void addMzIntensity(int offset, double intensity, PrideDataType dataType) {
+        if (dataType == PrideDataType.IDENTIFIED_SPECTRA) {
+            if (idIntensities == null) {
+                idIntensities = new IntensityChunks();
+            }
+            idIntensities.add(offset, intensity);
+        } else if (dataType == PrideDataType.UNIDENTIFIED_SPECTRA) {
+            if (unIntensities == null) {
+                unIntensities = new IntensityChunks();
+            }
+            unIntensities.add(offset, intensity);
+        } else if (dataType == PrideDataType.ALL_SPECTRA) {
+            allIntensities.add(offset, intensity);
+        }
+
+        modify = true;
+    }
+
+    /**
+     * @return the m/z offsets which have intensity of the data type in ascending order, or null if the data
+     * type not exists. The empty m/z regions are skipped without allocation.
+     */
+    int[] getMzOffsets(PrideDataType dataType) {
+        IntensityChunks intensities = getIntensityChunks(dataType);
+        return intensities == null ? null : intensities.getOffsets();
+    }
+
+    /**
+     * @return the intensity sums of the data type at the m/z offsets, see {@link #getMzOffsets(PrideDataType)}.
+     */
+    double[] getMzIntensities(PrideDataType dataType, int[] offsets) {
+        IntensityChunks intensities = getIntensityChunks(dataType);
+        double[] mzIntensities = new double[offsets.length];
+        for (int i = 0; intensities != null && i < offsets.length; i++) {
+            mzIntensities[i] = intensities.get(offsets[i]);
+        }
+        return mzIntensities;
+    }
+
+    private IntensityChunks getIntensityChunks(PrideDataType dataType) {
+        if (dataType == PrideDataType.ALL_SPECTRA) {
+            return allIntensities;
+        } else if (dataType == PrideDataType.IDENTIFIED_SPECTRA) {
+            return idIntensities;
+        } else if (dataType == PrideDataType.UNIDENTIFIED_SPECTRA) {
+            return unIntensities;
+        }
+        return null;
+    }
+
+    /**
+     * Add the intensities of other spectrum data source, which are re-binned if the m/z bins are different.
+     * The bins are generated again with the same start and width, which cover the peaks of both data sources.
+     */
+    @Override
+    public void merge(PrideHistogramDataSource other) {
+        if (! (other instanceof PrideSpectrumHistogramDataSource)) {
+            throw new IllegalArgumentException("Only spectrum histogram data source can be merged.");
+        }
+        if (other == this) {
+            throw new IllegalArgumentException("Can not merge data source with itself.");
+        }
+
+        PrideSpectrumHistogramDataSource otherDataSource = (PrideSpectrumHistogramDataSource) other;
+        if (mzStart == otherDataSource.mzStart && mzBinWidth == otherDataSource.mzBinWidth) {
+            allIntensities.addAll(otherDataSource.allIntensities);
+            if (otherDataSource.idIntensities != null) {
+                if (idIntensities == null) {
+                    idIntensities = new IntensityChunks();
+                }
+                idIntensities.addAll(otherDataSource.idIntensities);
+            }
+            if (otherDataSource.unIntensities != null) {
+                if (unIntensities == null) {
+                    unIntensities = new IntensityChunks();
+                }
+                unIntensities.addAll(otherDataSource.unIntensities);
+            }
+        } else {
+            rebin(otherDataSource, otherDataSource.allIntensities, PrideDataType.ALL_SPECTRA);
+            rebin(otherDataSource, otherDataSource.idIntensities, PrideDataType.IDENTIFIED_SPECTRA);
+            rebin(otherDataSource, otherDataSource.unIntensities, PrideDataType.UNIDENTIFIED_SPECTRA);
+        }
+
+        maxMz = Math.max(maxMz, otherDataSource.maxMz);
+        if (! bins.isEmpty()) {
+            double start = getStart();
+            double binWidth = getBinWidth();
+            clearBins();
+            appendBins(generateBins(start, binWidth));
+        } else if (! otherDataSource.bins.isEmpty()) {
+            appendBins(generateBins(otherDataSource.getStart(), otherDataSource.getBinWidth()));
+        }
 
         modify = true;
     }
 
+    /**
+     * Add every m/z bin of other data source into the bin of current data source, which its start falls in.
+     * The intensities are added once, all spectra intensities of other data source are not calculated again.
+     */
+    private void rebin(PrideSpectrumHistogramDataSource other, IntensityChunks otherIntensities, PrideDataType dataType) {
+        if (otherIntensities == null) {
+            return;
+        }
+
+        IntensityChunks intensities;
+        if (dataType == PrideDataType.IDENTIFIED_SPECTRA) {
+            if (idIntensities == null) {
+                idIntensities = new IntensityChunks();
+            }
+            intensities = idIntensities;
+        } else if (dataType == PrideDataType.UNIDENTIFIED_SPECTRA) {
+            if (unIntensities == null) {
+                unIntensities = new IntensityChunks();
+            }
+            intensities = unIntensities;
+        } else {
+            intensities = allIntensities;
+        }
+
+        double[] chunk;
+        double mz;
+        for (int i = 0; i < otherIntensities.chunks.length; i++) {
+            chunk = otherIntensities.chunks[i];
+            if (chunk == null) {
+                continue;
+            }
+            for (int j = 0; j < IntensityChunks.CHUNK_SIZE; j++) {
+                mz = other.mzStart + ((i << IntensityChunks.CHUNK_BITS) | j) * other.mzBinWidth;
+                if (chunk[j] != 0 && mz >= mzStart) {
+                    intensities.add((int)Math.floor((mz - mzStart) / mzBinWidth), chunk[j]);
+                }
+            }
+        }
+    }
+
     @Override
     public Collection<PrideHistogramBin> generateBins(double start, double binWidth) {
         if (binWidth <= 0) {
             throw new IllegalArgumentException("Bin width should be great than 0");
         }
 
-        double end = Double.MIN_VALUE;
-        for (PridePeak peak : peakList) {
-            double v = peak.mz;
-            if (v > end) {
-                end = v;
+        int binCount = (int)Math.ceil((maxMz - start) / binWidth);
+        return generateBins(start, binWidth, binCount);
+    }
+
+    /**
+     * The boundaries of fine m/z bins carry rounding errors, so the widths are compared by a relative tolerance.
+     */
+    @Override
+    protected boolean isSameBinWidth(double binWidth, double otherBinWidth) {
+        return Math.abs(binWidth - otherBinWidth) <= Math.max(binWidth, otherBinWidth) * 1e-6;
+    }
+
+    /**
+     * Generate the bins of the m/z start and bin width of current data source.
+     */
+    public Collection<PrideHistogramBin> generateMzBins() {
+        return generateBins(mzStart, mzBinWidth);
+    }
+
+    /**
+     * If the bins are the m/z bins of current data source, the m/z offset is the bin position, and the offsets
+     * which exceed the bins fall in the last bin. Otherwise the m/z bin is put into the bin which contains its
+     * center.
+     */
+    private double[] createBinIntensities(PrideHistogramBin[] binArray, IntensityChunks intensities) {
+        double[] binIntensities = new double[binArray.length];
+        if (binArray.length > 0) {
+            boolean mzBins = binArray[0].getStartBoundary() == mzStart &&
+                             isSameBinWidth(binArray[0].getBinWidth(), mzBinWidth);
+            int last = binArray.length - 1;
+            double[] chunk;
+            int offset;
+            int index;
+            for (int i = 0; i < intensities.chunks.length; i++) {
+                chunk = intensities.chunks[i];
+                if (chunk == null) {
+                    continue;
+                }
+                for (int j = 0; j < IntensityChunks.CHUNK_SIZE; j++) {
+                    offset = (i << IntensityChunks.CHUNK_BITS) | j;
+                    if (offset >= intensities.size) {
+                        break;
+                    }
+                    if (mzBins) {
+                        index = offset < last ? offset : last;
+                    } else {
+                        index = getBinIndex(mzStart + (offset + 0.5) * mzBinWidth, PrideHistogramRangePolicy.CLAMP);
+                    }
+                    binIntensities[index] += chunk[j];
+                }
             }
         }
-
-        int binCount = (int)Math.ceil((end - start) / binWidth);
-        return generateBins(start, binWidth, binCount);
+        return binIntensities;
     }
 
-    private SortedMap<PrideHistogramBin, Double> createEmptyHistogram() {
+    private SortedMap<PrideHistogramBin, Double> createHistogram(PrideHistogramBin[] binArray, IntensityChunks intensities) {
+        double[] binIntensities = createBinIntensities(binArray, intensities);
+
         SortedMap<PrideHistogramBin, Double> histogram = new TreeMap<PrideHistogramBin, Double>();
-        for (PrideHistogramBin bin : bins) {
-            histogram.put(bin, 0.0);
+        for (int i = 0; i < binArray.length; i++) {
+            histogram.put(binArray[i], binIntensities[i]);
         }
         return histogram;
     }
@@ -89,6 +413,20 @@ public class PrideSpectrumHistogramDataSource extends PrideEqualWidthHistogramDa
         throw new UnsupportedOperationException("Please use getIntensityMap() method.");
     }
 
+    @Deprecated
+    public Map<PrideDataType, int[]> getCountMap() {
+        throw new UnsupportedOperationException("Please use getIntensityMap() method.");
+    }
+
+    /**
+     * @return the intensities of data type in the order of bins, the same values as {@link #getIntensityMap()}
+     * without boxing, or null if the data type not exists.
+     */
+    public double[] getIntensities(PrideDataType dataType) {
+        IntensityChunks intensities = getIntensityChunks(dataType);
+        return intensities == null ? null : createBinIntensities(bins.toArray(new PrideHistogramBin[bins.size()]), intensities);
+    }
+
     public SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Double>> getIntensityMap() {
         if (! modify) {
             return histMap;
@@ -96,43 +434,13 @@ public class PrideSpectrumHistogramDataSource extends PrideEqualWidthHistogramDa
 
         this.histMap = new TreeMap<PrideDataType, SortedMap<PrideHistogramBin, Double>>();
 
-        SortedMap<PrideHistogramBin, Double> idHistogram;
-        SortedMap<PrideHistogramBin, Double> unHistogram;
-        SortedMap<PrideHistogramBin, Double> allHistogram = createEmptyHistogram();
-        histMap.put(PrideDataType.ALL_SPECTRA, allHistogram);
-
-        PrideHistogramBin bin;
         PrideHistogramBin[] binArray = bins.toArray(new PrideHistogramBin[bins.size()]);
-        int offset;
-        for (PridePeak peak : peakList) {
-            offset = (int)Math.floor(peak.mz);
-            if (offset < binArray.length) {
-                bin = binArray[offset];
-            } else {
-                bin = binArray[binArray.length - 1];
-            }
-
-            if (peak.dataType == PrideDataType.IDENTIFIED_SPECTRA) {
-                idHistogram = histMap.get(PrideDataType.IDENTIFIED_SPECTRA);
-                if (idHistogram == null) {
-                    idHistogram = createEmptyHistogram();
-                    histMap.put(PrideDataType.IDENTIFIED_SPECTRA, idHistogram);
-                }
-                idHistogram.put(bin, idHistogram.get(bin) + peak.intensity);
-            } else if (peak.dataType == PrideDataType.UNIDENTIFIED_SPECTRA) {
-                unHistogram = histMap.get(PrideDataType.UNIDENTIFIED_SPECTRA);
-                if (unHistogram == null) {
-                    unHistogram = createEmptyHistogram();
-                    histMap.put(PrideDataType.UNIDENTIFIED_SPECTRA, unHistogram);
-                }
-                unHistogram.put(bin, unHistogram.get(bin) + peak.intensity);
-            } else if (peak.dataType == PrideDataType.ALL_SPECTRA) {
-                allHistogram.put(bin, allHistogram.get(bin) + peak.intensity);
-            }
-
-            if (isCalcAllSpectra()) {
-                allHistogram.put(bin, allHistogram.get(bin) + peak.intensity);
-            }
+        histMap.put(PrideDataType.ALL_SPECTRA, createHistogram(binArray, allIntensities));
+        if (idIntensities != null) {
+            histMap.put(PrideDataType.IDENTIFIED_SPECTRA, createHistogram(binArray, idIntensities));
+        }
+        if (unIntensities != null) {
+            histMap.put(PrideDataType.UNIDENTIFIED_SPECTRA, createHistogram(binArray, unIntensities));
         }
 
         modify = false;
@@ -0,0 +1,97 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataColumns;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramAccumulator;
+
+import java.util.*;
+
+/**
+ * Accumulators filled by the protein traversal of {@link DataAccessReader}. A shard of proteins
+ * fills its own instance, and the shards are merged in protein order, which keeps the
+ * generated charts identical to a serial traversal.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class ProteinStatistics {
+    boolean noPeptide = true;
+    int peptideSize = 0;
+
+    int[] peptideBars = new int[6];
+    PrideDataColumns deltaMZList = new PrideDataColumns();
+    PrideDataColumns missedBars = new PrideDataColumns();
+
+    // only used in streaming mode, replace missedBars.
+    PrideHistogramAccumulator missedCounter;
+
+    // identified spectra, spectrum index * 2 + 1 if decoy, applied to SpectrumStatusIndex after the traversal.
+    int[] spectrumMarks = new int[16];
+    int spectrumMarkSize = 0;
+
+    // study variable id --> quantitation values
+    Map<Comparable, List<Double>> variablesStudy = new HashMap<Comparable, List<Double>>();
+
+    ProteinStatistics(Collection<Comparable> studyVariables, boolean streaming) {
+        if (streaming) {
+            missedCounter = new PrideHistogramAccumulator(0, 1, false);
+        }
+        for (Comparable studyVariable : studyVariables) {
+            variablesStudy.put(studyVariable, new ArrayList<Double>());
+        }
+    }
+
+    void addMissedCleavages(double missedCleavages, int typeMask) {
+        if (missedCounter == null) {
+            missedBars.add(missedCleavages, typeMask);
+        } else {
+            missedCounter.add(missedCleavages, typeMask);
+        }
+    }
+
+    void markSpectrum(int spectrumIndex, boolean decoy) {
+        addSpectrumMark(spectrumIndex * 2 + (decoy ? 1 : 0));
+    }
+
+    private void addSpectrumMark(int mark) {
+        if (spectrumMarkSize == spectrumMarks.length) {
+            spectrumMarks = Arrays.copyOf(spectrumMarks, spectrumMarks.length * 2);
+        }
+        spectrumMarks[spectrumMarkSize++] = mark;
+    }
+
+    void applySpectrumMarks(SpectrumStatusIndex index) {
+        for (int i = 0; i < spectrumMarkSize; i++) {
+            index.mark(spectrumMarks[i] / 2, spectrumMarks[i] % 2 == 1);
+        }
+    }
+
+    /**
+     * Append the statistics of the proteins which follow current shard.
+     */
+    void merge(ProteinStatistics other) {
+        noPeptide = noPeptide && other.noPeptide;
+        peptideSize += other.peptideSize;
+
+        for (int i = 0; i < peptideBars.length; i++) {
+            peptideBars[i] += other.peptideBars[i];
+        }
+        deltaMZList.addAll(other.deltaMZList);
+        missedBars.addAll(other.missedBars);
+        if (missedCounter != null) {
+            missedCounter.merge(other.missedCounter);
+        }
+
+        for (int i = 0; i < other.spectrumMarkSize; i++) {
+            addSpectrumMark(other.spectrumMarks[i]);
+        }
+
+        for (Map.Entry<Comparable, List<Double>> entry : other.variablesStudy.entrySet()) {
+            List<Double> values = variablesStudy.get(entry.getKey());
+            if (values == null) {
+                variablesStudy.put(entry.getKey(), entry.getValue());
+            } else {
+                values.addAll(entry.getValue());
+            }
+        }
+    }
+}
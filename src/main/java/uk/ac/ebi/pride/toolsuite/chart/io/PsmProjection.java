@@ -0,0 +1,136 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.utilities.data.controller.DataAccessController;
+import uk.ac.ebi.pride.utilities.data.core.*;
+import uk.ac.ebi.pride.utilities.data.filter.AccessionFilter;
+
+import java.util.*;
+
+/**
+ * Project the proteins of a controller into compact peptide spectrum match records, which only keep the
+ * fields used by the protein level charts of {@link DataAccessReader}. A batch of proteins is projected
+ * under one lock of the controller, and the {@link Protein} objects are released right after projection,
+ * so the statistics are calculated without lock on the records only.
+ *
+ * Only the fields of selected charts are projected, the other fields are null.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class PsmProjection {
+
+    /**
+     * The fields of a peptide spectrum match.
+     */
+    static class Psm {
+        // needed by delta m/z and missed cleavages charts.
+        final String sequence;
+        // needed by delta m/z chart.
+        final Double precursorMz;
+        final Integer precursorCharge;
+        final List<Double> modMassDeltas;
+        // only projected with decoy information.
+        final boolean decoy;
+        // index in SpectrumStatusIndex, only projected when the spectrum identification status is needed,
+        // otherwise -1.
+        final int spectrumIndex;
+
+        private Psm(String sequence, Double precursorMz, Integer precursorCharge, List<Double> modMassDeltas,
+                    boolean decoy, int spectrumIndex) {
+            this.sequence = sequence;
+            this.precursorMz = precursorMz;
+            this.precursorCharge = precursorCharge;
+            this.modMassDeltas = modMassDeltas;
+            this.decoy = decoy;
+            this.spectrumIndex = spectrumIndex;
+        }
+    }
+
+    /**
+     * The projected peptide spectrum matches and quantitation peptides of a protein.
+     */
+    static class ProteinPsms {
+        final Psm[] psms;
+        final List<QuantPeptide> quantPeptides;
+
+        private ProteinPsms(Psm[] psms, List<QuantPeptide> quantPeptides) {
+            this.psms = psms;
+            this.quantPeptides = quantPeptides;
+        }
+    }
+
+    private final DataAccessController controller;
+    private final AccessionFilter<String> filter;
+
+    private final boolean sequence;
+    private final boolean deltaMz;
+    private final boolean decoy;
+    private final SpectrumStatusIndex spectrumIndex;
+    private final boolean quantitation;
+
+    /**
+     * @param spectrumIndex the index of spectrum ids, null if the spectrum identification status is not needed.
+     */
+    PsmProjection(DataAccessController controller, AccessionFilter<String> filter,
+                  boolean sequence, boolean deltaMz, boolean decoy, SpectrumStatusIndex spectrumIndex, boolean quantitation) {
+        this.controller = controller;
+        this.filter = filter;
+        this.sequence = sequence || deltaMz;
+        this.deltaMz = deltaMz;
+        this.decoy = decoy;
+        this.spectrumIndex = spectrumIndex;
+        this.quantitation = quantitation;
+    }
+
+    /**
+     * Project the proteins [from, to) of the identifiers, the proteins which are not accepted by the
+     * accession filter are skipped. All calls to the controller are serialized on it.
+     */
+    List<ProteinPsms> project(List<Comparable> proteinIds, int from, int to) {
+        List<ProteinPsms> proteins = new ArrayList<ProteinPsms>(to - from);
+        Comparable proteinId;
+        synchronized (controller) {
+            for (int i = from; i < to; i++) {
+                proteinId = proteinIds.get(i);
+                if (filter != null && !filter.apply(controller.getProteinAccession(proteinId))) {
+                    continue;
+                }
+                proteins.add(project(controller.getProteinById(proteinId)));
+            }
+        }
+        return proteins;
+    }
+
+    private ProteinPsms project(Protein protein) {
+        List<Peptide> peptideList = protein.getPeptides();
+        Psm[] psms = new Psm[peptideList.size()];
+        int i = 0;
+        for (Peptide peptide : peptideList) {
+            psms[i++] = new Psm(
+                    sequence ? peptide.getSequence() : null,
+                    deltaMz ? peptide.getPrecursorMz() : null,
+                    deltaMz ? peptide.getPrecursorCharge() : null,
+                    deltaMz ? getModMassDeltas(peptide) : null,
+                    decoy && peptide.getPeptideEvidence().isDecoy(),
+                    spectrumIndex == null ? -1 : getSpectrumIndex(peptide)
+            );
+        }
+
+        // the quantitation peptides come from the same protein, which not be loaded again.
+        return new ProteinPsms(psms, quantitation ? protein.getQuantPeptides() : null);
+    }
+
+    private int getSpectrumIndex(Peptide peptide) {
+        Comparable spectrumId = controller.getSpectrumIdForPeptide(peptide.getSpectrumIdentification().getId());
+        return spectrumId == null ? -1 : spectrumIndex.indexOf(spectrumId);
+    }
+
+    private List<Double> getModMassDeltas(Peptide peptide) {
+        List<Double> modMassList = new ArrayList<Double>();
+        for (Modification mod : peptide.getModifications()) {
+            if(mod.getMonoisotopicMassDelta().size() > 0)
+               modMassList.add(mod.getMonoisotopicMassDelta().get(0));
+        }
+        return modMassList;
+    }
+}
@@ -0,0 +1,179 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.apache.log4j.Logger;
+import uk.ac.ebi.pride.utilities.data.controller.DataAccessController;
+import uk.ac.ebi.pride.utilities.data.core.Spectrum;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fetch the spectra of {@link DataAccessReader} in batches. With a queue depth greater than 0, a background
+ * thread fetches and decodes the following batches while the current batch is accumulated, and at most
+ * queue depth batches wait in the queue, which keeps the memory bounded. With queue depth 0, the batches
+ * are fetched on the calling thread.
+ *
+ * The batches keep the order of spectrum ids. All calls to the controller are serialized on it.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class SpectrumPrefetcher {
+    private static Logger logger = Logger.getLogger(SpectrumPrefetcher.class);
+
+    /**
+     * A fetched spectrum and its index in the spectrum ids, the ms level is 0 if it is not needed.
+     */
+    static class FetchedSpectrum {
+        final int index;
+        final Comparable id;
+        final Spectrum spectrum;
+        final int msLevel;
+
+        private FetchedSpectrum(int index, Comparable id, Spectrum spectrum, int msLevel) {
+            this.index = index;
+            this.id = id;
+            this.spectrum = spectrum;
+            this.msLevel = msLevel;
+        }
+    }
+
+    // the empty batch which marks the end of spectra.
+    private static final List<FetchedSpectrum> END = Collections.emptyList();
+
+    private final DataAccessController controller;
+    private final List<Comparable> spectrumIds;
+    private final int to;
+    private int next;
+    private final int batchSize;
+    private final boolean fetchMsLevel;
+
+    private BlockingQueue<List<FetchedSpectrum>> queue;
+    private Thread producer;
+    private volatile Throwable error;
+    private boolean finished = false;
+
+    /**
+     * Fetch the spectra [from, to) of spectrum ids.
+     */
+    SpectrumPrefetcher(DataAccessController controller, List<Comparable> spectrumIds, int from, int to,
+                       int batchSize, int queueDepth, boolean fetchMsLevel) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size should be great than 0");
+        }
+        if (queueDepth < 0) {
+            throw new IllegalArgumentException("Queue depth should not be less than 0");
+        }
+
+        this.controller = controller;
+        this.spectrumIds = spectrumIds;
+        this.next = from;
+        this.to = to;
+        this.batchSize = batchSize;
+        this.fetchMsLevel = fetchMsLevel;
+
+        if (queueDepth > 0) {
+            queue = new ArrayBlockingQueue<List<FetchedSpectrum>>(queueDepth);
+            producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    produce();
+                }
+            }, "spectrum-prefetch");
+            producer.setDaemon(true);
+            producer.start();
+        }
+    }
+
+    private List<FetchedSpectrum> fetchBatch() {
+        List<FetchedSpectrum> batch = new ArrayList<FetchedSpectrum>(batchSize);
+        Comparable spectrumId;
+        synchronized (controller) {
+            while (batch.size() < batchSize && next < to) {
+                spectrumId = spectrumIds.get(next);
+                batch.add(new FetchedSpectrum(
+                        next++,
+                        spectrumId,
+                        controller.getSpectrumById(spectrumId),
+                        fetchMsLevel ? controller.getSpectrumMsLevel(spectrumId) : 0
+                ));
+            }
+        }
+        return batch;
+    }
+
+    private void produce() {
+        try {
+            List<FetchedSpectrum> batch;
+            while (! (batch = fetchBatch()).isEmpty()) {
+                queue.put(batch);
+            }
+        } catch (InterruptedException e) {
+            // closed by the consumer, the interrupt stops the put of END below.
+            Thread.currentThread().interrupt();
+            logger.debug("Spectrum prefetch is interrupted.");
+        } catch (Throwable e) {
+            // e.g. OutOfMemoryError while decoding a huge spectrum, which is thrown to the consumer.
+            error = e;
+        } finally {
+            if (error != null) {
+                // the waiting batches are not used any more, the consumer throws the error at the next batch.
+                queue.clear();
+            }
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                logger.debug("Spectrum prefetch is interrupted.");
+            }
+        }
+    }
+
+    /**
+     * @return the next batch of spectra, or null if all spectra have been fetched. The exception or error
+     * of the background thread is thrown here, the batches which are fetched before it may be dropped.
+     */
+    List<FetchedSpectrum> nextBatch() {
+        if (finished) {
+            return null;
+        }
+
+        List<FetchedSpectrum> batch;
+        if (queue == null) {
+            batch = fetchBatch();
+        } else {
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for spectra.", e);
+            }
+            if (error != null) {
+                finished = true;
+                if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                } else if (error instanceof Error) {
+                    throw (Error) error;
+                }
+                throw new IllegalStateException(error);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            finished = true;
+            return null;
+        }
+        return batch;
+    }
+
+    /**
+     * Stop the background thread, if the spectra are not consumed to the end.
+     */
+    void close() {
+        finished = true;
+        if (producer != null) {
+            producer.interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataColumns;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramAccumulator;
+
+/**
+ * Accumulators filled by the spectrum traversal of {@link DataAccessReader}. A range of spectrum ids
+ * fills its own instance, and the ranges are merged in spectrum order.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class SpectrumStatistics {
+    boolean noSpectra = true;
+    boolean noTandemSpectra = true;
+    int identifiedSpectraSize = 0;
+    int unidentifiedSpectraSize = 0;
+
+    int[] preChargeBars = new int[8];
+    PrideDataColumns preMassedList = new PrideDataColumns();
+    PrideDataColumns peaksMSList = new PrideDataColumns();
+    PrideDataColumns peaksIntensityList = new PrideDataColumns();
+
+    // only used in streaming mode, replace the lists.
+    PrideHistogramAccumulator preMassesCounter;
+    PrideHistogramAccumulator peaksMSCounter;
+    PrideHistogramAccumulator peaksIntensityCounter;
+
+    PrideSpectrumHistogramDataSource avgDataSource;
+
+    SpectrumStatistics(PrideSpectrumHistogramDataSource avgDataSource, PrideHistogramAccumulator preMassesCounter,
+                       PrideHistogramAccumulator peaksMSCounter, PrideHistogramAccumulator peaksIntensityCounter) {
+        this.avgDataSource = avgDataSource;
+        this.preMassesCounter = preMassesCounter;
+        this.peaksMSCounter = peaksMSCounter;
+        this.peaksIntensityCounter = peaksIntensityCounter;
+    }
+
+    /**
+     * Append the statistics of the spectra which follow current range.
+     */
+    void merge(SpectrumStatistics other) {
+        noSpectra = noSpectra && other.noSpectra;
+        noTandemSpectra = noTandemSpectra && other.noTandemSpectra;
+        identifiedSpectraSize += other.identifiedSpectraSize;
+        unidentifiedSpectraSize += other.unidentifiedSpectraSize;
+
+        for (int i = 0; i < preChargeBars.length; i++) {
+            preChargeBars[i] += other.preChargeBars[i];
+        }
+        preMassedList.addAll(other.preMassedList);
+        peaksMSList.addAll(other.peaksMSList);
+        peaksIntensityList.addAll(other.peaksIntensityList);
+        if (preMassesCounter != null) {
+            preMassesCounter.merge(other.preMassesCounter);
+            peaksMSCounter.merge(other.peaksMSCounter);
+            peaksIntensityCounter.merge(other.peaksIntensityCounter);
+        }
+
+        avgDataSource.merge(other.avgDataSource);
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import java.util.*;
+
+/**
+ * Identification status of the spectra read by {@link DataAccessReader}. The spectrum ids are mapped to
+ * dense indexes once, the position in {@link #getSpectrumIds()}, and the status of every spectrum is a
+ * byte of {@link #IDENTIFIED}, {@link #TARGET} and {@link #DECOY} flags. The spectrum traversal follows
+ * the id list, so it reads the status by position without looking up the id.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+class SpectrumStatusIndex {
+    static final byte IDENTIFIED = 1;
+    static final byte TARGET = 2;
+    static final byte DECOY = 4;
+
+    private final List<Comparable> spectrumIds;
+    private final byte[] status;
+
+    // spectrum id --> index, only created when the spectra would be marked.
+    private Map<Comparable, Integer> indexMap;
+
+    SpectrumStatusIndex(Collection<Comparable> spectrumIds, boolean markable) {
+        this.spectrumIds = new ArrayList<Comparable>(spectrumIds);
+        this.status = new byte[this.spectrumIds.size()];
+
+        if (markable) {
+            indexMap = new HashMap<Comparable, Integer>(this.spectrumIds.size() * 4 / 3 + 1);
+            for (int i = 0; i < this.spectrumIds.size(); i++) {
+                indexMap.put(this.spectrumIds.get(i), i);
+            }
+        }
+    }
+
+    List<Comparable> getSpectrumIds() {
+        return spectrumIds;
+    }
+
+    int size() {
+        return status.length;
+    }
+
+    /**
+     * @return the index of spectrum id, or -1 if the spectrum not exists.
+     */
+    int indexOf(Comparable spectrumId) {
+        if (indexMap == null) {
+            throw new IllegalStateException("The spectrum index is not markable.");
+        }
+
+        Integer index = indexMap.get(spectrumId);
+        return index == null ? -1 : index;
+    }
+
+    void mark(int index, boolean decoy) {
+        status[index] |= IDENTIFIED | (decoy ? DECOY : TARGET);
+    }
+
+    byte getStatus(int index) {
+        return status[index];
+    }
+
+    boolean isIdentified(int index) {
+        return (status[index] & IDENTIFIED) != 0;
+    }
+}
@@ -3,6 +3,8 @@ package uk.ac.ebi.pride.toolsuite.chart.plot;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.axis.NumberTickUnit;
 import org.jfree.chart.renderer.xy.XYSplineRenderer;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDataset;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
@@ -20,14 +22,14 @@ import java.util.List;
  * Date: 14/06/13
  */
 public class PrecursorMassesPlot extends PrideXYPlot {
-    // pre-store all spectra series based on input dataset.
-    private List<XYSeries> spectraSeriesList = new ArrayList<XYSeries>();
+    // all spectra series based on input dataset.
+    private XYDataset spectraDataset;
 
-    // store all series displayed on the plot.
-    private XYSeriesCollection seriesCollection = new XYSeriesCollection();
+    // the special spectral series displayed on the plot, which is dataset 0.
+    private SpectraSeries spectraSeries;
 
-    // used to store the special spectral series.
-    private XYSeries spectraSeries;
+    // store all quartiles series displayed on the plot, which is dataset 1.
+    private XYSeriesCollection seriesCollection = new XYSeriesCollection();
 
     private List<XYSeries> quartilesSeries;
 
@@ -38,13 +40,52 @@ public class PrecursorMassesPlot extends PrideXYPlot {
     private List<XYSeries> mouseQuartilesSeries;
     private List<XYSeries> prideQuartilesSeries;
 
-    public PrecursorMassesPlot(XYSeriesCollection dataset, PrideDataType spectraType) {
+    /**
+     * Read-only view of one series of the spectra dataset, no data copied.
+     */
+    private static class SpectraSeries extends AbstractXYDataset {
+        private XYDataset dataset;
+        private int series;
+
+        private SpectraSeries(XYDataset dataset, int series) {
+            this.dataset = dataset;
+            this.series = series;
+        }
+
+        @Override
+        public int getSeriesCount() {
+            return 1;
+        }
+
+        @Override
+        public Comparable getSeriesKey(int series) {
+            return dataset.getSeriesKey(this.series);
+        }
+
+        @Override
+        public int getItemCount(int series) {
+            return dataset.getItemCount(this.series);
+        }
+
+        @Override
+        public Number getX(int series, int item) {
+            return dataset.getX(this.series, item);
+        }
+
+        @Override
+        public Number getY(int series, int item) {
+            return dataset.getY(this.series, item);
+        }
+    }
+
+    public PrecursorMassesPlot(XYDataset dataset, PrideDataType spectraType) {
         this(dataset, spectraType, QuartilesType.NONE, true);
     }
 
-    public PrecursorMassesPlot(XYSeriesCollection dataset, PrideDataType spectraType, QuartilesType quartilesType, boolean smallPlot) {
+    public PrecursorMassesPlot(XYDataset dataset, PrideDataType spectraType, QuartilesType quartilesType, boolean smallPlot) {
         super(PrideChartType.PRECURSOR_MASSES, dataset, new XYSplineRenderer(), smallPlot);
-        this.spectraSeriesList.addAll(dataset.getSeries());
+        this.spectraDataset = dataset;
+        setRenderer(1, new XYSplineRenderer());
 
         noneQuartilesSeries = new ArrayList<XYSeries>();
         humanQuartilesSeries = getQuartilesSeries(QuartilesType.HUMAN);
@@ -52,9 +93,6 @@ public class PrecursorMassesPlot extends PrideXYPlot {
         prideQuartilesSeries = getQuartilesSeries(QuartilesType.PRIDE);
 
         spectraSeries = getSpectraSeries(spectraType);
-        if (spectraSeries != null) {
-            seriesCollection.addSeries(spectraSeries);
-        }
 
         switch (quartilesType) {
             case HUMAN:
@@ -88,8 +126,8 @@ public class PrecursorMassesPlot extends PrideXYPlot {
         optionList.put(PrideDataType.UNIDENTIFIED_SPECTRA, false);
 
         PrideDataType dataType;
-        for (XYSeries series : spectraSeriesList) {
-            dataType = PrideDataType.findBy((String) series.getKey());
+        for (int i = 0; i < spectraDataset.getSeriesCount(); i++) {
+            dataType = PrideDataType.findBy((String) spectraDataset.getSeriesKey(i));
             optionList.put(dataType, true);
         }
 
@@ -101,31 +139,29 @@ public class PrecursorMassesPlot extends PrideXYPlot {
         return true;
     }
 
-    private XYSeries getSpectraSeries(PrideDataType dataType) {
+    private SpectraSeries getSpectraSeries(PrideDataType dataType) {
         String seriesKey = dataType.getTitle();
 
-        for (XYSeries series : spectraSeriesList) {
-            if (series.getKey().equals(seriesKey)) {
-                return series;
+        for (int i = 0; i < spectraDataset.getSeriesCount(); i++) {
+            if (spectraDataset.getSeriesKey(i).equals(seriesKey)) {
+                return new SpectraSeries(spectraDataset, i);
             }
         }
         return null;
     }
 
     public void updateSpectraSeries(PrideDataType dateType) {
-        if (spectraSeries.getKey().equals(dateType.getTitle())) {
+        if (spectraSeries.getSeriesKey(0).equals(dateType.getTitle())) {
             return;
         }
 
-        XYSeries series = getSpectraSeries(dateType);
+        SpectraSeries series = getSpectraSeries(dateType);
         if (series == null) {
             // can not find series in internal spectra series list.
             return;
         }
 
-        seriesCollection.removeSeries(spectraSeries);
         spectraSeries = series;
-        seriesCollection.addSeries(spectraSeries);
         refresh();
     }
 
@@ -197,15 +233,32 @@ public class PrecursorMassesPlot extends PrideXYPlot {
     }
 
     private void refresh() {
-        setDataset(seriesCollection);
-        XYSplineRenderer renderer = (XYSplineRenderer) getRenderer();
+        setDataset(0, spectraSeries);
+        setDataset(1, seriesCollection);
+
+        refresh(0);
+        refresh(1);
+
+        // spectra series and three quartiles series, only display one quartiles legend.
+        int spectraSize = spectraSeries == null ? 0 : 1;
+        int seriesSize = seriesCollection.getSeriesCount() + spectraSize;
+        if (seriesSize > 3)
+            getRenderer(1).setSeriesVisibleInLegend(seriesSize - 3 - spectraSize, false);
+    }
+
+    private void refresh(int datasetIndex) {
+        XYDataset dataset = getDataset(datasetIndex);
+        if (dataset == null) {
+            return;
+        }
+        XYSplineRenderer renderer = (XYSplineRenderer) getRenderer(datasetIndex);
 
         String seriesKey;
         Color color;
-        for (int i = 0; i < getSeriesCount(); i++) {
+        for (int i = 0; i < dataset.getSeriesCount(); i++) {
 
             renderer.setSeriesShapesVisible(i, false);
-            seriesKey = (String) getDataset().getSeriesKey(i);
+            seriesKey = (String) dataset.getSeriesKey(i);
 
             if (seriesKey.equals(PrideDataType.ALL_SPECTRA.getTitle())) {
                     color = Color.BLUE;
@@ -231,10 +284,6 @@ public class PrecursorMassesPlot extends PrideXYPlot {
             }
             renderer.setSeriesPaint(i, color);
         }
-
-        int seriesSize = seriesCollection.getSeries().size();
-        if (seriesSize > 3)
-            renderer.setSeriesVisibleInLegend(seriesSize - 3, false);
     }
 
     public void setDomainUnitSize(double domainUnitSize) {
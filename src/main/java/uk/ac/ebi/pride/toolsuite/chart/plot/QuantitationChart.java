@@ -30,39 +30,24 @@ import java.util.*;
  * @author ypriverol
  */
 public class QuantitationChart extends PrideXYPlot {
-    // pre-store all spectra series based on input dataset.
-    private java.util.List<XYSeries> spectraSeriesList = new ArrayList<XYSeries>();
-
-    // store all series displayed on the plot.
-    private XYSeriesCollection seriesCollection = new XYSeriesCollection();
-
-    private XYSeries spectraSeries;
 
     private Map<String, Tuple<Boolean, Boolean>> categories;
 
-    public QuantitationChart(XYSeriesCollection dataset, PrideDataCategoryType prideDataType) {
+    public QuantitationChart(XYDataset dataset, PrideDataCategoryType prideDataType) {
         this(dataset, prideDataType, true);
     }
 
-    public QuantitationChart(XYSeriesCollection dataset, PrideDataCategoryType prideDataType, boolean smallPlot) {
+    /**
+     * All series of dataset are displayed on the plot, the visibility of every study variable
+     * is switched by {@link #updateSpectraSeries(Boolean, String)}.
+     */
+    public QuantitationChart(XYDataset dataset, PrideDataCategoryType prideDataType, boolean smallPlot) {
         super(PrideChartType.QUANTITATION_PEPTIDES, dataset, new XYSplineRenderer(), smallPlot);
 
-        this.spectraSeriesList.addAll(dataset.getSeries());
-
-        for(XYSeries serie: spectraSeriesList){
-            seriesCollection.addSeries(serie);
-        }
-
         categories = new HashMap<String, Tuple<Boolean, Boolean>>();
 
         for(int i=0; i < dataset.getSeriesCount(); i++){
-            categories.put(dataset.getSeries(i).getKey().toString(), new Tuple<Boolean, Boolean>(true, true));
-        }
-
-        //Set first series of the variables
-        spectraSeries = getSpectraSeries(prideDataType.getKey());
-        if (spectraSeries != null) {
-            seriesCollection.addSeries(spectraSeries);
+            categories.put(dataset.getSeriesKey(i).toString(), new Tuple<Boolean, Boolean>(true, true));
         }
 
         refresh();
@@ -82,15 +67,6 @@ public class QuantitationChart extends PrideXYPlot {
         return true;
     }
 
-    private XYSeries getSpectraSeries(String key) {
-        for (int i = 0; i < seriesCollection.getSeriesCount(); i++) {
-            if (seriesCollection.getSeries(i).getKey().equals(key)) {
-                return seriesCollection.getSeries(i);
-            }
-        }
-        return null;
-    }
-
     public void updateSpectraSeries(Boolean status, String key) {
 
         categories.get(key).setValue(status);
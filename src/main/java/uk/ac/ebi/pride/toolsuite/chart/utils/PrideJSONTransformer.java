@@ -2,6 +2,7 @@ package uk.ac.ebi.pride.toolsuite.chart.utils;
 
 import org.apache.log4j.Logger;
 import org.json.JSONException;
+import org.json.JSONWriter;
 import uk.ac.ebi.pride.toolsuite.chart.io.DataAccessReader;
 import uk.ac.ebi.pride.toolsuite.chart.io.PrideDataException;
 import uk.ac.ebi.pride.toolsuite.chart.io.PrideDataReader;
@@ -13,8 +14,12 @@ import uk.ac.ebi.pride.utilities.data.controller.impl.ControllerImpl.PrideXmlCon
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-
-import static uk.ac.ebi.pride.toolsuite.chart.utils.PridePlotConstants.NEW_LINE;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 
 /**
  * @author qingwei
@@ -23,23 +28,35 @@ import static uk.ac.ebi.pride.toolsuite.chart.utils.PridePlotConstants.NEW_LINE;
 public class PrideJSONTransformer {
     private static Logger logger = Logger.getLogger(PrideJSONTransformer.class);
 
+    public static final String REPORT_FILE_NAME = "transform-report.json";
+
     private enum FileType {PRIDE_XML, mzIdentML}
 
     private void writeJSONFile(PrideJSONWriter writer, File outFile) throws JSONException, IOException {
-        StringBuilder sb = new StringBuilder();
+        // the charts are written into file directly, not build the whole json in memory.
+        BufferedWriter out = new BufferedWriter(new FileWriter(outFile));
+        try {
+            writer.write(out);
+        } finally {
+            out.close();
+        }
+    }
 
-        sb.append("1, ").append(writer.getPeakIntensity().toString()).append(NEW_LINE);
-        sb.append("2, ").append(writer.getPreCharge().toString()).append(NEW_LINE);
-        sb.append("3, ").append(writer.getAvg().toString()).append(NEW_LINE);
-        sb.append("4, ").append(writer.getPreMasses().toString()).append(NEW_LINE);
-        sb.append("5, ").append(writer.getPeptides().toString()).append(NEW_LINE);
-        sb.append("6, ").append(writer.getPeaksMS().toString()).append(NEW_LINE);
-        sb.append("7, ").append(writer.getDelta().toString()).append(NEW_LINE);
-        sb.append("8, ").append(writer.getMissed().toString());
+    /**
+     * @return the type of file by name, or null if the file is not supported.
+     */
+    private FileType getFileType(String inFileName) {
+        if (inFileName.endsWith("xml")) {
+            return FileType.PRIDE_XML;
+        } else if (inFileName.endsWith("mzid")) {
+            return FileType.mzIdentML;
+        } else {
+            return null;
+        }
+    }
 
-        BufferedWriter out = new BufferedWriter(new FileWriter(outFile));
-        out.write(sb.toString());
-        out.close();
+    private String getOutFileName(String inFileName) {
+        return inFileName.replaceAll("\\.(xml|mzid)$", ".json");
     }
 
     private String getFileSize(File file) {
@@ -47,73 +64,257 @@ public class PrideJSONTransformer {
         return new BigDecimal(size).setScale(2, RoundingMode.CEILING).toString() + "(MB)";
     }
 
-    public void transform(File inFile, File outDir) throws PrideDataException, IOException, JSONException {
+    /**
+     * Transform the PRIDE XML or mzIdentML file into a json file of outDir, the other files are skipped.
+     * The controller is closed after reading, and the incomplete json file is deleted if writing fails.
+     */
+    public PrideTransformResult transform(File inFile, File outDir) throws PrideDataException, IOException, JSONException {
+        PrideTransformResult result = new PrideTransformResult(inFile);
+        transform(inFile, outDir, result);
+        return result;
+    }
+
+    /**
+     * Transform the file and record into result, the steps done before an exception are kept in result.
+     */
+    private void transform(File inFile, File outDir, PrideTransformResult result) throws PrideDataException, IOException, JSONException {
         PrideDataReader reader;
         PrideJSONWriter writer;
         DataAccessController controller = null;
+        long begin = System.currentTimeMillis();
         long start;
         long end;
 
         String inFileName = inFile.getName();
-        String outFileName = inFileName.replaceAll("\\.(xml|mzid)$", ".json");
-        File outFile = new File(outDir, outFileName);
-
-        FileType type = null;
-        if (inFileName.endsWith("xml")) {
-            type = FileType.PRIDE_XML;
-        } else if (inFileName.endsWith("mzid")) {
-            type = FileType.mzIdentML;
-        }
+        File outFile = new File(outDir, getOutFileName(inFileName));
 
+        FileType type = getFileType(inFileName);
         if (type == null) {
+            result.setStatus(PrideTransformResult.Status.SKIPPED);
             return;
         }
+        result.setFileType(type.name());
 
-        logger.debug("Begin load " + type + " file: " + inFile.getName() + ", file size: " + getFileSize(inFile));
-        start = System.currentTimeMillis();
-        switch (type) {
-            case PRIDE_XML:
-                controller = new PrideXmlControllerImpl(inFile);
-                break;
-            case mzIdentML:
-                controller = new MzIdentMLControllerImpl(inFile);
-                break;
-        }
-        end = System.currentTimeMillis();
-        logger.debug("End load " + type + " file: " + inFile.getName() + ". Cost " + PridePlotUtils.getTimeCost(start, end) + "(s)");
+        try {
+            logger.debug("Begin load " + type + " file: " + inFile.getName() + ", file size: " + getFileSize(inFile));
+            start = System.currentTimeMillis();
+            switch (type) {
+                case PRIDE_XML:
+                    controller = new PrideXmlControllerImpl(inFile);
+                    break;
+                case mzIdentML:
+                    controller = new MzIdentMLControllerImpl(inFile);
+                    break;
+            }
+            end = System.currentTimeMillis();
+            result.setLoadTime(end - start);
+            logger.debug("End load " + type + " file: " + inFile.getName() + ". Cost " + PridePlotUtils.getTimeCost(start, end) + "(s)");
 
-        reader = new DataAccessReader(controller);
+            start = System.currentTimeMillis();
+            reader = new DataAccessReader(controller);
+            result.setReadTime(System.currentTimeMillis() - start);
+        } finally {
+            if (controller != null) {
+                controller.close();
+            }
+        }
 
         start = System.currentTimeMillis();
         writer = new PrideJSONWriter(reader);
-        writeJSONFile(writer, outFile);
-        logger.debug("End export json file: " + outFile.getName() + ". Cost " + PridePlotUtils.getTimeCost(start, System.currentTimeMillis()) + "(s)\n\n\n");
+        boolean written = false;
+        try {
+            writeJSONFile(writer, outFile);
+            written = true;
+        } finally {
+            if (! written) {
+                outFile.delete();
+            }
+        }
+        end = System.currentTimeMillis();
+        result.setWriteTime(end - start);
+        logger.debug("End export json file: " + outFile.getName() + ". Cost " + PridePlotUtils.getTimeCost(start, end) + "(s)\n\n\n");
+
+        result.setOutFile(outFile);
+        result.setOutFileSize(outFile.length());
+        result.setTotalTime(end - begin);
+        result.setStatus(PrideTransformResult.Status.CONVERTED);
     }
 
-    public static void main(String[] args) {
-        File inDir = new File(args[0]);
-        File outDir = new File(args[1]);
+    /**
+     * Transform the files of inDir on a pool of parallelism threads, the sub directories are not visited.
+     * A file which fails is recorded in its result, and does not stop the other files. The results are
+     * in file name order. The files which are transformed into the same json file, e.g. a.mzid and a.xml,
+     * would overwrite each other, so only the first one is transformed, and the others are failed.
+     */
+    public List<PrideTransformResult> transformAll(File inDir, File outDir, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be great than 0");
+        }
 
-        PrideJSONTransformer transformer = new PrideJSONTransformer();
+        File[] files = inDir.listFiles();
+        if (files == null) {
+            throw new IllegalArgumentException("Can not list the input directory: " + inDir);
+        }
+        Arrays.sort(files);
 
         if (! outDir.exists()) {
             outDir.mkdirs();
         }
 
-        for (File inFile : inDir.listFiles()) {
-            if (inFile.isDirectory()) {
-                continue;
+        List<File> inFiles = new ArrayList<File>();
+        for (File inFile : files) {
+            if (! inFile.isDirectory()) {
+                inFiles.add(inFile);
             }
+        }
+
+        List<PrideTransformResult> results = new ArrayList<PrideTransformResult>(inFiles.size());
+        if (inFiles.isEmpty()) {
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, inFiles.size()));
+        try {
+            // the future is null if the output file is taken by a former file.
+            List<Future<PrideTransformResult>> futures = new ArrayList<Future<PrideTransformResult>>(inFiles.size());
+            Set<String> outFileNames = new HashSet<String>();
+            for (File inFile : inFiles) {
+                if (getFileType(inFile.getName()) != null && ! outFileNames.add(getOutFileName(inFile.getName()))) {
+                    futures.add(null);
+                } else {
+                    futures.add(executor.submit(new TransformTask(inFile, outDir)));
+                }
+            }
+
+            PrideTransformResult result;
+            FileType type;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    if (futures.get(i) == null) {
+                        type = getFileType(inFiles.get(i).getName());
+                        result = new PrideTransformResult(inFiles.get(i));
+                        result.setFileType(type.name());
+                        result.setError("Duplicate output file: " + getOutFileName(inFiles.get(i).getName()));
+                        logger.error(inFiles.get(i).getName() + ": " + result.getError());
+                    } else {
+                        result = futures.get(i).get();
+                    }
+                } catch (ExecutionException e) {
+                    // an error of one file, e.g. OutOfMemoryError, which is not caught by the task.
+                    result = new PrideTransformResult(inFiles.get(i));
+                    result.setError(e.getCause());
+                    logger.error(inFiles.get(i).getName() + ": " + result.getError());
+                }
+                results.add(result);
+                logger.info("Transformed " + (i + 1) + "/" + futures.size() + " " + result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while transforming files.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Transform one file of the batch, the exceptions are recorded in the result.
+     */
+    private class TransformTask implements Callable<PrideTransformResult> {
+        private File inFile;
+        private File outDir;
+
+        private TransformTask(File inFile, File outDir) {
+            this.inFile = inFile;
+            this.outDir = outDir;
+        }
 
+        @Override
+        public PrideTransformResult call() {
+            PrideTransformResult result = new PrideTransformResult(inFile);
+            long start = System.currentTimeMillis();
             try {
-                transformer.transform(inFile, outDir);
-            } catch (PrideDataException e) {
-                logger.error(e.getMessage());
-            } catch (IOException e) {
-                logger.error(e.getMessage());
-            } catch (JSONException e) {
-                logger.error(e.getMessage());
+                transform(inFile, outDir, result);
+            } catch (Exception e) {
+                result.setError(e);
+                result.setTotalTime(System.currentTimeMillis() - start);
+                logger.error(inFile.getName() + ": " + result.getError());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Write the run report, a json object with the summary of run and the result of every file.
+     */
+    public void writeReport(List<PrideTransformResult> results, int parallelism, long totalTime, File reportFile)
+            throws IOException, JSONException {
+        int converted = 0;
+        int skipped = 0;
+        int failed = 0;
+        for (PrideTransformResult result : results) {
+            switch (result.getStatus()) {
+                case CONVERTED:
+                    converted++;
+                    break;
+                case SKIPPED:
+                    skipped++;
+                    break;
+                case FAILED:
+                    failed++;
+                    break;
             }
         }
+
+        BufferedWriter out = new BufferedWriter(new FileWriter(reportFile));
+        try {
+            JSONWriter writer = new JSONWriter(out);
+            writer.object();
+            writer.key("parallelism").value(parallelism);
+            writer.key("totalTime").value(totalTime);
+            writer.key("files").value(results.size());
+            writer.key("converted").value(converted);
+            writer.key("skipped").value(skipped);
+            writer.key("failed").value(failed);
+            writer.key("results").array();
+            for (PrideTransformResult result : results) {
+                result.write(writer);
+            }
+            writer.endArray();
+            writer.endObject();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * args: input directory, output directory, [parallelism, default the number of processors],
+     * [report file, default {@link #REPORT_FILE_NAME} in the output directory].
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: PrideJSONTransformer <input dir> <output dir> [parallelism] [report file]");
+            return;
+        }
+
+        File inDir = new File(args[0]);
+        File outDir = new File(args[1]);
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        File reportFile = args.length > 3 ? new File(args[3]) : new File(outDir, REPORT_FILE_NAME);
+
+        PrideJSONTransformer transformer = new PrideJSONTransformer();
+
+        long start = System.currentTimeMillis();
+        List<PrideTransformResult> results = transformer.transformAll(inDir, outDir, parallelism);
+        long end = System.currentTimeMillis();
+
+        try {
+            transformer.writeReport(results, parallelism, end - start, reportFile);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+        } catch (JSONException e) {
+            logger.error(e.getMessage());
+        }
+        logger.info("Transformed " + results.size() + " files. Cost " + PridePlotUtils.getTimeCost(start, end) + "(s)");
     }
 }
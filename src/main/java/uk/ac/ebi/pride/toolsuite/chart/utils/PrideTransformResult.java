@@ -0,0 +1,156 @@
+package uk.ac.ebi.pride.toolsuite.chart.utils;
+
+import org.json.JSONException;
+import org.json.JSONWriter;
+
+import java.io.File;
+
+/**
+ * The result of transforming one file by {@link PrideJSONTransformer}. The times are in milliseconds,
+ * and the sizes in bytes, -1 means the step was not done.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideTransformResult {
+    public enum Status {CONVERTED, SKIPPED, FAILED}
+
+    private File inFile;
+    private File outFile;
+    private String fileType;
+    private Status status = Status.FAILED;
+    private String error;
+
+    private long inFileSize;
+    private long outFileSize = -1;
+    private long loadTime = -1;
+    private long readTime = -1;
+    private long writeTime = -1;
+    private long totalTime = -1;
+
+    public PrideTransformResult(File inFile) {
+        if (inFile == null) {
+            throw new NullPointerException("Input file is null!");
+        }
+
+        this.inFile = inFile;
+        this.inFileSize = inFile.length();
+    }
+
+    public File getInFile() {
+        return inFile;
+    }
+
+    public File getOutFile() {
+        return outFile;
+    }
+
+    void setOutFile(File outFile) {
+        this.outFile = outFile;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Mark the transform failed with the error, the message of error is kept, or its class name if
+     * the error has no message.
+     */
+    void setError(Throwable error) {
+        this.status = Status.FAILED;
+        setError(error.getMessage() == null ? error.getClass().getName() : error.getMessage());
+    }
+
+    /**
+     * Mark the transform failed with the error message.
+     */
+    void setError(String error) {
+        this.status = Status.FAILED;
+        this.error = error;
+    }
+
+    public long getInFileSize() {
+        return inFileSize;
+    }
+
+    public long getOutFileSize() {
+        return outFileSize;
+    }
+
+    void setOutFileSize(long outFileSize) {
+        this.outFileSize = outFileSize;
+    }
+
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    void setLoadTime(long loadTime) {
+        this.loadTime = loadTime;
+    }
+
+    public long getReadTime() {
+        return readTime;
+    }
+
+    void setReadTime(long readTime) {
+        this.readTime = readTime;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    void setTotalTime(long totalTime) {
+        this.totalTime = totalTime;
+    }
+
+    /**
+     * Write the result as a JSON object.
+     */
+    public void write(JSONWriter writer) throws JSONException {
+        writer.object();
+        writer.key("file").value(inFile.getName());
+        writer.key("type").value(fileType);
+        writer.key("status").value(status.name());
+        writer.key("inFileSize").value(inFileSize);
+        writer.key("outFile").value(outFile == null ? null : outFile.getName());
+        writer.key("outFileSize").value(outFileSize);
+        writer.key("loadTime").value(loadTime);
+        writer.key("readTime").value(readTime);
+        writer.key("writeTime").value(writeTime);
+        writer.key("totalTime").value(totalTime);
+        writer.key("error").value(error);
+        writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+        return inFile.getName() + " " + status + (error == null ? "" : ": " + error);
+    }
+}
@@ -88,4 +88,230 @@ public class PrideHistogramDataSourceTest {
 
         assertEquals(sum * 2, count);
     }
+
+    @Test
+    public void testAccumulatorHistogram() throws Exception {
+        PrideData[] values = generateXData(0, 300, 200);
+
+        PrideHistogramAccumulator accumulator = new PrideHistogramAccumulator(0, 1, true);
+        for (PrideData value : values) {
+            accumulator.add(value.getData(), value.getType());
+        }
+
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(values, true, false);
+        dataSource.appendBins(dataSource.generateGranularityBins(0d, 10, 50));
+        PrideEqualWidthHistogramDataSource streamDataSource = new PrideEqualWidthHistogramDataSource(accumulator);
+        streamDataSource.appendBins(streamDataSource.generateGranularityBins(0d, 10, 50));
+
+        assertEquals(dataSource.getDataTypeList(), streamDataSource.getDataTypeList());
+        assertEquals(dataSource.getHistogramMap(), streamDataSource.getHistogramMap());
+    }
+
+    @Test
+    public void testCountMap() throws Exception {
+        PrideData[] values = generateXData(0, 300, 200);
+
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(values, true, false);
+        dataSource.appendBins(dataSource.generateBins(0, 50, 4));
+
+        Map<PrideDataType, int[]> countMap = dataSource.getCountMap();
+        SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> histogramMap = dataSource.getHistogramMap();
+        assertEquals(histogramMap.keySet(), countMap.keySet());
+        for (PrideDataType dataType : histogramMap.keySet()) {
+            int[] counts = dataSource.getCounts(dataType);
+            int i = 0;
+            for (Map.Entry<PrideHistogramBin, Integer> entry : histogramMap.get(dataType).entrySet()) {
+                assertEquals(dataSource.getBin(i), entry.getKey());
+                assertEquals(counts[i++], entry.getValue().intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testCategoryHistogram() throws Exception {
+        String[] categories = {"study 1", "study 2", "Study 2", "study 3"};
+        Random random = new Random(1);
+        PrideData[] values = new PrideData[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new PrideData(random.nextDouble() * 120 - 10, categories[random.nextInt(3)]);
+        }
+
+        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(values, false, true);
+        dataSource.appendBin(new PrideHistogramBin(0, 20));
+        dataSource.appendBin(new PrideHistogramBin(20, 50));
+        dataSource.appendBin(new PrideHistogramBin(60, 100));
+
+        SortedMap<String, SortedMap<PrideHistogramBin, Integer>> histogramMap = dataSource.getCategoryHistogramMap();
+        assertEquals(3, histogramMap.size());
+
+        // the values lower than first bin and higher than last bin are counted in the edge bins.
+        for (String category : histogramMap.keySet()) {
+            int[] counts = new int[3];
+            for (PrideData value : values) {
+                if (! value.getCategory().equalsIgnoreCase(category)) {
+                    continue;
+                }
+                double v = value.getData();
+                if (v < 20) {
+                    counts[0]++;
+                } else if (v < 50) {
+                    counts[1]++;
+                } else if (v >= 60) {
+                    counts[2]++;
+                }
+            }
+
+            int i = 0;
+            for (Integer count : histogramMap.get(category).values()) {
+                assertEquals(counts[i++], count.intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelCountMap() throws Exception {
+        PrideData[] values = generateXData(-10, 400, 100000);
+
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(values, true, false);
+        dataSource.appendBins(dataSource.generateBins(0, 7));
+        PrideEqualWidthHistogramDataSource parallelDataSource = new PrideEqualWidthHistogramDataSource(values, true, false);
+        parallelDataSource.appendBins(parallelDataSource.generateBins(0, 7));
+        parallelDataSource.setParallel(true);
+        parallelDataSource.setParallelThreshold(1000);
+
+        Map<PrideDataType, int[]> countMap = dataSource.getCountMap();
+        Map<PrideDataType, int[]> parallelCountMap = parallelDataSource.getCountMap();
+        assertEquals(countMap.keySet(), parallelCountMap.keySet());
+        for (PrideDataType dataType : countMap.keySet()) {
+            assertTrue(Arrays.equals(countMap.get(dataType), parallelCountMap.get(dataType)));
+        }
+    }
+
+    private int scanBin(PrideHistogramDataSource dataSource, double value) {
+        int i = 0;
+        for (Iterator<PrideHistogramBin> it = dataSource.iterator(); it.hasNext(); i++) {
+            PrideHistogramBin bin = it.next();
+            if (value >= bin.getStartBoundary() && value < bin.getEndBoundary()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testBinIndex() throws Exception {
+        PrideEqualWidthHistogramDataSource equalDataSource = new PrideEqualWidthHistogramDataSource(new PrideData[0], false, false);
+        equalDataSource.appendBins(equalDataSource.generateBins(-200 * 0.0005, 0.0005, 400));
+
+        PrideHistogramDataSource binDataSource = new PrideHistogramDataSource(new PrideData[0], false, false);
+        binDataSource.appendBin(new PrideHistogramBin(0, 1));
+        binDataSource.appendBin(new PrideHistogramBin(1, 5));
+        binDataSource.appendBin(new PrideHistogramBin(10, 100));
+
+        Random random = new Random(1);
+        double value;
+        for (int i = 0; i < 10000; i++) {
+            value = (random.nextDouble() - 0.5) * 0.3;
+            assertEquals(scanBin(equalDataSource, value), equalDataSource.getBinIndex(value));
+            value = random.nextDouble() * 120 - 10;
+            assertEquals(scanBin(binDataSource, value), binDataSource.getBinIndex(value));
+        }
+        for (PrideHistogramBin bin : equalDataSource.bins) {
+            assertEquals(scanBin(equalDataSource, bin.getStartBoundary()), equalDataSource.getBinIndex(bin.getStartBoundary()));
+        }
+
+        assertEquals(-1, binDataSource.getBinIndex(7));
+        assertEquals(-1, binDataSource.getBinIndex(-1));
+        binDataSource.setRangePolicy(PrideHistogramRangePolicy.CLAMP);
+        assertEquals(0, binDataSource.getBinIndex(-1));
+        assertEquals(2, binDataSource.getBinIndex(100));
+        assertEquals(-1, binDataSource.getBinIndex(7));
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        PrideData[] values = generateXData(0, 300, 200);
+        PrideData[] firstValues = Arrays.copyOfRange(values, 0, 120);
+        PrideData[] secondValues = Arrays.copyOfRange(values, 120, values.length);
+
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(values, true, false);
+        dataSource.appendBins(dataSource.generateBins(0, 50, 6));
+
+        // same bins
+        PrideEqualWidthHistogramDataSource first = new PrideEqualWidthHistogramDataSource(firstValues, true, false);
+        first.appendBins(first.generateBins(0, 50, 6));
+        PrideEqualWidthHistogramDataSource second = new PrideEqualWidthHistogramDataSource(secondValues, true, false);
+        second.appendBins(second.generateBins(0, 50, 6));
+        first.merge(second);
+        assertEquals(dataSource.getHistogramMap(), first.getHistogramMap());
+
+        // different bins, re-binned into the wider bins.
+        first = new PrideEqualWidthHistogramDataSource(firstValues, true, false);
+        first.appendBins(first.generateBins(0, 50, 4));
+        second = new PrideEqualWidthHistogramDataSource(secondValues, true, false);
+        second.appendBins(second.generateBins(100, 100, 2));
+        first.merge(second);
+
+        dataSource = new PrideEqualWidthHistogramDataSource(values, true, false);
+        dataSource.appendBins(dataSource.generateBins(0, 100, 3));
+        assertEquals(dataSource.getHistogramMap(), first.getHistogramMap());
+    }
+
+    @Test
+    public void testColumnsView() throws Exception {
+        PrideData[] values = generateXData(20, 200, 50);
+        values[0].setCategory("study 1");
+        values[1].setCategory("study 2");
+        values[2].setCategory("study 1");
+
+        PrideHistogramDataSource dataSource = new PrideHistogramDataSource(values, false, true);
+        PrideDataColumns columns = dataSource.getColumns();
+
+        assertEquals(values.length, columns.size());
+        assertEquals(2, columns.getCategoryList().size());
+        assertEquals(columns.getCategoryId(0), columns.getCategoryId(2));
+        assertEquals(PrideDataColumns.NO_CATEGORY, columns.getCategoryId(3));
+
+        PrideData[] view = dataSource.getValues();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], view[i]);
+            assertEquals(values[i].getCategory(), view[i].getCategory());
+        }
+    }
+
+    @Test
+    public void testTypeMask() throws Exception {
+        PrideData[] values = generateXData(0, 300, 200);
+
+        // every identified value is a target identification too, stored once with both types.
+        PrideDataColumns columns = new PrideDataColumns();
+        List<PrideData> expanded = new ArrayList<PrideData>();
+        PrideHistogramAccumulator accumulator = new PrideHistogramAccumulator(0, 1, true);
+        int typeMask;
+        for (PrideData value : values) {
+            expanded.add(value);
+            typeMask = value.getType().getMaskBit();
+            if (value.getType() == PrideDataType.IDENTIFIED_SPECTRA) {
+                expanded.add(new PrideData(value.getData(), PrideDataType.IDENTIFIED_TARGET));
+                typeMask |= PrideDataType.IDENTIFIED_TARGET.getMaskBit();
+            }
+            columns.add(value.getData(), typeMask);
+            accumulator.add(value.getData(), typeMask);
+        }
+        assertEquals(values.length, columns.size());
+        assertEquals(expanded.size(), columns.toArray().length);
+
+        PrideEqualWidthHistogramDataSource dataSource = new PrideEqualWidthHistogramDataSource(
+                expanded.toArray(new PrideData[expanded.size()]), true, false);
+        dataSource.appendBins(dataSource.generateBins(0, 50, 6));
+        PrideEqualWidthHistogramDataSource maskDataSource = new PrideEqualWidthHistogramDataSource(columns, true, false);
+        maskDataSource.appendBins(maskDataSource.generateBins(0, 50, 6));
+        PrideEqualWidthHistogramDataSource streamDataSource = new PrideEqualWidthHistogramDataSource(accumulator);
+        streamDataSource.appendBins(streamDataSource.generateBins(0, 50, 6));
+
+        assertEquals(dataSource.getDataTypeList(), maskDataSource.getDataTypeList());
+        assertEquals(dataSource.getHistogramMap(), maskDataSource.getHistogramMap());
+        assertEquals(dataSource.getDataTypeList(), streamDataSource.getDataTypeList());
+        assertEquals(dataSource.getHistogramMap(), streamDataSource.getHistogramMap());
+    }
 }
@@ -0,0 +1,96 @@
+package uk.ac.ebi.pride.toolsuite.chart.dataset;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideXYDataSourceTest {
+
+    private PrideXYDataSource createDataSource(double[] domainValues, double[] rangeValues, PrideDataType... types) {
+        PrideDataColumns columns = new PrideDataColumns(rangeValues.length);
+        for (int i = 0; i < rangeValues.length; i++) {
+            columns.add(rangeValues[i], types[i]);
+        }
+        return new PrideXYDataSource(domainValues, columns, PrideDataType.ALL_SPECTRA);
+    }
+
+    private void assertDataSource(double[] domainValues, double[] rangeValues, PrideXYDataSource dataSource) {
+        assertEquals(domainValues.length, dataSource.getSize());
+        for (int i = 0; i < domainValues.length; i++) {
+            assertEquals(domainValues[i], dataSource.getDomainValue(i), 1e-12);
+            assertEquals(rangeValues[i], dataSource.getRangeValue(i), 1e-12);
+        }
+    }
+
+    private PrideDataType[] repeat(PrideDataType type, int count) {
+        PrideDataType[] types = new PrideDataType[count];
+        for (int i = 0; i < count; i++) {
+            types[i] = type;
+        }
+        return types;
+    }
+
+    @Test
+    public void testMergeBinsSameLayout() throws Exception {
+        PrideDataType id = PrideDataType.IDENTIFIED_SPECTRA;
+        PrideDataType un = PrideDataType.UNIDENTIFIED_SPECTRA;
+        PrideXYDataSource first = createDataSource(new double[] {0, 0.1, 0.2, 0, 0.1, 0.2},
+                new double[] {0.2, 0.3, 0.5, 0.1, 0.1, 0.8}, id, id, id, un, un, un);
+        PrideXYDataSource second = createDataSource(new double[] {0, 0.1, 0.2, 0, 0.1, 0.2},
+                new double[] {0.4, 0.4, 0.2, 0.5, 0.5, 0}, id, id, id, un, un, un);
+
+        PrideXYDataSource merged = first.mergeBins(second, 0.25, 0.75);
+        PrideXYDataSource expected = first.merge(second, 0.25, 0.75);
+        assertEquals(expected.getSize(), merged.getSize());
+        for (int i = 0; i < expected.getSize(); i++) {
+            assertEquals(expected.getDomainValue(i), merged.getDomainValue(i));
+            assertEquals(expected.getRangeValue(i), merged.getRangeValue(i));
+            assertEquals(expected.getRangeColumns().getType(i), merged.getRangeColumns().getType(i));
+        }
+    }
+
+    /**
+     * The narrower bins are split into the wider bins of other data source.
+     */
+    @Test
+    public void testMergeBinsDifferentLayouts() throws Exception {
+        PrideDataType id = PrideDataType.IDENTIFIED_SPECTRA;
+        PrideXYDataSource narrow = createDataSource(new double[] {0, 1, 2, 3},
+                new double[] {0.1, 0.2, 0.3, 0.4}, repeat(id, 4));
+        PrideXYDataSource wide = createDataSource(new double[] {-2, 0, 2},
+                new double[] {0.5, 0.3, 0.2}, repeat(id, 3));
+
+        assertDataSource(new double[] {-2, 0, 2}, new double[] {0.25, 0.3, 0.45}, narrow.mergeBins(wide, 0.5, 0.5));
+        assertDataSource(new double[] {-2, 0, 2}, new double[] {0.25, 0.3, 0.45}, wide.mergeBins(narrow, 0.5, 0.5));
+
+        // the narrower bins are not aligned to the wider bins.
+        PrideXYDataSource shifted = createDataSource(new double[] {-0.5, 0.5, 1.5},
+                new double[] {0.2, 0.3, 0.5}, repeat(id, 3));
+        wide = createDataSource(new double[] {-2, 0}, new double[] {0.6, 0.4}, repeat(id, 2));
+        assertDataSource(new double[] {-2, 0, 2}, new double[] {0.35, 0.525, 0.125}, shifted.mergeBins(wide, 0.5, 0.5));
+    }
+
+    /**
+     * The series of a data type are re-binned separately, and a data type which only exists in one data
+     * source is weighted alone.
+     */
+    @Test
+    public void testMergeBinsSeries() throws Exception {
+        PrideDataType id = PrideDataType.IDENTIFIED_SPECTRA;
+        PrideDataType un = PrideDataType.UNIDENTIFIED_SPECTRA;
+        PrideXYDataSource first = createDataSource(new double[] {0, 1, 2, 3, 0, 1, 2, 3},
+                new double[] {0.1, 0.2, 0.3, 0.4, 1, 0, 0, 0}, id, id, id, id, id, id, id, id);
+        PrideXYDataSource second = createDataSource(new double[] {0, 2, 0, 2},
+                new double[] {0.6, 0.4, 1, 0}, id, id, un, un);
+
+        PrideXYDataSource merged = first.mergeBins(second, 0.5, 0.5);
+        assertDataSource(new double[] {0, 2, 0, 2, 0, 2}, new double[] {0.45, 0.55, 0.5, 0, 0.5, 0}, merged);
+        assertEquals(id, merged.getRangeColumns().getType(2));
+        assertEquals(un, merged.getRangeColumns().getType(4));
+        assertTrue(merged.getDataTypeList().contains(PrideDataType.ALL_SPECTRA));
+    }
+}
@@ -0,0 +1,116 @@
+package uk.ac.ebi.pride.toolsuite.chart.dataset;
+
+import org.jfree.data.xy.IntervalXYDataset;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.io.JSONReader;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideXYDatasetTest {
+
+    /**
+     * Assert the dataset has the same series, items and intervals as the XYSeriesCollection.
+     */
+    private void assertSameDataset(XYSeriesCollection expected, IntervalXYDataset actual) {
+        assertEquals(expected.getSeriesCount(), actual.getSeriesCount());
+        for (int series = 0; series < expected.getSeriesCount(); series++) {
+            assertEquals(expected.getSeriesKey(series).toString(), actual.getSeriesKey(series).toString());
+            assertEquals(expected.getItemCount(series), actual.getItemCount(series));
+            for (int item = 0; item < expected.getItemCount(series); item++) {
+                assertEquals(expected.getXValue(series, item), actual.getXValue(series, item));
+                assertEquals(expected.getYValue(series, item), actual.getYValue(series, item));
+                assertEquals(expected.getStartXValue(series, item), actual.getStartXValue(series, item));
+                assertEquals(expected.getEndXValue(series, item), actual.getEndXValue(series, item));
+                assertEquals(expected.getStartYValue(series, item), actual.getStartYValue(series, item));
+                assertEquals(expected.getEndYValue(series, item), actual.getEndYValue(series, item));
+            }
+        }
+    }
+
+    @Test
+    public void testJSONCharts() throws Exception {
+        URL url = PrideXYDatasetTest.class.getClassLoader().getResource("new_2.json");
+        JSONReader reader = new JSONReader(new File(url.toURI()));
+
+        PrideXYDataSource preMasses = reader.getXYDataSourceMap().get(PrideChartType.PRECURSOR_MASSES);
+        PrideXYDataset dataset = PrideDatasetFactory.createXYDataset(preMasses);
+        assertTrue(dataset.getSeriesCount() > 1);
+        assertSameDataset(PrideDatasetFactory.getXYDataset(preMasses), dataset);
+
+        for (Map.Entry<PrideChartType, PrideXYDataSource> entry : reader.getXYDataSourceMap().entrySet()) {
+            if (entry.getKey() != PrideChartType.QUANTITATION_PEPTIDES) {
+                assertSameDataset(PrideDatasetFactory.getXYDataset(entry.getValue()),
+                        PrideDatasetFactory.createXYDataset(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * The types are interleaved and the x values are not ordered, so the series are index arrays sorted
+     * by x. The equal x values keep the insert order.
+     */
+    @Test
+    public void testUnsortedTypes() throws Exception {
+        Double[] domainData = {5.0, 1.0, 3.0, 1.0, 2.0, 4.0, 2.0, 0.5, 6.0};
+        PrideData[] rangeData = {
+                new PrideData(0.1, PrideDataType.ALL_SPECTRA),
+                new PrideData(0.2, PrideDataType.IDENTIFIED_SPECTRA),
+                new PrideData(0.3, PrideDataType.UNIDENTIFIED_SPECTRA),
+                new PrideData(0.4, PrideDataType.IDENTIFIED_SPECTRA),
+                new PrideData(0.5, PrideDataType.ALL_SPECTRA),
+                new PrideData(0.6, PrideDataType.IDENTIFIED_SPECTRA),
+                new PrideData(0.7, PrideDataType.ALL_SPECTRA),
+                new PrideData(0.8, PrideDataType.IDENTIFIED_SPECTRA),
+                new PrideData(0.9, PrideDataType.UNIDENTIFIED_SPECTRA)
+        };
+        PrideXYDataSource dataSource = new PrideXYDataSource(domainData, rangeData, PrideDataType.ALL_SPECTRA);
+
+        PrideXYDataset dataset = PrideDatasetFactory.createXYDataset(dataSource);
+        assertEquals(3, dataset.getSeriesCount());
+        assertSameDataset(PrideDatasetFactory.getXYDataset(dataSource), dataset);
+    }
+
+    @Test
+    public void testSortedTypes() throws Exception {
+        Double[] domainData = {1.0, 2.0, 3.0, 1.0, 2.0};
+        PrideData[] rangeData = {
+                new PrideData(0.1, PrideDataType.ALL_SPECTRA),
+                new PrideData(0.2, PrideDataType.ALL_SPECTRA),
+                new PrideData(0.3, PrideDataType.ALL_SPECTRA),
+                new PrideData(0.4, PrideDataType.UNIDENTIFIED_SPECTRA),
+                new PrideData(0.5, PrideDataType.UNIDENTIFIED_SPECTRA)
+        };
+        PrideXYDataSource dataSource = new PrideXYDataSource(domainData, rangeData, PrideDataType.ALL_SPECTRA);
+
+        PrideXYDataset dataset = PrideDatasetFactory.createXYDataset(dataSource);
+        assertEquals(2, dataset.getSeriesCount());
+        assertSameDataset(PrideDatasetFactory.getXYDataset(dataSource), dataset);
+    }
+
+    @Test
+    public void testCategories() throws Exception {
+        Double[] domainData = {3.0, 1.0, 2.0, 1.0, 4.0};
+        PrideData[] rangeData = {
+                new PrideData(0.1, "control"),
+                new PrideData(0.2, "treated"),
+                new PrideData(0.3, "control"),
+                new PrideData(0.4, "control"),
+                new PrideData(0.5, "treated")
+        };
+        PrideXYDataSource dataSource = new PrideXYDataSource(domainData, rangeData, PrideDataType.ALL_SPECTRA);
+
+        PrideXYDataset dataset = PrideDatasetFactory.createQuantXYDataset(dataSource);
+        assertEquals(2, dataset.getSeriesCount());
+        assertSameDataset(PrideDatasetFactory.getQuantXYDataset(dataSource), dataset);
+    }
+}
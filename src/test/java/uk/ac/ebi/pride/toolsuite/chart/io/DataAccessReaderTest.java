@@ -8,11 +8,25 @@ import uk.ac.ebi.pride.utilities.data.controller.impl.ControllerImpl.PrideXmlCon
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.junit.Assert.assertArrayEquals;
 
 /**
@@ -22,6 +36,7 @@ import static org.junit.Assert.assertArrayEquals;
 public class DataAccessReaderTest {
 
 
+    private File prideXMLFile;
     private DataAccessReader dataReader;
     private JSONReader jsonReader;
 
@@ -29,7 +44,7 @@ public class DataAccessReaderTest {
         URL url = DataAccessReaderTest.class.getClassLoader().getResource("new_2.json");
         File jsonFile = new File(url.toURI());
         url = DataAccessReaderTest.class.getClassLoader().getResource("PRIDE_Exp_Complete_Ac_2.xml");
-        File prideXMLFile = new File(url.toURI());
+        prideXMLFile = new File(url.toURI());
         DataAccessController controller = new PrideXmlControllerImpl(prideXMLFile);
         dataReader = new DataAccessReader(controller);
         jsonReader = new JSONReader(jsonFile);
@@ -189,4 +204,254 @@ public class DataAccessReaderTest {
 //        compareHistogram(unPrideHistogram, unJSONHistogram);
 //        compareHistogram(allPrideHistogram, allJSONHistogram);
     }
+
+    /**
+     * Assert the actual reader has the same charts as the expected one. The AVERAGE_MS intensities are
+     * compared with a tolerance, because they may be summed in a different order.
+     */
+    private void assertSameCharts(PrideDataReader expected, PrideDataReader actual) {
+        assertEquals(expected.getPeptideSize(), actual.getPeptideSize());
+        assertEquals(expected.getIdentifiedSpectraSize(), actual.getIdentifiedSpectraSize());
+        assertEquals(expected.getUnidentifiedSpectraSize(), actual.getUnidentifiedSpectraSize());
+        for (PrideChartType type : PrideChartType.values()) {
+            assertSameChart(expected, actual, type);
+        }
+    }
+
+    private void assertSameChart(PrideDataReader expected, PrideDataReader actual, PrideChartType type) {
+        assertEquals(expected.getErrorMap().containsKey(type), actual.getErrorMap().containsKey(type));
+
+        PrideXYDataSource expectedXY = expected.getXYDataSourceMap().get(type);
+        PrideXYDataSource actualXY = actual.getXYDataSourceMap().get(type);
+        assertEquals(expectedXY == null, actualXY == null);
+        if (expectedXY != null) {
+            assertArrayEquals(expectedXY.getDomainData(), actualXY.getDomainData());
+            assertArrayEquals(expectedXY.getRangeData(), actualXY.getRangeData());
+        }
+
+        PrideHistogramDataSource expectedHistogram = expected.getHistogramDataSourceMap().get(type);
+        PrideHistogramDataSource actualHistogram = actual.getHistogramDataSourceMap().get(type);
+        assertEquals(expectedHistogram == null, actualHistogram == null);
+        if (expectedHistogram instanceof PrideSpectrumHistogramDataSource) {
+            compareIntensities(((PrideSpectrumHistogramDataSource) expectedHistogram).getIntensityMap(),
+                    ((PrideSpectrumHistogramDataSource) actualHistogram).getIntensityMap());
+        } else if (expectedHistogram != null) {
+            assertEquals(expectedHistogram.getHistogramMap(), actualHistogram.getHistogramMap());
+        }
+    }
+
+    private void compareIntensities(SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Double>> expected,
+                                    SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Double>> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (PrideDataType type : expected.keySet()) {
+            assertEquals(expected.get(type).keySet(), actual.get(type).keySet());
+            for (Map.Entry<PrideHistogramBin, Double> entry : expected.get(type).entrySet()) {
+                double intensity = entry.getValue();
+                assertEquals(intensity, actual.get(type).get(entry.getKey()), Math.max(1, Math.abs(intensity)) * 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelProteins() throws Exception {
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setProteinParallelism(4);
+        options.setProteinShardSize(8);
+
+        DataAccessReader parallelReader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile), null, options);
+        assertSameCharts(dataReader, parallelReader);
+    }
+
+    @Test
+    public void testParallelSpectra() throws Exception {
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setParallelSpectra(new DataAccessControllerFactory() {
+            @Override
+            public DataAccessController createController() {
+                return new PrideXmlControllerImpl(prideXMLFile);
+            }
+        }, 3);
+
+        DataAccessReader parallelReader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile), null, options);
+        assertSameCharts(dataReader, parallelReader);
+    }
+
+    @Test
+    public void testStreamingHistograms() throws Exception {
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setStreamingHistograms(true);
+
+        DataAccessReader streamingReader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile), null, options);
+        assertSameCharts(dataReader, streamingReader);
+    }
+
+    @Test
+    public void testSelectedCharts() throws Exception {
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setChartTypes(EnumSet.of(PrideChartType.PEPTIDES_PROTEIN, PrideChartType.PRECURSOR_CHARGE));
+
+        DataAccessReader selectedReader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile), null, options);
+        for (PrideChartType type : PrideChartType.values()) {
+            if (options.isChartSelected(type)) {
+                assertSameChart(dataReader, selectedReader, type);
+            } else {
+                assertFalse(selectedReader.getXYDataSourceMap().containsKey(type));
+                assertFalse(selectedReader.getHistogramDataSourceMap().containsKey(type));
+                assertFalse(selectedReader.getErrorMap().containsKey(type));
+            }
+        }
+    }
+
+    /**
+     * With decoy information, the identified spectra are decided by the peptides, also when only
+     * PRECURSOR_CHARGE of the spectrum charts is selected.
+     */
+    @Test
+    public void testSelectedChartsSpectraSize() throws Exception {
+        DataAccessReader decoyReader = new DataAccessReader(createDecoyController());
+
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setChartTypes(EnumSet.of(PrideChartType.PRECURSOR_CHARGE));
+        DataAccessReader selectedReader = new DataAccessReader(createDecoyController(), null, options);
+
+        assertTrue(decoyReader.getIdentifiedSpectraSize() > 0);
+        assertEquals(decoyReader.getIdentifiedSpectraSize(), selectedReader.getIdentifiedSpectraSize());
+        assertEquals(decoyReader.getUnidentifiedSpectraSize(), selectedReader.getUnidentifiedSpectraSize());
+        assertSameChart(decoyReader, selectedReader, PrideChartType.PRECURSOR_CHARGE);
+    }
+
+    private DataAccessController createDecoyController() {
+        return new PrideXmlControllerImpl(prideXMLFile) {
+            @Override
+            public boolean hasDecoyInformation() {
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testPeptideCache() throws Exception {
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setPeptideCacheSize(0);
+
+        DataAccessReader uncachedReader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile), null, options);
+        assertSameChart(uncachedReader, dataReader, PrideChartType.DELTA_MASS);
+        assertSameChart(uncachedReader, dataReader, PrideChartType.MISSED_CLEAVAGES);
+
+        assertEquals(0, uncachedReader.getTheoreticalMassCacheHitCount());
+        assertEquals(0, uncachedReader.getMissedCleavagesCacheMissCount());
+        assertTrue(dataReader.getTheoreticalMassCacheMissCount() > 0);
+        assertTrue(dataReader.getMissedCleavagesCacheMissCount() > 0);
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        final List<PrideDataReaderPhase> phases = new ArrayList<PrideDataReaderPhase>();
+        // phase --> last processed and total.
+        final Map<PrideDataReaderPhase, int[]> progress = new EnumMap<PrideDataReaderPhase, int[]>(PrideDataReaderPhase.class);
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setListener(new PrideDataReaderListener() {
+            @Override
+            public void progressUpdated(PrideDataReaderPhase phase, int processed, int total) {
+                if (phases.isEmpty() || phases.get(phases.size() - 1) != phase) {
+                    phases.add(phase);
+                }
+                int[] last = progress.get(phase);
+                assertTrue(last == null || processed >= last[0]);
+                progress.put(phase, new int[] {processed, total});
+            }
+        });
+
+        DataAccessController controller = new PrideXmlControllerImpl(prideXMLFile);
+        int proteinSize = controller.getProteinIds().size();
+        int spectrumSize = controller.getSpectrumIds().size();
+        new DataAccessReader(controller, null, options);
+
+        assertEquals(Arrays.asList(PrideDataReaderPhase.START, PrideDataReaderPhase.PROTEINS, PrideDataReaderPhase.SPECTRA,
+                PrideDataReaderPhase.CHARTS, PrideDataReaderPhase.END), phases);
+        assertArrayEquals(new int[] {proteinSize, proteinSize}, progress.get(PrideDataReaderPhase.PROTEINS));
+        assertArrayEquals(new int[] {spectrumSize, spectrumSize}, progress.get(PrideDataReaderPhase.SPECTRA));
+    }
+
+    @Test
+    public void testCancelFromListener() throws Exception {
+        final CancellationToken token = new CancellationToken();
+        final List<PrideDataReaderPhase> phases = new ArrayList<PrideDataReaderPhase>();
+        final List<Integer> processedProteins = new ArrayList<Integer>();
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        options.setCancellationToken(token);
+        options.setListener(new PrideDataReaderListener() {
+            @Override
+            public void progressUpdated(PrideDataReaderPhase phase, int processed, int total) {
+                phases.add(phase);
+                // cancel after the first protein batch.
+                if (phase == PrideDataReaderPhase.PROTEINS && processed > 0) {
+                    processedProteins.add(processed);
+                    token.cancel();
+                }
+            }
+        });
+
+        DataAccessController controller = new PrideXmlControllerImpl(prideXMLFile);
+        int proteinSize = controller.getProteinIds().size();
+        try {
+            new DataAccessReader(controller, null, options);
+            fail("The reading should be cancelled.");
+        } catch (PrideDataException e) {
+            assertEquals(PrideDataException.READING_CANCELLED, e.getMessage());
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+
+        assertEquals(1, processedProteins.size());
+        assertTrue(processedProteins.get(0) < proteinSize);
+        assertFalse(phases.contains(PrideDataReaderPhase.SPECTRA));
+        assertFalse(phases.contains(PrideDataReaderPhase.END));
+    }
+
+    @Test(timeout = 30000)
+    public void testProteinChartsBeforeSpectra() throws Exception {
+        final CountDownLatch spectraStarted = new CountDownLatch(1);
+        final CountDownLatch spectraReleased = new CountDownLatch(1);
+        DataAccessReaderOptions options = new DataAccessReaderOptions();
+        // block the spectrum pass at its start.
+        options.setListener(new PrideDataReaderListener() {
+            @Override
+            public void progressUpdated(PrideDataReaderPhase phase, int processed, int total) {
+                if (phase == PrideDataReaderPhase.SPECTRA && processed == 0) {
+                    spectraStarted.countDown();
+                    try {
+                        spectraReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PrideChartFutures futures = DataAccessReader.readChartsAsync(new PrideXmlControllerImpl(prideXMLFile), null, options, executor);
+            assertTrue(spectraStarted.await(20, TimeUnit.SECONDS));
+
+            PrideChartType[] proteinCharts = {PrideChartType.PEPTIDES_PROTEIN, PrideChartType.DELTA_MASS, PrideChartType.MISSED_CLEAVAGES};
+            for (PrideChartType type : proteinCharts) {
+                assertTrue(type.name(), futures.getChart(type).isDone());
+            }
+            assertFalse(futures.getChart(PrideChartType.AVERAGE_MS).isDone());
+            assertFalse(futures.getReader().isDone());
+
+            spectraReleased.countDown();
+            PrideDataReader reader = futures.getReader().get();
+            for (PrideChartType type : futures.getChartTypes()) {
+                if (! reader.getErrorMap().containsKey(type)) {
+                    PrideDataSource dataSource = reader.getXYDataSourceMap().containsKey(type) ?
+                            reader.getXYDataSourceMap().get(type) : reader.getHistogramDataSourceMap().get(type);
+                    assertSame(dataSource, futures.getChart(type).get());
+                }
+            }
+        } finally {
+            spectraReleased.countDown();
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.io.JSONChartParser.ChartArray;
+import uk.ac.ebi.pride.toolsuite.chart.io.JSONChartParser.ChartObject;
+
+import java.util.Iterator;
+
+import static junit.framework.Assert.*;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * The parser should accept the same text as {@link JSONObject}, and its getters should return the same
+ * values or throw the same {@link JSONException} as the getters of JSONObject and JSONArray.
+ *
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class JSONChartParserTest {
+
+    private String doubleOf(JSONArray array, int index) {
+        try {
+            return String.valueOf(array.getDouble(index));
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String doubleOf(ChartArray array, int index) {
+        try {
+            return String.valueOf(array.getDouble(index));
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String intOf(JSONArray array, int index) {
+        try {
+            return String.valueOf(array.getInt(index));
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String intOf(ChartArray array, int index) {
+        try {
+            return String.valueOf(array.getInt(index));
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String stringOf(JSONArray array, int index) {
+        try {
+            return array.getString(index);
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String stringOf(ChartArray array, int index) {
+        try {
+            return array.getString(index);
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String intOf(JSONObject object, String key) {
+        try {
+            return String.valueOf(object.getInt(key));
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String intOf(ChartObject object, String key) {
+        try {
+            return String.valueOf(object.getInt(key));
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String stringOf(JSONObject object, String key) {
+        try {
+            return object.getString(key);
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String stringOf(ChartObject object, String key) {
+        try {
+            return object.getString(key);
+        } catch (JSONException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void assertSameObject(JSONObject expected, ChartObject actual) throws JSONException {
+        Iterator<String> keys = expected.keys();
+        String key;
+        Object value;
+        while (keys.hasNext()) {
+            key = keys.next();
+            assertTrue(key, actual.has(key));
+
+            value = expected.get(key);
+            if (value instanceof JSONArray) {
+                assertSameArray((JSONArray) value, actual.getArray(key));
+            } else {
+                assertEquals(intOf(expected, key), intOf(actual, key));
+                assertEquals(stringOf(expected, key), stringOf(actual, key));
+            }
+        }
+    }
+
+    private void assertSameArray(JSONArray expected, ChartArray actual) throws JSONException {
+        assertEquals(expected.length(), actual.length());
+        for (int i = 0; i < expected.length(); i++) {
+            if (expected.get(i) instanceof JSONObject) {
+                assertSameObject(expected.getJSONObject(i), actual.getObject(i));
+            } else {
+                assertEquals(doubleOf(expected, i), doubleOf(actual, i));
+                assertEquals(intOf(expected, i), intOf(actual, i));
+                assertEquals(stringOf(expected, i), stringOf(actual, i));
+            }
+        }
+    }
+
+    /**
+     * Parse the text by JSONObject and by the parser, the results or the errors should be the same.
+     */
+    private void assertSameParse(String text) throws JSONException {
+        JSONObject expected;
+        try {
+            expected = new JSONObject(text);
+        } catch (JSONException e) {
+            try {
+                JSONChartParser.parse(text);
+                fail("The text should be rejected: " + text);
+            } catch (JSONException parseError) {
+                assertEquals(e.getMessage(), parseError.getMessage());
+            }
+            return;
+        }
+
+        assertSameObject(expected, JSONChartParser.parse(text));
+    }
+
+    @Test
+    public void testStrict() throws Exception {
+        String text = "{\"Series\":[{\"id\":\"Freq\",\"XAxis\":[0,1.5,-2,-0,1e3,2.5E-2],\"YAxis\":[10,20,30,40,50,60]}]," +
+                " \"experimentSize\":1234, \"name\":\"a\\\"b\\u0041\\n\"}";
+        assertSameParse(text);
+
+        ChartObject object = JSONChartParser.parse(text);
+        ChartObject series = object.getArray("Series").getObject(0);
+        assertEquals("Freq", series.getString("id"));
+        assertArrayEquals(new double[] {0, 1.5, -2, -0.0, 1000, 0.025}, series.getArray("XAxis").getDoubles(), 0);
+        assertArrayEquals(new int[] {10, 20, 30, 40, 50, 60}, series.getArray("YAxis").getInts());
+        assertEquals(1234, object.getInt("experimentSize"));
+        assertEquals("a\"bA\n", object.getString("name"));
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        // unquoted keys and single quotes.
+        assertSameParse("{Series:[{id:'Freq',XAxis:[1,2],YAxis:[3,4]}]}");
+        // trailing commas.
+        assertSameParse("{\"Series\":[{\"id\":\"Freq\",\"XAxis\":[1,2,],\"YAxis\":[3,4,]},]}");
+        // integers longer than 9 digits, and a number out of double range.
+        assertSameParse("{\"experimentSize\":12345678901,\"XAxis\":[12345678901,-98765432109,1e400]}");
+        // duplicate keys and broken text are rejected.
+        assertSameParse("{\"a\":1,\"a\":2}");
+        assertSameParse("{\"XAxis\":[1,2");
+        assertSameParse("[1,2]");
+
+        assertEquals(3, JSONChartParser.parse("{Series:[{id:'Freq',XAxis:[1,2],YAxis:[3,4]}]}")
+                .getArray("Series").getObject(0).getArray("YAxis").getInt(0));
+    }
+
+    @Test
+    public void testQuotedNumbers() throws Exception {
+        String text = "{\"Series\":[{\"id\":\"Freq\",\"XAxis\":[\"1\",\"2.5\"],\"YAxis\":[\"3\",\"x\"]}],\"experimentSize\":\"12\"}";
+        assertSameParse(text);
+
+        ChartObject object = JSONChartParser.parse(text);
+        assertEquals(2.5, object.getArray("Series").getObject(0).getArray("XAxis").getDouble(1), 0);
+        assertEquals(12, object.getInt("experimentSize"));
+    }
+
+    @Test
+    public void testNullInNumberArray() throws Exception {
+        String text = "{\"YAxis\":[1,null,3]}";
+        assertSameParse(text);
+
+        try {
+            JSONChartParser.parse(text).getArray("YAxis").getDoubles();
+            fail("A null should not be a number.");
+        } catch (JSONException e) {
+            assertEquals("JSONArray[1] is not a number.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testErrorMessages() throws Exception {
+        String[] texts = {
+                "{\"ErrorMessages\":[\"No peptide\",\"No spectra\"]}",
+                "{\"ErrorMessages\":[\"No \\u0070eptide\"],\"Series\":[]}",
+                "{ErrorMessages:['No peptide']}",
+                "{\"ErrorMessages\":[]}",
+                "{\"ErrorMessages\":[1,\"No spectra\"]}",
+                "{\"ErrorMessages\":\"No peptide\"}"
+        };
+
+        // ElderJSONReader checks the error messages on JSONObject.
+        for (String text : texts) {
+            PrideDataException expected = new ElderJSONReader(text, PrideChartType.DELTA_MASS).getErrorMap().get(PrideChartType.DELTA_MASS);
+            PrideDataException actual = new JSONReader(text, PrideChartType.DELTA_MASS).getErrorMap().get(PrideChartType.DELTA_MASS);
+            assertEquals(text, expected == null, actual == null);
+            if (expected != null) {
+                assertEquals(expected.getMessage(), actual.getMessage());
+            }
+        }
+
+        PrideDataException error = new JSONReader(texts[0], PrideChartType.DELTA_MASS).getErrorMap().get(PrideChartType.DELTA_MASS);
+        assertEquals("No peptide" + JSONReader.ERROR_MSG_SPLIT_CHAR + "No spectra", error.getMessage());
+    }
+}
@@ -0,0 +1,81 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+
+import java.io.File;
+import java.net.URL;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class JSONChartReaderTest {
+
+    private File getResource(String name) throws Exception {
+        URL url = JSONChartReaderTest.class.getClassLoader().getResource(name);
+        return new File(url.toURI());
+    }
+
+    private void assertDeferred(JSONChartReader reader, Set<PrideChartType> deferredTypes) {
+        for (PrideChartType type : PrideChartType.values()) {
+            assertEquals(type.name(), deferredTypes.contains(type), reader.isDeferred(type));
+        }
+    }
+
+    @Test
+    public void testErrorMap() throws Exception {
+        JSONReader reader = new JSONReader(getResource("new_10.json"));
+
+        // the errors are known right after reading, without decoding the other charts.
+        assertEquals(EnumSet.of(PrideChartType.PEAK_INTENSITY, PrideChartType.PRECURSOR_CHARGE, PrideChartType.AVERAGE_MS,
+                PrideChartType.PRECURSOR_MASSES, PrideChartType.PEAKS_MS), reader.getErrorMap().keySet());
+        assertEquals(PrideDataException.NO_SPECTRA, reader.getErrorMap().get(PrideChartType.PRECURSOR_CHARGE).getMessage());
+        assertDeferred(reader, EnumSet.of(PrideChartType.PEPTIDES_PROTEIN, PrideChartType.DELTA_MASS, PrideChartType.MISSED_CLEAVAGES));
+
+        // the charts with errors have no data source.
+        assertFalse(reader.getHistogramDataSourceMap().containsKey(PrideChartType.PEAKS_MS));
+        assertFalse(reader.getXYDataSourceMap().containsKey(PrideChartType.PRECURSOR_CHARGE));
+    }
+
+    @Test
+    public void testDecodeOnAccess() throws Exception {
+        JSONReader reader = new JSONReader(getResource("new_2.json"));
+        Set<PrideChartType> deferredTypes = EnumSet.of(PrideChartType.PEAK_INTENSITY, PrideChartType.PRECURSOR_CHARGE,
+                PrideChartType.AVERAGE_MS, PrideChartType.PRECURSOR_MASSES, PrideChartType.PEPTIDES_PROTEIN,
+                PrideChartType.PEAKS_MS, PrideChartType.DELTA_MASS, PrideChartType.MISSED_CLEAVAGES);
+        assertTrue(reader.getErrorMap().isEmpty());
+        assertDeferred(reader, deferredTypes);
+
+        // a get only decodes that chart.
+        assertNotNull(reader.getXYDataSourceMap().get(PrideChartType.PEPTIDES_PROTEIN));
+        deferredTypes.remove(PrideChartType.PEPTIDES_PROTEIN);
+        assertDeferred(reader, deferredTypes);
+
+        assertNotNull(reader.getHistogramDataSourceMap().get(PrideChartType.PEAKS_MS));
+        deferredTypes.remove(PrideChartType.PEAKS_MS);
+        assertDeferred(reader, deferredTypes);
+
+        // the size decodes all charts of the map.
+        assertEquals(5, reader.getXYDataSourceMap().size());
+        assertDeferred(reader, EnumSet.of(PrideChartType.PEAK_INTENSITY, PrideChartType.AVERAGE_MS));
+    }
+
+    @Test
+    public void testPeptideSize() throws Exception {
+        JSONReader decodedReader = new JSONReader(getResource("new_2.json"));
+        assertNotNull(decodedReader.getXYDataSourceMap().get(PrideChartType.DELTA_MASS));
+        int peptideSize = decodedReader.getPeptideSize();
+        assertTrue(peptideSize > 0);
+
+        JSONReader reader = new JSONReader(getResource("new_2.json"));
+        assertTrue(reader.isDeferred(PrideChartType.DELTA_MASS));
+        assertEquals(peptideSize, reader.getPeptideSize());
+        assertFalse(reader.isDeferred(PrideChartType.DELTA_MASS));
+        assertTrue(reader.isDeferred(PrideChartType.PRECURSOR_MASSES));
+    }
+}
@@ -0,0 +1,73 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.utilities.mol.MoleculeUtilities;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PeptideCacheTest {
+
+    private List<Double> noMods = Collections.emptyList();
+    private List<Double> mods = Arrays.asList(15.994915, 57.021464);
+
+    private void assertDeltaMz(PeptideCache cache, String sequence, double precursorMz, int precursorCharge, List<Double> modMassDeltas) {
+        Double expected = MoleculeUtilities.calculateDeltaMz(sequence, precursorMz, precursorCharge, modMassDeltas);
+        Double actual = cache.calcDeltaMz(sequence, precursorMz, precursorCharge, modMassDeltas);
+        assertNotNull(actual);
+        assertEquals(expected, actual, 1e-9);
+    }
+
+    @Test
+    public void testDeltaMz() throws Exception {
+        PeptideCache cache = new PeptideCache(100);
+
+        // the same peptide with other precursors hits the theoretical mass.
+        assertDeltaMz(cache, "PEPTIDEK", 464.73, 2, noMods);
+        assertDeltaMz(cache, "PEPTIDEK", 464.98, 2, noMods);
+        assertDeltaMz(cache, "PEPTIDEK", 310.16, 3, noMods);
+        assertEquals(1, cache.getMassMissCount());
+        assertEquals(2, cache.getMassHitCount());
+
+        // other modifications are another peptide.
+        assertDeltaMz(cache, "PEPTIDEK", 500.72, 2, mods);
+        assertDeltaMz(cache, "PEPTIDEK", 500.75, 2, Arrays.asList(15.994915, 57.021464));
+        assertDeltaMz(cache, "MCPEPTIDER", 600.25, 2, mods);
+        assertEquals(3, cache.getMassMissCount());
+        assertEquals(3, cache.getMassHitCount());
+
+        assertNull(cache.calcDeltaMz("PEPTIDEK", 464.73, 0, noMods));
+        assertNull(cache.calcDeltaMz(null, 464.73, 2, noMods));
+        assertEquals(3, cache.getMassMissCount());
+    }
+
+    @Test
+    public void testMissedCleavages() throws Exception {
+        PeptideCache cache = new PeptideCache(100);
+        for (String sequence : new String[] {"PEPTIDEK", "PEPKRTIDEK", "PEPTIDEK", "PEPKRTIDEK", "PEPTIDEK"}) {
+            assertEquals(MoleculeUtilities.calcMissedCleavages(sequence), cache.calcMissedCleavages(sequence));
+        }
+        assertEquals(2, cache.getMissedCleavagesMissCount());
+        assertEquals(3, cache.getMissedCleavagesHitCount());
+    }
+
+    @Test
+    public void testNoCache() throws Exception {
+        PeptideCache cache = new PeptideCache(0);
+        assertDeltaMz(cache, "PEPTIDEK", 464.73, 2, noMods);
+        assertDeltaMz(cache, "PEPTIDEK", 464.73, 2, noMods);
+        assertEquals(MoleculeUtilities.calcMissedCleavages("PEPKRTIDEK"), cache.calcMissedCleavages("PEPKRTIDEK"));
+
+        assertEquals(0, cache.getMassHitCount());
+        assertEquals(0, cache.getMassMissCount());
+        assertEquals(0, cache.getMissedCleavagesHitCount());
+        assertEquals(0, cache.getMissedCleavagesMissCount());
+    }
+}
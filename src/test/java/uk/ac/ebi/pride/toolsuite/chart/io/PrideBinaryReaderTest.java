@@ -0,0 +1,222 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramDataSource;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideXYDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideBinaryReaderTest {
+
+    private JSONReader jsonReader;
+    private PrideBinaryReader binaryReader;
+
+    public PrideBinaryReaderTest() throws Exception {
+        URL url = PrideBinaryReaderTest.class.getClassLoader().getResource("new_2.json");
+        jsonReader = new JSONReader(new File(url.toURI()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PrideBinaryWriter(jsonReader).write(out);
+        binaryReader = new PrideBinaryReader(out.toByteArray());
+    }
+
+    @Test
+    public void testSummary() throws Exception {
+        assertEquals(jsonReader.getPeptideSize(), binaryReader.getPeptideSize());
+        assertEquals(jsonReader.getIdentifiedSpectraSize(), binaryReader.getIdentifiedSpectraSize());
+        assertEquals(jsonReader.getUnidentifiedSpectraSize(), binaryReader.getUnidentifiedSpectraSize());
+        assertEquals(jsonReader.getErrorMap().keySet(), binaryReader.getErrorMap().keySet());
+    }
+
+    @Test
+    public void testXY() throws Exception {
+        assertEquals(jsonReader.getXYDataSourceMap().keySet(), binaryReader.getXYDataSourceMap().keySet());
+        for (PrideChartType type : jsonReader.getXYDataSourceMap().keySet()) {
+            PrideXYDataSource jsonDataSource = jsonReader.getXYDataSourceMap().get(type);
+            PrideXYDataSource binaryDataSource = binaryReader.getXYDataSourceMap().get(type);
+
+            assertArrayEquals(jsonDataSource.getDomainData(), binaryDataSource.getDomainData());
+            assertArrayEquals(jsonDataSource.getRangeData(), binaryDataSource.getRangeData());
+        }
+    }
+
+    @Test
+    public void testHistogram() throws Exception {
+        assertEquals(jsonReader.getHistogramDataSourceMap().keySet(), binaryReader.getHistogramDataSourceMap().keySet());
+        for (PrideChartType type : jsonReader.getHistogramDataSourceMap().keySet()) {
+            PrideHistogramDataSource jsonDataSource = jsonReader.getHistogramDataSourceMap().get(type);
+            PrideHistogramDataSource binaryDataSource = binaryReader.getHistogramDataSourceMap().get(type);
+
+            assertEquals(jsonDataSource.getBinCount(), binaryDataSource.getBinCount());
+            for (int i = 0; i < jsonDataSource.getBinCount(); i++) {
+                assertEquals(jsonDataSource.getBin(i), binaryDataSource.getBin(i));
+            }
+            if (jsonDataSource instanceof PrideSpectrumHistogramDataSource) {
+                assertEquals(((PrideSpectrumHistogramDataSource) jsonDataSource).getIntensityMap(),
+                        ((PrideSpectrumHistogramDataSource) binaryDataSource).getIntensityMap());
+            } else {
+                assertEquals(jsonDataSource.getHistogramMap(), binaryDataSource.getHistogramMap());
+            }
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * A file of one histogram chart, whose bins have a corrupted count far beyond the section.
+     */
+    private byte[] createCorruptedBins(int encoding) throws IOException {
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        DataOutputStream sectionData = new DataOutputStream(section);
+        writeVarint(sectionData, 0);
+        sectionData.writeByte(0);
+        sectionData.writeByte(0);
+        writeVarint(sectionData, Integer.MAX_VALUE);
+        sectionData.writeByte(PrideBinaryWriter.EXPLICIT_BINS);
+        sectionData.writeByte(encoding);
+        sectionData.write(new byte[16]);
+        return createFile(PrideBinaryWriter.HISTOGRAM_SECTION, PrideChartType.PEAKS_MS, section);
+    }
+
+    private void writeGeneratedBins(DataOutputStream sectionData, int count, double binWidth) throws IOException {
+        writeVarint(sectionData, count);
+        sectionData.writeByte(PrideBinaryWriter.GENERATED_BINS);
+        sectionData.writeDouble(0);
+        sectionData.writeDouble(binWidth);
+    }
+
+    private byte[] createGeneratedHistogram(int count, double binWidth) throws IOException {
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        DataOutputStream sectionData = new DataOutputStream(section);
+        writeVarint(sectionData, 0);
+        sectionData.writeByte(0);
+        sectionData.writeByte(0);
+        writeGeneratedBins(sectionData, count, binWidth);
+        writeVarint(sectionData, 0);
+        return createFile(PrideBinaryWriter.HISTOGRAM_SECTION, PrideChartType.PEAKS_MS, section);
+    }
+
+    private byte[] createGeneratedSpectrum(int count, double binWidth) throws IOException {
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        DataOutputStream sectionData = new DataOutputStream(section);
+        writeVarint(sectionData, 0);
+        sectionData.writeByte(0);
+        sectionData.writeByte(1);
+        sectionData.writeDouble(0);
+        sectionData.writeDouble(1);
+        sectionData.writeDouble(100);
+        writeGeneratedBins(sectionData, count, binWidth);
+        writeVarint(sectionData, 0);
+        return createFile(PrideBinaryWriter.SPECTRUM_SECTION, PrideChartType.AVERAGE_MS, section);
+    }
+
+    private byte[] createFile(int kind, PrideChartType chartType, ByteArrayOutputStream section) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(PrideBinaryWriter.MAGIC);
+        data.writeByte(PrideBinaryWriter.VERSION);
+        writeVarint(data, 0);
+        writeVarint(data, 0);
+        writeVarint(data, 0);
+        writeVarint(data, PrideDataType.values().length);
+        for (PrideDataType type : PrideDataType.values()) {
+            writeVarint(data, type.getId());
+        }
+        writeVarint(data, 0);
+        writeVarint(data, 1);
+
+        byte[] name = chartType.name().getBytes("UTF-8");
+        data.writeByte(kind);
+        writeVarint(data, name.length + 1);
+        data.write(name);
+        writeVarint(data, section.size());
+        section.writeTo(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testCorruptedCount() throws Exception {
+        // the chart is left out, the count is not allocated.
+        for (int encoding : new int[] {PrideBinaryWriter.DOUBLE_ENCODING, PrideBinaryWriter.INT_ENCODING}) {
+            PrideBinaryReader reader = new PrideBinaryReader(createCorruptedBins(encoding));
+            assertFalse(reader.getHistogramDataSourceMap().containsKey(PrideChartType.PEAKS_MS));
+        }
+
+        // the generated bins are checked before they are created.
+        PrideBinaryReader reader = new PrideBinaryReader(createGeneratedHistogram(Integer.MAX_VALUE, 1));
+        assertFalse(reader.getHistogramDataSourceMap().containsKey(PrideChartType.PEAKS_MS));
+        reader = new PrideBinaryReader(createGeneratedHistogram(2, Double.MAX_VALUE));
+        assertFalse(reader.getHistogramDataSourceMap().containsKey(PrideChartType.PEAKS_MS));
+        reader = new PrideBinaryReader(createGeneratedHistogram(10, 1));
+        assertTrue(reader.getHistogramDataSourceMap().containsKey(PrideChartType.PEAKS_MS));
+
+        reader = new PrideBinaryReader(createGeneratedSpectrum(Integer.MAX_VALUE, 1));
+        assertFalse(reader.getHistogramDataSourceMap().containsKey(PrideChartType.AVERAGE_MS));
+        reader = new PrideBinaryReader(createGeneratedSpectrum(1000, 1));
+        assertFalse(reader.getHistogramDataSourceMap().containsKey(PrideChartType.AVERAGE_MS));
+        reader = new PrideBinaryReader(createGeneratedSpectrum(100, 1));
+        assertTrue(reader.getHistogramDataSourceMap().containsKey(PrideChartType.AVERAGE_MS));
+    }
+
+    @Test
+    public void testSparseSpectrum() throws Exception {
+        final PrideSpectrumHistogramDataSource dataSource = new PrideSpectrumHistogramDataSource(true, 0, 0.001);
+        dataSource.addPeak(100.0005, 10, PrideDataType.IDENTIFIED_SPECTRA);
+        dataSource.addPeak(100.0005, 2.5, PrideDataType.IDENTIFIED_SPECTRA);
+        dataSource.addPeak(1999.5, 7, PrideDataType.UNIDENTIFIED_SPECTRA);
+        dataSource.addPeak(4000.25, 0.125, PrideDataType.IDENTIFIED_SPECTRA);
+
+        PrideDataReader reader = new PrideDataReader() {
+            @Override
+            protected void start() {
+            }
+
+            @Override
+            protected void reading() {
+                histogramDataSourceMap.put(PrideChartType.AVERAGE_MS, dataSource);
+            }
+
+            @Override
+            protected void end() {
+            }
+        };
+        reader.readData();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PrideBinaryWriter(reader).write(out);
+        PrideSpectrumHistogramDataSource decoded = (PrideSpectrumHistogramDataSource)
+                new PrideBinaryReader(out.toByteArray()).getHistogramDataSourceMap().get(PrideChartType.AVERAGE_MS);
+        assertNotNull(decoded);
+
+        assertEquals(3, dataSource.getMzOffsets(PrideDataType.ALL_SPECTRA).length);
+        for (PrideDataType type : new PrideDataType[] {PrideDataType.ALL_SPECTRA, PrideDataType.IDENTIFIED_SPECTRA,
+                PrideDataType.UNIDENTIFIED_SPECTRA}) {
+            int[] offsets = dataSource.getMzOffsets(type);
+            assertArrayEquals(offsets, decoded.getMzOffsets(type));
+            assertArrayEquals(dataSource.getMzIntensities(type, offsets), decoded.getMzIntensities(type, offsets), 0);
+        }
+    }
+}
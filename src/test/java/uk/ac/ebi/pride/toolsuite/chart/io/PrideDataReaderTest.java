@@ -0,0 +1,169 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.*;
+import uk.ac.ebi.pride.utilities.data.controller.impl.ControllerImpl.PrideXmlControllerImpl;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideDataReaderTest {
+
+    private File prideXMLFile;
+    private File jsonFile;
+
+    public PrideDataReaderTest() throws Exception {
+        URL url = PrideDataReaderTest.class.getClassLoader().getResource("PRIDE_Exp_Complete_Ac_2.xml");
+        prideXMLFile = new File(url.toURI());
+        url = PrideDataReaderTest.class.getClassLoader().getResource("new_2.json");
+        jsonFile = new File(url.toURI());
+    }
+
+    private Map<PrideDataType, Double> sumByType(PrideXYDataSource dataSource) {
+        Map<PrideDataType, Double> sumMap = new EnumMap<PrideDataType, Double>(PrideDataType.class);
+        PrideDataType type;
+        Double sum;
+        for (int i = 0; i < dataSource.getSize(); i++) {
+            type = dataSource.getRangeColumns().getType(i);
+            sum = sumMap.get(type);
+            sumMap.put(type, (sum == null ? 0 : sum) + dataSource.getRangeValue(i));
+        }
+        return sumMap;
+    }
+
+    /**
+     * @return the sorted distinct x values.
+     */
+    private double[] getDomainValues(PrideXYDataSource dataSource) {
+        double[] values = new double[dataSource.getSize()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = dataSource.getDomainValue(i);
+        }
+        Arrays.sort(values);
+
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private double getBinWidth(double[] domainValues) {
+        double binWidth = Double.MAX_VALUE;
+        for (int i = 1; i < domainValues.length; i++) {
+            binWidth = Math.min(binWidth, domainValues[i] - domainValues[i - 1]);
+        }
+        return binWidth;
+    }
+
+    @Test
+    public void testMergeSameFile() throws Exception {
+        DataAccessReader reader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile));
+        DataAccessReader expected = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile));
+        reader.merge(new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile)));
+
+        assertEquals(2 * expected.getPeptideSize(), reader.getPeptideSize());
+        assertEquals(2 * expected.getIdentifiedSpectraSize(), reader.getIdentifiedSpectraSize());
+        assertEquals(2 * expected.getUnidentifiedSpectraSize(), reader.getUnidentifiedSpectraSize());
+        assertEquals(expected.getErrorMap().keySet(), reader.getErrorMap().keySet());
+
+        // the count charts are added, the frequency charts are averaged.
+        PrideXYDataSource expectedXY;
+        PrideXYDataSource actualXY;
+        for (PrideChartType type : expected.getXYDataSourceMap().keySet()) {
+            boolean count = type == PrideChartType.PEPTIDES_PROTEIN || type == PrideChartType.PRECURSOR_CHARGE;
+            expectedXY = expected.getXYDataSourceMap().get(type);
+            actualXY = reader.getXYDataSourceMap().get(type);
+            assertEquals(expectedXY.getSize(), actualXY.getSize());
+            for (int i = 0; i < expectedXY.getSize(); i++) {
+                assertEquals(expectedXY.getDomainValue(i), actualXY.getDomainValue(i));
+                assertEquals((count ? 2 : 1) * expectedXY.getRangeValue(i), actualXY.getRangeValue(i), 1e-12);
+                assertEquals(expectedXY.getRangeColumns().getType(i), actualXY.getRangeColumns().getType(i));
+            }
+        }
+
+        SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> expectedHistogram;
+        SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Integer>> actualHistogram;
+        for (PrideChartType type : expected.getHistogramDataSourceMap().keySet()) {
+            if (expected.getHistogramDataSourceMap().get(type) instanceof PrideSpectrumHistogramDataSource) {
+                continue;
+            }
+            expectedHistogram = expected.getHistogramDataSourceMap().get(type).getHistogramMap();
+            actualHistogram = reader.getHistogramDataSourceMap().get(type).getHistogramMap();
+            assertEquals(expectedHistogram.keySet(), actualHistogram.keySet());
+            for (PrideDataType dataType : expectedHistogram.keySet()) {
+                for (Map.Entry<PrideHistogramBin, Integer> entry : expectedHistogram.get(dataType).entrySet()) {
+                    assertEquals(2 * entry.getValue(), actualHistogram.get(dataType).get(entry.getKey()).intValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * The DELTA_MASS bins of the files have different width, and the PRECURSOR_MASSES bins different
+     * range. The merged charts have one common layout, and keep the weighted sum of frequencies.
+     */
+    @Test
+    public void testMergeDifferentLayouts() throws Exception {
+        DataAccessReader reader = new DataAccessReader(new PrideXmlControllerImpl(prideXMLFile));
+        JSONReader other = new JSONReader(jsonFile);
+
+        double peptideWeight = (double) reader.getPeptideSize() / (reader.getPeptideSize() + other.getPeptideSize());
+        double spectraWeight = (double) reader.getSpectraSize() / (reader.getSpectraSize() + other.getSpectraSize());
+        PrideChartType[] types = {PrideChartType.DELTA_MASS, PrideChartType.PRECURSOR_MASSES};
+        double[] weights = {peptideWeight, spectraWeight};
+
+        Map<PrideChartType, Map<PrideDataType, Double>> sumMap = new EnumMap<PrideChartType, Map<PrideDataType, Double>>(PrideChartType.class);
+        Map<PrideChartType, Map<PrideDataType, Double>> otherSumMap = new EnumMap<PrideChartType, Map<PrideDataType, Double>>(PrideChartType.class);
+        Map<PrideChartType, Double> binWidthMap = new EnumMap<PrideChartType, Double>(PrideChartType.class);
+        for (PrideChartType type : types) {
+            sumMap.put(type, sumByType(reader.getXYDataSourceMap().get(type)));
+            otherSumMap.put(type, sumByType(other.getXYDataSourceMap().get(type)));
+            binWidthMap.put(type, Math.max(getBinWidth(getDomainValues(reader.getXYDataSourceMap().get(type))),
+                    getBinWidth(getDomainValues(other.getXYDataSourceMap().get(type)))));
+        }
+        assertFalse(getBinWidth(getDomainValues(reader.getXYDataSourceMap().get(PrideChartType.DELTA_MASS))) ==
+                getBinWidth(getDomainValues(other.getXYDataSourceMap().get(PrideChartType.DELTA_MASS))));
+
+        reader.merge(other);
+
+        PrideXYDataSource merged;
+        double[] domainValues;
+        double binWidth;
+        double position;
+        for (int t = 0; t < types.length; t++) {
+            merged = reader.getXYDataSourceMap().get(types[t]);
+            assertFalse(reader.getErrorMap().containsKey(types[t]));
+
+            // every x value is a bin of the wider layout.
+            domainValues = getDomainValues(merged);
+            binWidth = binWidthMap.get(types[t]);
+            assertEquals(binWidth, getBinWidth(domainValues), binWidth * 1e-6);
+            for (double value : domainValues) {
+                position = (value - domainValues[0]) / binWidth;
+                assertEquals(Math.rint(position), position, 1e-6);
+            }
+
+            Map<PrideDataType, Double> sums = sumMap.get(types[t]);
+            Map<PrideDataType, Double> otherSums = otherSumMap.get(types[t]);
+            for (Map.Entry<PrideDataType, Double> entry : sumByType(merged).entrySet()) {
+                double expected = (sums.containsKey(entry.getKey()) ? weights[t] * sums.get(entry.getKey()) : 0) +
+                        (otherSums.containsKey(entry.getKey()) ? (1 - weights[t]) * otherSums.get(entry.getKey()) : 0);
+                assertEquals(expected, entry.getValue(), 1e-9);
+            }
+        }
+    }
+}
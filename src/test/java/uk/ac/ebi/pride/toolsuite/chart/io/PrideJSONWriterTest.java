@@ -0,0 +1,93 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.PrideChartType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideData;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideXYDataSource;
+import uk.ac.ebi.pride.utilities.data.controller.impl.ControllerImpl.PrideXmlControllerImpl;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URL;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static uk.ac.ebi.pride.toolsuite.chart.utils.PridePlotConstants.NEW_LINE;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideJSONWriterTest {
+
+    private File getResource(String name) throws Exception {
+        URL url = PrideJSONWriterTest.class.getClassLoader().getResource(name);
+        return new File(url.toURI());
+    }
+
+    /**
+     * The file format written by the JSONObject getters before the streaming writer, a chart is "null" if
+     * it is not found or its JSONObject can not be written.
+     */
+    private String getJSONString(PrideJSONWriter writer) throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("1, ").append(writer.getPeakIntensity()).append(NEW_LINE);
+        sb.append("2, ").append(writer.getPreCharge()).append(NEW_LINE);
+        sb.append("3, ").append(writer.getAvg()).append(NEW_LINE);
+        sb.append("4, ").append(writer.getPreMasses()).append(NEW_LINE);
+        sb.append("5, ").append(writer.getPeptides()).append(NEW_LINE);
+        sb.append("6, ").append(writer.getPeaksMS()).append(NEW_LINE);
+        sb.append("7, ").append(writer.getDelta()).append(NEW_LINE);
+        sb.append("8, ").append(writer.getMissed());
+
+        return sb.toString();
+    }
+
+    private void assertSameOutput(PrideDataReader reader) throws Exception {
+        PrideJSONWriter writer = new PrideJSONWriter(reader);
+        StringWriter out = new StringWriter();
+        writer.write(out);
+
+        assertEquals(getJSONString(writer), out.toString());
+    }
+
+    @Test
+    public void testWriteJSONReader() throws Exception {
+        assertSameOutput(new JSONReader(getResource("new_2.json")));
+    }
+
+    @Test
+    public void testWriteDataAccessReader() throws Exception {
+        assertSameOutput(new DataAccessReader(new PrideXmlControllerImpl(getResource("PRIDE_Exp_Complete_Ac_2.xml"))));
+    }
+
+    @Test
+    public void testNonFiniteChart() throws Exception {
+        PrideDataReader reader = new PrideDataReader() {
+            @Override
+            protected void start() {
+            }
+
+            @Override
+            protected void reading() {
+                PrideData[] rangeData = {new PrideData(1.0, PrideDataType.ALL), new PrideData(Double.NaN, PrideDataType.ALL)};
+                xyDataSourceMap.put(PrideChartType.PEPTIDES_PROTEIN,
+                        new PrideXYDataSource(new Double[] {1.0, 2.0}, rangeData, PrideDataType.ALL));
+            }
+
+            @Override
+            protected void end() {
+            }
+        };
+        reader.readData();
+
+        // the chart is null as a whole, same as the toString() of its JSONObject.
+        PrideJSONWriter writer = new PrideJSONWriter(reader);
+        assertNull(writer.getPeptides().toString());
+        StringWriter out = new StringWriter();
+        writer.writePeptides(out);
+        assertEquals("null", out.toString());
+    }
+}
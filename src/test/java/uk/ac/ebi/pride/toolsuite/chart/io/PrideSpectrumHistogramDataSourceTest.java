@@ -0,0 +1,54 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideDataType;
+import uk.ac.ebi.pride.toolsuite.chart.dataset.PrideHistogramBin;
+
+import java.util.SortedMap;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideSpectrumHistogramDataSourceTest {
+
+    @Test
+    public void testIntensityMap() throws Exception {
+        PrideSpectrumHistogramDataSource dataSource = new PrideSpectrumHistogramDataSource(true);
+        dataSource.addPeak(100.2, 1.0, PrideDataType.IDENTIFIED_SPECTRA);
+        dataSource.addPeak(100.7, 2.0, PrideDataType.UNIDENTIFIED_SPECTRA);
+        dataSource.addPeak(150.5, 4.0, PrideDataType.IDENTIFIED_SPECTRA);
+        dataSource.appendBins(dataSource.generateMzBins());
+
+        SortedMap<PrideDataType, SortedMap<PrideHistogramBin, Double>> intensityMap = dataSource.getIntensityMap();
+        assertEquals(151, intensityMap.get(PrideDataType.ALL_SPECTRA).size());
+        assertEquals(3.0, intensityMap.get(PrideDataType.ALL_SPECTRA).get(new PrideHistogramBin(100, 101)));
+        assertEquals(1.0, intensityMap.get(PrideDataType.IDENTIFIED_SPECTRA).get(new PrideHistogramBin(100, 101)));
+        assertEquals(2.0, intensityMap.get(PrideDataType.UNIDENTIFIED_SPECTRA).get(new PrideHistogramBin(100, 101)));
+        assertEquals(4.0, intensityMap.get(PrideDataType.IDENTIFIED_SPECTRA).get(new PrideHistogramBin(150, 151)));
+    }
+
+    @Test
+    public void testFineBinWidth() throws Exception {
+        PrideSpectrumHistogramDataSource dataSource = new PrideSpectrumHistogramDataSource(true, 100, 0.01);
+        dataSource.addPeak(100.005, 1.0, PrideDataType.IDENTIFIED_SPECTRA);
+        dataSource.addPeak(100.015, 2.0, PrideDataType.IDENTIFIED_SPECTRA);
+        dataSource.addPeak(3999.995, 4.0, PrideDataType.UNIDENTIFIED_SPECTRA);
+        dataSource.addPeak(50, 8.0, PrideDataType.UNIDENTIFIED_SPECTRA);
+        dataSource.appendBins(dataSource.generateMzBins());
+
+        SortedMap<PrideHistogramBin, Double> histogram = dataSource.getIntensityMap().get(PrideDataType.ALL_SPECTRA);
+        assertEquals(390000, histogram.size());
+
+        double sum = 0;
+        for (Double intensity : histogram.values()) {
+            sum += intensity;
+        }
+        assertEquals(7.0, sum);
+        assertEquals(1.0, histogram.get(histogram.firstKey()));
+        assertEquals(4.0, histogram.get(histogram.lastKey()));
+        assertEquals(100.01, histogram.firstKey().getEndBoundary(), 1e-9);
+    }
+}
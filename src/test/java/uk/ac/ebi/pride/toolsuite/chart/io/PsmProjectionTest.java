@@ -0,0 +1,102 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.utilities.data.controller.DataAccessController;
+import uk.ac.ebi.pride.utilities.data.controller.impl.ControllerImpl.PrideXmlControllerImpl;
+import uk.ac.ebi.pride.utilities.data.core.Modification;
+import uk.ac.ebi.pride.utilities.data.core.Peptide;
+import uk.ac.ebi.pride.utilities.data.filter.AccessionFilter;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PsmProjectionTest {
+
+    private DataAccessController controller;
+    private List<Comparable> proteinIds;
+
+    public PsmProjectionTest() throws Exception {
+        URL url = PsmProjectionTest.class.getClassLoader().getResource("PRIDE_Exp_Complete_Ac_2.xml");
+        controller = new PrideXmlControllerImpl(new File(url.toURI()));
+        proteinIds = new ArrayList<Comparable>(controller.getProteinIds());
+    }
+
+    @Test
+    public void testProjectFields() throws Exception {
+        SpectrumStatusIndex spectrumIndex = new SpectrumStatusIndex(controller.getSpectrumIds(), true);
+        PsmProjection projection = new PsmProjection(controller, null, true, true, false, spectrumIndex, false);
+
+        List<PsmProjection.ProteinPsms> proteins = projection.project(proteinIds, 0, proteinIds.size());
+        assertEquals(proteinIds.size(), proteins.size());
+        for (int i = 0; i < proteinIds.size(); i++) {
+            List<Peptide> peptides = controller.getProteinById(proteinIds.get(i)).getPeptides();
+            PsmProjection.Psm[] psms = proteins.get(i).psms;
+            assertEquals(peptides.size(), psms.length);
+            assertNull(proteins.get(i).quantPeptides);
+
+            for (int j = 0; j < psms.length; j++) {
+                Peptide peptide = peptides.get(j);
+                assertEquals(peptide.getSequence(), psms[j].sequence);
+                assertEquals((Double) peptide.getPrecursorMz(), psms[j].precursorMz);
+                assertEquals((Integer) peptide.getPrecursorCharge(), psms[j].precursorCharge);
+                assertEquals(getModMassDeltas(peptide), psms[j].modMassDeltas);
+                assertFalse(psms[j].decoy);
+
+                Comparable spectrumId = controller.getSpectrumIdForPeptide(peptide.getSpectrumIdentification().getId());
+                assertEquals(spectrumId == null ? -1 : spectrumIndex.indexOf(spectrumId), psms[j].spectrumIndex);
+            }
+        }
+    }
+
+    @Test
+    public void testUnselectedFields() throws Exception {
+        PsmProjection projection = new PsmProjection(controller, null, false, false, false, null, false);
+
+        List<PsmProjection.ProteinPsms> proteins = projection.project(proteinIds, 2, 7);
+        assertEquals(5, proteins.size());
+        for (int i = 0; i < proteins.size(); i++) {
+            assertEquals(controller.getProteinById(proteinIds.get(i + 2)).getPeptides().size(), proteins.get(i).psms.length);
+            for (PsmProjection.Psm psm : proteins.get(i).psms) {
+                assertNull(psm.sequence);
+                assertNull(psm.precursorMz);
+                assertNull(psm.precursorCharge);
+                assertNull(psm.modMassDeltas);
+                assertEquals(-1, psm.spectrumIndex);
+            }
+        }
+    }
+
+    @Test
+    public void testAccessionFilter() throws Exception {
+        final String accession = controller.getProteinAccession(proteinIds.get(1));
+        AccessionFilter<String> filter = new AccessionFilter<String>() {
+            @Override
+            public boolean apply(String proteinAccession) {
+                return accession.equals(proteinAccession);
+            }
+        };
+        PsmProjection projection = new PsmProjection(controller, filter, true, false, false, null, false);
+
+        List<PsmProjection.ProteinPsms> proteins = projection.project(proteinIds, 0, proteinIds.size());
+        assertEquals(1, proteins.size());
+        assertEquals(controller.getProteinById(proteinIds.get(1)).getPeptides().size(), proteins.get(0).psms.length);
+    }
+
+    private List<Double> getModMassDeltas(Peptide peptide) {
+        List<Double> modMassList = new ArrayList<Double>();
+        for (Modification mod : peptide.getModifications()) {
+            if (mod.getMonoisotopicMassDelta().size() > 0) {
+                modMassList.add(mod.getMonoisotopicMassDelta().get(0));
+            }
+        }
+        return modMassList;
+    }
+}
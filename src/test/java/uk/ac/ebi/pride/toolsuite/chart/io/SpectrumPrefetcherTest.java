@@ -0,0 +1,94 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+import uk.ac.ebi.pride.utilities.data.controller.DataAccessController;
+import uk.ac.ebi.pride.utilities.data.controller.impl.ControllerImpl.PrideXmlControllerImpl;
+import uk.ac.ebi.pride.utilities.data.core.Spectrum;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class SpectrumPrefetcherTest {
+
+    private File prideXMLFile;
+
+    public SpectrumPrefetcherTest() throws Exception {
+        URL url = SpectrumPrefetcherTest.class.getClassLoader().getResource("PRIDE_Exp_Complete_Ac_2.xml");
+        prideXMLFile = new File(url.toURI());
+    }
+
+    /**
+     * The controller throws the error on the given call of getSpectrumById.
+     */
+    private DataAccessController createFailingController(final int failedCall, final Error error) {
+        return new PrideXmlControllerImpl(prideXMLFile) {
+            private int calls = 0;
+
+            @Override
+            public Spectrum getSpectrumById(Comparable id) {
+                if (++calls == failedCall) {
+                    throw error;
+                }
+                return super.getSpectrumById(id);
+            }
+        };
+    }
+
+    @Test
+    public void testBatchOrder() throws Exception {
+        DataAccessController controller = new PrideXmlControllerImpl(prideXMLFile);
+        List<Comparable> spectrumIds = new ArrayList<Comparable>(controller.getSpectrumIds());
+        int from = 3;
+        int to = Math.min(spectrumIds.size(), 50);
+
+        for (int queueDepth : new int[] {0, 1, 4}) {
+            SpectrumPrefetcher prefetcher = new SpectrumPrefetcher(controller, spectrumIds, from, to, 7, queueDepth, true);
+            int next = from;
+            List<SpectrumPrefetcher.FetchedSpectrum> batch;
+            while ((batch = prefetcher.nextBatch()) != null) {
+                assertTrue(batch.size() <= 7);
+                for (SpectrumPrefetcher.FetchedSpectrum fetchedSpectrum : batch) {
+                    assertEquals(next, fetchedSpectrum.index);
+                    assertEquals(spectrumIds.get(next), fetchedSpectrum.id);
+                    assertEquals(controller.getSpectrumMsLevel(fetchedSpectrum.id), fetchedSpectrum.msLevel);
+                    next++;
+                }
+            }
+            assertEquals(to, next);
+            assertNull(prefetcher.nextBatch());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testProducerError() throws Exception {
+        Error error = new OutOfMemoryError("decoding spectrum");
+        DataAccessController controller = createFailingController(5, error);
+        List<Comparable> spectrumIds = new ArrayList<Comparable>(controller.getSpectrumIds());
+
+        SpectrumPrefetcher prefetcher = new SpectrumPrefetcher(controller, spectrumIds, 0, spectrumIds.size(), 2, 1, false);
+        int next = 0;
+        try {
+            List<SpectrumPrefetcher.FetchedSpectrum> batch;
+            while ((batch = prefetcher.nextBatch()) != null) {
+                for (SpectrumPrefetcher.FetchedSpectrum fetchedSpectrum : batch) {
+                    assertEquals(next++, fetchedSpectrum.index);
+                }
+            }
+            fail("The error of the producer should be thrown.");
+        } catch (OutOfMemoryError e) {
+            assertSame(error, e);
+        }
+
+        // the failed spectrum is never delivered.
+        assertTrue(next < 5);
+        assertNull(prefetcher.nextBatch());
+    }
+}
@@ -0,0 +1,53 @@
+package uk.ac.ebi.pride.toolsuite.chart.io;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class SpectrumStatusIndexTest {
+
+    private List<Comparable> spectrumIds = Arrays.<Comparable>asList("s3", "s1", 7, "s2");
+
+    @Test
+    public void testIndex() throws Exception {
+        SpectrumStatusIndex index = new SpectrumStatusIndex(spectrumIds, true);
+
+        assertEquals(spectrumIds, index.getSpectrumIds());
+        assertEquals(4, index.size());
+        for (int i = 0; i < spectrumIds.size(); i++) {
+            assertEquals(i, index.indexOf(spectrumIds.get(i)));
+            assertEquals(0, index.getStatus(i));
+            assertFalse(index.isIdentified(i));
+        }
+        assertEquals(-1, index.indexOf("s4"));
+    }
+
+    @Test
+    public void testMark() throws Exception {
+        SpectrumStatusIndex index = new SpectrumStatusIndex(spectrumIds, true);
+        index.mark(index.indexOf("s1"), false);
+        index.mark(index.indexOf(7), true);
+        index.mark(index.indexOf("s2"), false);
+        index.mark(index.indexOf("s2"), true);
+
+        assertFalse(index.isIdentified(0));
+        assertEquals(SpectrumStatusIndex.IDENTIFIED | SpectrumStatusIndex.TARGET, index.getStatus(1));
+        assertEquals(SpectrumStatusIndex.IDENTIFIED | SpectrumStatusIndex.DECOY, index.getStatus(2));
+        assertEquals(SpectrumStatusIndex.IDENTIFIED | SpectrumStatusIndex.TARGET | SpectrumStatusIndex.DECOY, index.getStatus(3));
+        assertTrue(index.isIdentified(3));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotMarkable() throws Exception {
+        SpectrumStatusIndex index = new SpectrumStatusIndex(spectrumIds, false);
+        assertEquals(4, index.size());
+        index.indexOf("s1");
+    }
+}
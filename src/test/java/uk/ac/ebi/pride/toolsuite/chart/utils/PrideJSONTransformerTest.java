@@ -0,0 +1,180 @@
+package uk.ac.ebi.pride.toolsuite.chart.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.net.URL;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author qingwei
+ * Date: 17/10/26
+ */
+public class PrideJSONTransformerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File inDir;
+    private File outDir;
+
+    @Before
+    public void setUp() throws Exception {
+        URL url = PrideJSONTransformerTest.class.getClassLoader().getResource("PRIDE_Exp_Complete_Ac_2.xml");
+        File prideXMLFile = new File(url.toURI());
+
+        inDir = folder.newFolder("in");
+        outDir = new File(folder.getRoot(), "out");
+
+        copy(prideXMLFile, new File(inDir, "b.xml"));
+        copy(prideXMLFile, new File(inDir, "d.mzid"));
+        copy(prideXMLFile, new File(inDir, "d.xml"));
+        write(new File(inDir, "a.xml"), "<?xml version=\"1.0\"?>\n<ExperimentCollection><Exp");
+        write(new File(inDir, "c.txt"), "not a PRIDE file");
+    }
+
+    private void copy(File from, File to) throws IOException {
+        InputStream in = new FileInputStream(from);
+        OutputStream out = new FileOutputStream(to);
+        try {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+    }
+
+    private void write(File file, String text) throws IOException {
+        Writer out = new FileWriter(file);
+        try {
+            out.write(text);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testTransformAll() throws Exception {
+        PrideJSONTransformer transformer = new PrideJSONTransformer();
+        List<PrideTransformResult> results = transformer.transformAll(inDir, outDir, 3);
+
+        assertEquals(5, results.size());
+        String[] names = {"a.xml", "b.xml", "c.txt", "d.mzid", "d.xml"};
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], results.get(i).getInFile().getName());
+        }
+
+        // the corrupt file fails, and leaves no json file.
+        PrideTransformResult result = results.get(0);
+        assertEquals(PrideTransformResult.Status.FAILED, result.getStatus());
+        assertEquals("PRIDE_XML", result.getFileType());
+        assertNotNull(result.getError());
+        assertNull(result.getOutFile());
+        assertFalse(new File(outDir, "a.json").exists());
+
+        result = results.get(1);
+        assertEquals(PrideTransformResult.Status.CONVERTED, result.getStatus());
+        assertNull(result.getError());
+        assertEquals(new File(outDir, "b.json"), result.getOutFile());
+        assertTrue(result.getOutFile().length() > 0);
+        assertEquals(result.getOutFile().length(), result.getOutFileSize());
+        assertTrue(result.getLoadTime() >= 0);
+        assertTrue(result.getReadTime() >= 0);
+        assertTrue(result.getWriteTime() >= 0);
+        assertTrue(result.getTotalTime() >= 0);
+
+        result = results.get(2);
+        assertEquals(PrideTransformResult.Status.SKIPPED, result.getStatus());
+        assertNull(result.getFileType());
+        assertNull(result.getError());
+        assertFalse(new File(outDir, "c.txt").exists());
+
+        // d.mzid and d.xml would both be written into d.json, the latter one is not transformed.
+        result = results.get(3);
+        assertEquals(PrideTransformResult.Status.CONVERTED, result.getStatus());
+        assertEquals("mzIdentML", result.getFileType());
+        assertEquals(new File(outDir, "d.json"), result.getOutFile());
+        assertEquals(result.getOutFile().length(), result.getOutFileSize());
+
+        result = results.get(4);
+        assertEquals(PrideTransformResult.Status.FAILED, result.getStatus());
+        assertEquals("PRIDE_XML", result.getFileType());
+        assertEquals("Duplicate output file: d.json", result.getError());
+        assertNull(result.getOutFile());
+        assertEquals(-1, result.getLoadTime());
+
+        assertEquals(2, outDir.listFiles().length);
+    }
+
+    @Test
+    public void testWriteReport() throws Exception {
+        PrideJSONTransformer transformer = new PrideJSONTransformer();
+        List<PrideTransformResult> results = transformer.transformAll(inDir, outDir, 2);
+        File reportFile = new File(outDir, PrideJSONTransformer.REPORT_FILE_NAME);
+        transformer.writeReport(results, 2, 1234, reportFile);
+
+        Reader in = new FileReader(reportFile);
+        JSONObject report;
+        try {
+            report = new JSONObject(new JSONTokener(in));
+        } finally {
+            in.close();
+        }
+
+        assertEquals(2, report.getInt("parallelism"));
+        assertEquals(1234, report.getLong("totalTime"));
+        assertEquals(5, report.getInt("files"));
+        assertEquals(2, report.getInt("converted"));
+        assertEquals(1, report.getInt("skipped"));
+        assertEquals(2, report.getInt("failed"));
+
+        JSONArray array = report.getJSONArray("results");
+        assertEquals(results.size(), array.length());
+        JSONObject json;
+        for (int i = 0; i < array.length(); i++) {
+            PrideTransformResult result = results.get(i);
+            json = array.getJSONObject(i);
+            assertEquals(result.getInFile().getName(), json.getString("file"));
+            assertEquals(result.getStatus().name(), json.getString("status"));
+            assertEquals(result.getInFileSize(), json.getLong("inFileSize"));
+            assertEquals(result.getOutFileSize(), json.getLong("outFileSize"));
+            assertEquals(result.getLoadTime(), json.getLong("loadTime"));
+            assertEquals(result.getReadTime(), json.getLong("readTime"));
+            assertEquals(result.getWriteTime(), json.getLong("writeTime"));
+            assertEquals(result.getTotalTime(), json.getLong("totalTime"));
+
+            if (result.getFileType() == null) {
+                assertTrue(json.isNull("type"));
+            } else {
+                assertEquals(result.getFileType(), json.getString("type"));
+            }
+            if (result.getOutFile() == null) {
+                assertTrue(json.isNull("outFile"));
+            } else {
+                assertEquals(result.getOutFile().getName(), json.getString("outFile"));
+            }
+            if (result.getError() == null) {
+                assertTrue(json.isNull("error"));
+            } else {
+                assertEquals(result.getError(), json.getString("error"));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() throws Exception {
+        new PrideJSONTransformer().transformAll(inDir, outDir, 0);
+    }
+}